@@ -0,0 +1,92 @@
+package cc.techox.boardgame.game.uno;
+
+import cc.techox.boardgame.config.GameDataManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试共用的牌局构造
+ */
+final class BenchmarkFixtures {
+    private BenchmarkFixtures() {}
+
+    /** 大手牌时每人的目标张数 */
+    static final int LARGE_HAND = 20;
+    /** 大手牌时牌库至少保留的张数 */
+    static final int MIN_DRAW_PILE = 10;
+
+    static List<Map<String, Object>> loadCards() {
+        GameDataManager dataManager = new GameDataManager();
+        dataManager.loadGameData();
+        return dataManager.getGameCards("uno");
+    }
+
+    static List<Long> userIds(int players) {
+        List<Long> ids = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) ids.add(1000L + i);
+        return ids;
+    }
+
+    static Map<Long, Map<String, Object>> userInfo(List<Long> userIds) {
+        Map<Long, Map<String, Object>> info = new HashMap<>();
+        for (Long id : userIds) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("username", "user" + id);
+            user.put("displayName", "玩家" + id);
+            info.put(id, user);
+        }
+        return info;
+    }
+
+    /**
+     * 发好牌的对局；large 时从牌库轮流补牌，直到每人 {@link #LARGE_HAND} 张或牌库只剩 {@link #MIN_DRAW_PILE} 张
+     */
+    static UnoState dealt(List<Long> userIds, List<Map<String, Object>> cards, boolean large) {
+        UnoState s = UnoEngine.createInitialStateWithDeck(userIds, cards);
+        if (!large) return s;
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            for (int i = 0; i < s.players.size(); i++) {
+                UnoState.PlayerState p = s.players.get(i);
+                if (p.hand.size() >= LARGE_HAND || s.drawPile.size() <= MIN_DRAW_PILE) continue;
+                s.players.set(i, p.withCards(s.drawPile.top(1)));
+                s.drawPile = s.drawPile.pop();
+                grew = true;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * 推进到当前玩家手里有非万能牌可出、且没有待摸牌惩罚的局面
+     */
+    static UnoState withPlayableTurn(List<Long> userIds, List<Map<String, Object>> cards, boolean large) {
+        while (true) {
+            UnoState s = dealt(userIds, cards, large);
+            if (s.pendingDraw == 0 && firstColoredPlayable(s) != UnoCards.NONE) return s;
+        }
+    }
+
+    static int firstColoredPlayable(UnoState s) {
+        CardArray playable = UnoEngine.playableKinds(s, s.currentPlayer().userId);
+        for (int i = 0; i < playable.size(); i++) {
+            if (!UnoCards.isWild(playable.get(i))) return playable.get(i);
+        }
+        return UnoCards.NONE;
+    }
+
+    /**
+     * 在弃牌堆顶放一张 +4，构造可以被当前玩家质疑的局面
+     */
+    static UnoState withPendingDraw4(UnoState s) {
+        UnoState copy = s.copy();
+        copy.discardPile = copy.discardPile.push(UnoCards.WILD_DRAW4);
+        copy.pendingDraw = 4;
+        copy.forcedColor = 0;
+        return copy;
+    }
+}
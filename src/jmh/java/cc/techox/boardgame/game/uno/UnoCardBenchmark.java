@@ -0,0 +1,44 @@
+package cc.techox.boardgame.game.uno;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 卡牌代码解析基准，轮流解析整副牌的所有牌面
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UnoCardBenchmark {
+
+    private String[] codes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> deck = UnoEngine.buildDeck();
+        codes = deck.toArray(new String[0]);
+    }
+
+    private String nextCode() {
+        String code = codes[next];
+        next = next + 1 == codes.length ? 0 : next + 1;
+        return code;
+    }
+
+    @Benchmark
+    public UnoCard fromCode() {
+        return UnoCard.fromCode(nextCode());
+    }
+
+    @Benchmark
+    public Map<String, Object> codeToObject() {
+        return UnoCard.codeToObject(nextCode());
+    }
+}
@@ -0,0 +1,96 @@
+package cc.techox.boardgame.game.uno;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UnoEngine 单步操作基准
+ * 输入局面在 Trial 级别构造，每次调用都从同一局面出发（引擎操作不修改输入）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnoEngineBenchmark {
+
+    @Param({"2", "4", "8"})
+    public int players;
+
+    @Param({"small", "large"})
+    public String hand;
+
+    private List<Map<String, Object>> cards;
+    private DeckTemplate deck;
+    private List<Long> userIds;
+    private Map<Long, Map<String, Object>> userInfo;
+    private UnoState state;
+    private UnoState draw4State;
+    private long currentUserId;
+    private String playableCode;
+    private byte[] snapshot;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean large = "large".equals(hand);
+        cards = BenchmarkFixtures.loadCards();
+        deck = DeckTemplate.fromCardData(cards);
+        userIds = BenchmarkFixtures.userIds(players);
+        userInfo = BenchmarkFixtures.userInfo(userIds);
+        state = BenchmarkFixtures.withPlayableTurn(userIds, cards, large);
+        draw4State = BenchmarkFixtures.withPendingDraw4(state);
+        currentUserId = state.currentPlayer().userId;
+        playableCode = UnoCards.code(BenchmarkFixtures.firstColoredPlayable(state));
+        snapshot = UnoStateCodec.encode(state);
+    }
+
+    @Benchmark
+    public UnoState createInitialStateWithDeck() {
+        return UnoEngine.createInitialStateWithDeck(userIds, cards, seed++);
+    }
+
+    @Benchmark
+    public UnoState createInitialStateFromTemplate() {
+        return UnoEngine.createInitialState(userIds, deck, seed++);
+    }
+
+    @Benchmark
+    public UnoState playCard() {
+        return UnoEngine.playCard(state, currentUserId, playableCode, null);
+    }
+
+    @Benchmark
+    public UnoEngine.DrawResult drawAndPassWithDetails() {
+        return UnoEngine.drawAndPassWithDetails(state, currentUserId);
+    }
+
+    @Benchmark
+    public UnoEngine.ChallengeResult challengeWildDraw4() {
+        return UnoEngine.challengeWildDraw4(draw4State, currentUserId);
+    }
+
+    @Benchmark
+    public byte[] encodeState() {
+        return UnoStateCodec.encode(state);
+    }
+
+    @Benchmark
+    public UnoState decodeState() {
+        return UnoStateCodec.decode(snapshot, name -> UnoRules.STANDARD);
+    }
+
+    @Benchmark
+    public UnoState copyState() {
+        return UnoEngine.copyState(state);
+    }
+
+    @Benchmark
+    public Map<String, Object> publicViewWithUserInfo() {
+        return UnoEngine.publicViewWithUserInfo(state, currentUserId, userInfo);
+    }
+}
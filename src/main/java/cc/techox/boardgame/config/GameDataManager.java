@@ -1,5 +1,7 @@
 package cc.techox.boardgame.config;
 
+import cc.techox.boardgame.game.uno.DeckTemplate;
+import cc.techox.boardgame.game.uno.UnoRules;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
@@ -26,7 +28,11 @@ public class GameDataManager {
     private final Map<String, Map<String, Object>> gameConfigs = new ConcurrentHashMap<>();
     private final Map<String, List<Map<String, Object>>> gameCards = new ConcurrentHashMap<>();
     private final Map<String, Map<String, String>> gameTexts = new ConcurrentHashMap<>();
-    
+    // 预编译的牌组模板，开局直接复制
+    private final Map<String, DeckTemplate> deckTemplates = new ConcurrentHashMap<>();
+    // 预编译的 UNO 规则变体：变体名 -> 规则表
+    private volatile Map<String, UnoRules> unoRuleVariants = Map.of(UnoRules.DEFAULT_VARIANT, UnoRules.STANDARD);
+
     @PostConstruct
     public void loadGameData() {
         try {
@@ -45,9 +51,11 @@ public class GameDataManager {
     private void loadUnoData() throws IOException {
         // 加载UNO卡牌数据
         loadCardsFromFile("uno", "gamedata/uno/cards.json");
+        deckTemplates.put("uno", DeckTemplate.fromCardData(gameCards.get("uno")));
         
         // 加载UNO规则配置（优先使用YAML格式）
         loadConfigFromFile("uno", "gamedata/uno/config.yml");
+        unoRuleVariants = compileUnoRules(gameConfigs.get("uno"));
         
         // 加载UNO文本
         loadTextsFromFile("uno", "i18n/uno/zh_CN.json");
@@ -95,6 +103,27 @@ public class GameDataManager {
         }
     }
     
+    /**
+     * 把 gameRules / cardEffects 编译为默认规则表，
+     * ruleVariants 中的每个变体在 gameRules 基础上覆盖部分开关后再编译一份
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, UnoRules> compileUnoRules(Map<String, Object> config) {
+        Map<String, Object> gameRules = (Map<String, Object>) config.getOrDefault("gameRules", Map.of());
+        Map<String, Object> cardEffects = (Map<String, Object>) config.getOrDefault("cardEffects", Map.of());
+        Map<String, Object> variants = (Map<String, Object>) config.getOrDefault("ruleVariants", Map.of());
+        
+        Map<String, UnoRules> compiled = new HashMap<>();
+        compiled.put(UnoRules.DEFAULT_VARIANT, UnoRules.compile(UnoRules.DEFAULT_VARIANT, gameRules, cardEffects));
+        variants.forEach((name, overrides) -> {
+            Map<String, Object> merged = new HashMap<>(gameRules);
+            merged.putAll((Map<String, Object>) overrides);
+            compiled.put(name, UnoRules.compile(name, merged, cardEffects));
+        });
+        System.out.println("Compiled UNO rule variants: " + compiled.keySet());
+        return Map.copyOf(compiled);
+    }
+    
     /**
      * 从文件加载游戏文本
      */
@@ -137,6 +166,32 @@ public class GameDataManager {
         return gameCards.getOrDefault(gameCode.toLowerCase(), Collections.emptyList());
     }
     
+    /**
+     * 获取预编译的牌组模板
+     */
+    public DeckTemplate getDeckTemplate(String gameCode) {
+        DeckTemplate template = deckTemplates.get(gameCode.toLowerCase());
+        if (template == null) throw new IllegalArgumentException("no deck for game: " + gameCode);
+        return template;
+    }
+    
+    /**
+     * 获取预编译的 UNO 规则变体，variant 为空时返回默认规则
+     */
+    public UnoRules getUnoRules(String variant) {
+        if (variant == null || variant.isBlank()) variant = UnoRules.DEFAULT_VARIANT;
+        UnoRules rules = unoRuleVariants.get(variant);
+        if (rules == null) throw new IllegalArgumentException("unknown rule variant: " + variant);
+        return rules;
+    }
+    
+    /**
+     * 获取支持的 UNO 规则变体名称
+     */
+    public Set<String> getUnoRuleVariants() {
+        return unoRuleVariants.keySet();
+    }
+    
     /**
      * 获取游戏配置
      */
@@ -163,6 +218,7 @@ public class GameDataManager {
     
     /**
      * 创建新的卡牌副本（用于游戏）
+     * 不在这里洗牌：卡牌数据只是牌面与数量的清单，洗牌由引擎用对局种子完成
      */
     public List<Map<String, Object>> createCardDeck(String gameCode) {
         List<Map<String, Object>> originalCards = getGameCards(gameCode);
@@ -172,9 +228,6 @@ public class GameDataManager {
         for (Map<String, Object> card : originalCards) {
             deck.add(new HashMap<>(card));
         }
-        
-        // 洗牌
-        Collections.shuffle(deck);
         return deck;
     }
     
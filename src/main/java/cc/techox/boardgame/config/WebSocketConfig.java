@@ -1,10 +1,12 @@
 package cc.techox.boardgame.config;
 
+import cc.techox.boardgame.websocket.BinaryFrameCodec;
 import cc.techox.boardgame.websocket.GameWebSocketHandler;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 @Configuration
 @EnableWebSocket
@@ -18,7 +20,11 @@ public class WebSocketConfig implements WebSocketConfigurer {
     
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // 客户端在 Sec-WebSocket-Protocol 中请求 boardgame.bin.v1 时改用二进制帧，未请求或请求其他协议时仍为 JSON
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler();
+        handshakeHandler.setSupportedProtocols(BinaryFrameCodec.PROTOCOL);
         registry.addHandler(gameWebSocketHandler, "/ws")
+                .setHandshakeHandler(handshakeHandler)
                 .setAllowedOriginPatterns("*"); // 使用修复后的GameWebSocketHandler
     }
 }
\ No newline at end of file
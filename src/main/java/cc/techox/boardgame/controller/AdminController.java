@@ -3,11 +3,15 @@ package cc.techox.boardgame.controller;
 import cc.techox.boardgame.common.ApiResponse;
 import cc.techox.boardgame.dto.CreateInviteCodesRequest;
 import cc.techox.boardgame.dto.CreateUserRequest;
+import cc.techox.boardgame.dto.UpdateCapacityRequest;
 import cc.techox.boardgame.dto.UpdateUserPasswordRequest;
 import cc.techox.boardgame.dto.UpdateUserRoleRequest;
 import cc.techox.boardgame.model.*;
 import cc.techox.boardgame.repo.*;
+import cc.techox.boardgame.memory.GameStateManager;
+import cc.techox.boardgame.memory.MemoryPressureMonitor;
 import cc.techox.boardgame.service.AuthService;
+import cc.techox.boardgame.service.MatchAdmissionService;
 import cc.techox.boardgame.service.RoomService;
 import cc.techox.boardgame.util.AuthUtil;
 import cc.techox.boardgame.util.HashUtil;
@@ -32,6 +36,9 @@ public class AdminController {
     private final RoomService roomService;
     private final RoomRepository roomRepo;
     private final GameRepository gameRepo;
+    private final GameStateManager gameStateManager;
+    private final MatchAdmissionService admissionService;
+    private final MemoryPressureMonitor pressureMonitor;
 
     public AdminController(AuthService authService,
                            UserRepository userRepo,
@@ -40,7 +47,10 @@ public class AdminController {
                            AuthSessionRepository sessionRepo,
                            RoomService roomService,
                            RoomRepository roomRepo,
-                           GameRepository gameRepo) {
+                           GameRepository gameRepo,
+                           GameStateManager gameStateManager,
+                           MatchAdmissionService admissionService,
+                           MemoryPressureMonitor pressureMonitor) {
         this.authService = authService;
         this.userRepo = userRepo;
         this.inviteRepo = inviteRepo;
@@ -49,6 +59,9 @@ public class AdminController {
         this.roomService = roomService;
         this.roomRepo = roomRepo;
         this.gameRepo = gameRepo;
+        this.gameStateManager = gameStateManager;
+        this.admissionService = admissionService;
+        this.pressureMonitor = pressureMonitor;
     }
 
     // 引导：若无管理员，创建默认管理员 SpecialFox
@@ -488,6 +501,56 @@ public class AdminController {
             return ApiResponse.error("查询审计日志失败: " + e.getMessage());
         }
     }
+    
+    // 对局容量：当前限制、负载与准入统计
+    @GetMapping("/capacity")
+    public ApiResponse<?> getCapacity(@RequestHeader(name = "Authorization", required = false) String authHeader) {
+        try {
+            AuthUtil.requireAdmin(authHeader, authService);
+            return ApiResponse.ok("ok", admissionService.getStatus());
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        } catch (Exception e) {
+            return ApiResponse.error("获取容量状态失败: " + e.getMessage());
+        }
+    }
+    
+    // 运行中调整对局容量限制（未提供的字段保持不变），立即生效
+    @PutMapping("/capacity")
+    public ApiResponse<?> updateCapacity(@RequestHeader(name = "Authorization", required = false) String authHeader,
+                                         @RequestBody UpdateCapacityRequest req) {
+        try {
+            User admin = requireAdmin(authHeader);
+            // 先校验整个请求（阈值与当前值合并后校验），全部合法再应用，不会只改了一部分
+            requirePositive(req.getMaxActiveGames(), "最大活跃对局数必须大于 0");
+            requirePositive(req.getMaxMemoryMb(), "对局内存上限必须大于 0");
+            requirePositive(req.getExpireHours(), "过期时间必须大于 0");
+            requirePositive(req.getMaxQueuedCommands(), "指令排队上限必须大于 0");
+            requirePositive(req.getRetryAfterSeconds(), "重试间隔必须大于 0");
+            int spill = req.getSpillHeapPercent() != null ? req.getSpillHeapPercent() : pressureMonitor.getSpillPercent();
+            int shrink = req.getShrinkHeapPercent() != null ? req.getShrinkHeapPercent() : pressureMonitor.getShrinkPercent();
+            int shed = req.getMaxHeapPercent() != null ? req.getMaxHeapPercent() : pressureMonitor.getShedPercent();
+            MemoryPressureMonitor.checkThresholds(spill, shrink, shed);
+            
+            if (req.getMaxActiveGames() != null) gameStateManager.setMaxActiveGames(req.getMaxActiveGames());
+            if (req.getMaxMemoryMb() != null) gameStateManager.setMaxMemoryMb(req.getMaxMemoryMb());
+            if (req.getExpireHours() != null) gameStateManager.setExpireHours(req.getExpireHours());
+            pressureMonitor.setThresholds(spill, shrink, shed);
+            if (req.getMaxQueuedCommands() != null) admissionService.setMaxQueuedCommands(req.getMaxQueuedCommands());
+            if (req.getRetryAfterSeconds() != null) admissionService.setRetryAfterSeconds(req.getRetryAfterSeconds());
+            Map<String, Object> status = admissionService.getStatus();
+            audit(admin, "update_capacity", "Capacity", null, String.valueOf(status.get("limits")));
+            return ApiResponse.ok("更新成功", status);
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        } catch (Exception e) {
+            return ApiResponse.error("更新容量限制失败: " + e.getMessage());
+        }
+    }
+
+    private static void requirePositive(Number value, String message) {
+        if (value != null && value.longValue() <= 0) throw new IllegalArgumentException(message);
+    }
 
     // 管理员查询房间列表
     @GetMapping("/rooms")
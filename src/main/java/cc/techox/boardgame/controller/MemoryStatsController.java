@@ -2,8 +2,10 @@ package cc.techox.boardgame.controller;
 
 import cc.techox.boardgame.common.ApiResponse;
 import cc.techox.boardgame.memory.GameStateManager;
+import cc.techox.boardgame.memory.MemoryPressureMonitor;
 import cc.techox.boardgame.service.AuthService;
 import cc.techox.boardgame.util.AuthUtil;
+import cc.techox.boardgame.websocket.GameEventBroadcaster;
 import cc.techox.boardgame.websocket.WebSocketSessionManager;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,13 +22,19 @@ public class MemoryStatsController {
     
     private final GameStateManager gameStateManager;
     private final WebSocketSessionManager webSocketSessionManager;
+    private final MemoryPressureMonitor pressureMonitor;
+    private final GameEventBroadcaster eventBroadcaster;
     private final AuthService authService;
     
     public MemoryStatsController(GameStateManager gameStateManager,
                                 WebSocketSessionManager webSocketSessionManager,
+                                MemoryPressureMonitor pressureMonitor,
+                                GameEventBroadcaster eventBroadcaster,
                                 AuthService authService) {
         this.gameStateManager = gameStateManager;
         this.webSocketSessionManager = webSocketSessionManager;
+        this.pressureMonitor = pressureMonitor;
+        this.eventBroadcaster = eventBroadcaster;
         this.authService = authService;
     }
     
@@ -47,6 +55,8 @@ public class MemoryStatsController {
             // WebSocket 连接统计
             Map<String, Object> wsStats = new HashMap<>();
             wsStats.put("onlineUsers", webSocketSessionManager.getOnlineUserCount());
+            wsStats.put("outbound", webSocketSessionManager.getOutboundStats(10));
+            wsStats.put("roomUpdates", eventBroadcaster.getRoomUpdateStats());
             stats.put("webSocket", wsStats);
             
             // JVM 内存统计
@@ -58,6 +68,7 @@ public class MemoryStatsController {
             jvmStats.put("maxMemory", runtime.maxMemory());
             jvmStats.put("availableProcessors", runtime.availableProcessors());
             stats.put("jvm", jvmStats);
+            stats.put("pressure", pressureMonitor.getStats());
             
             return ApiResponse.ok("ok", stats);
         } catch (IllegalArgumentException e) {
@@ -89,33 +100,74 @@ public class MemoryStatsController {
     }
     
     /**
-     * 强制垃圾回收（仅用于调试）
+     * 占用内存最多的对局
      */
-    @PostMapping("/gc")
-    public ApiResponse<?> forceGarbageCollection(@RequestHeader(name = "Authorization", required = false) String authHeader) {
+    @GetMapping("/matches")
+    public ApiResponse<?> getLargestMatches(@RequestHeader(name = "Authorization", required = false) String authHeader,
+                                            @RequestParam(value = "limit", defaultValue = "20") int limit) {
         try {
             AuthUtil.requireAdmin(authHeader, authService);
-            
-            Runtime runtime = Runtime.getRuntime();
-            long beforeGC = runtime.totalMemory() - runtime.freeMemory();
-            
-            System.gc();
-            Thread.sleep(100); // 等待GC完成
-            
-            long afterGC = runtime.totalMemory() - runtime.freeMemory();
-            long freedMemory = beforeGC - afterGC;
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("memoryBeforeGC", beforeGC);
-            result.put("memoryAfterGC", afterGC);
-            result.put("freedMemory", freedMemory);
-            result.put("message", "垃圾回收已执行");
-            
-            return ApiResponse.ok("ok", result);
+            if (limit <= 0 || limit > 1000) {
+                throw new IllegalArgumentException("limit 取值范围为 1-1000");
+            }
+            return ApiResponse.ok("ok", gameStateManager.getLargestMatches(limit));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        } catch (Exception e) {
+            return ApiResponse.error("获取对局内存列表失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 单局内存明细
+     */
+    @GetMapping("/matches/{matchId}")
+    public ApiResponse<?> getMatchMemory(@RequestHeader(name = "Authorization", required = false) String authHeader,
+                                         @PathVariable Long matchId) {
+        try {
+            AuthUtil.requireAdmin(authHeader, authService);
+            return gameStateManager.getMatchMemory(matchId)
+                    .<ApiResponse<?>>map(detail -> ApiResponse.ok("ok", detail))
+                    .orElseGet(() -> ApiResponse.error("对局不在内存中: " + matchId));
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        } catch (Exception e) {
+            return ApiResponse.error("获取对局内存明细失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 内存压力状态
+     * 不再提供强制 GC：每次 Full GC 都会让所有在线玩家停顿数百毫秒，内存压力由阈值通知分级处理
+     */
+    @GetMapping("/pressure")
+    public ApiResponse<?> getMemoryPressure(@RequestHeader(name = "Authorization", required = false) String authHeader) {
+        try {
+            AuthUtil.requireAdmin(authHeader, authService);
+            return ApiResponse.ok("ok", pressureMonitor.getStats());
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
+        } catch (Exception e) {
+            return ApiResponse.error("获取内存压力状态失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * WebSocket 出站队列：总积压、因接收过慢被断开的次数，以及积压最多的会话
+     */
+    @GetMapping("/outbound")
+    public ApiResponse<?> getOutboundQueues(@RequestHeader(name = "Authorization", required = false) String authHeader,
+                                            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        try {
+            AuthUtil.requireAdmin(authHeader, authService);
+            if (limit <= 0 || limit > 1000) {
+                throw new IllegalArgumentException("limit 取值范围为 1-1000");
+            }
+            return ApiResponse.ok("ok", webSocketSessionManager.getOutboundStats(limit));
         } catch (IllegalArgumentException e) {
             return ApiResponse.error(e.getMessage());
         } catch (Exception e) {
-            return ApiResponse.error("执行垃圾回收失败: " + e.getMessage());
+            return ApiResponse.error("获取出站队列统计失败: " + e.getMessage());
         }
     }
     
@@ -2,10 +2,13 @@ package cc.techox.boardgame.controller;
 
 import cc.techox.boardgame.common.ApiResponse;
 import cc.techox.boardgame.model.User;
+import cc.techox.boardgame.service.AdmissionRejectedException;
 import cc.techox.boardgame.service.AuthService;
+import cc.techox.boardgame.service.UnoBotService;
 import cc.techox.boardgame.service.UnoService;
 import cc.techox.boardgame.util.AuthUtil;
 import cc.techox.boardgame.websocket.GameEventBroadcaster;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -16,18 +19,24 @@ public class UnoController {
     private final UnoService unoService;
     private final AuthService authService;
     private final GameEventBroadcaster eventBroadcaster;
+    private final UnoBotService botService;
 
-    public UnoController(UnoService unoService, AuthService authService, GameEventBroadcaster eventBroadcaster) {
+    public UnoController(UnoService unoService, AuthService authService, GameEventBroadcaster eventBroadcaster,
+                         UnoBotService botService) {
         this.unoService = unoService;
         this.authService = authService;
         this.eventBroadcaster = eventBroadcaster;
+        this.botService = botService;
     }
 
     /**
      * 开始游戏 - 仅限房主操作
      */
     @PostMapping("/rooms/{roomId}/start")
-    public ApiResponse<?> start(@PathVariable long roomId, @RequestHeader(value = "Authorization", required = false) String auth) {
+    public ApiResponse<?> start(@PathVariable long roomId,
+                                @RequestParam(value = "variant", required = false) String variant,
+                                @RequestHeader(value = "Authorization", required = false) String auth,
+                                HttpServletResponse response) {
         try {
             System.out.println("=== HTTP 开始游戏请求 ===");
             System.out.println("请求路径: POST /api/uno/rooms/" + roomId + "/start");
@@ -35,7 +44,7 @@ public class UnoController {
             User u = AuthUtil.requireAuth(auth, authService);
             System.out.println("认证用户: " + u.getUsername() + " (ID: " + u.getId() + ")");
             
-            Long matchId = unoService.startInRoom(roomId, u);
+            Long matchId = unoService.startInRoom(roomId, u, variant);
             System.out.println("UnoService.startInRoom 执行成功, 返回 matchId: " + matchId);
             
             // 直接调用广播器发布游戏开始事件
@@ -43,8 +52,17 @@ public class UnoController {
             eventBroadcaster.broadcastGameStarted(roomId, matchId);
             System.out.println("游戏开始事件广播完成");
             
+            // 补位机器人开始行动
+            botService.onMatchStarted(matchId);
+            
             System.out.println("=== HTTP 响应成功 ===");
             return ApiResponse.ok("游戏已开始", Map.of("matchId", matchId));
+        } catch (AdmissionRejectedException e) {
+            // 容量不足：告知客户端多久后重试，房间保持等待状态
+            System.err.println("开始游戏被拒绝 (容量不足): " + e.getMessage());
+            response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            return new ApiResponse<>(false, e.getMessage(),
+                    Map.of("reason", e.getReason(), "retryAfterSeconds", e.getRetryAfterSeconds()));
         } catch (IllegalArgumentException e) {
             System.err.println("开始游戏失败 (参数错误): " + e.getMessage());
             return ApiResponse.error(e.getMessage());
@@ -0,0 +1,37 @@
+package cc.techox.boardgame.dto;
+
+public class UpdateCapacityRequest {
+    // 为空的字段保持不变
+    private Integer maxActiveGames;
+    private Long maxMemoryMb;
+    private Long expireHours;
+    private Integer spillHeapPercent;
+    private Integer shrinkHeapPercent;
+    private Integer maxHeapPercent;
+    private Integer maxQueuedCommands;
+    private Integer retryAfterSeconds;
+
+    public Integer getMaxActiveGames() { return maxActiveGames; }
+    public void setMaxActiveGames(Integer maxActiveGames) { this.maxActiveGames = maxActiveGames; }
+
+    public Long getMaxMemoryMb() { return maxMemoryMb; }
+    public void setMaxMemoryMb(Long maxMemoryMb) { this.maxMemoryMb = maxMemoryMb; }
+
+    public Long getExpireHours() { return expireHours; }
+    public void setExpireHours(Long expireHours) { this.expireHours = expireHours; }
+
+    public Integer getSpillHeapPercent() { return spillHeapPercent; }
+    public void setSpillHeapPercent(Integer spillHeapPercent) { this.spillHeapPercent = spillHeapPercent; }
+
+    public Integer getShrinkHeapPercent() { return shrinkHeapPercent; }
+    public void setShrinkHeapPercent(Integer shrinkHeapPercent) { this.shrinkHeapPercent = shrinkHeapPercent; }
+
+    public Integer getMaxHeapPercent() { return maxHeapPercent; }
+    public void setMaxHeapPercent(Integer maxHeapPercent) { this.maxHeapPercent = maxHeapPercent; }
+
+    public Integer getMaxQueuedCommands() { return maxQueuedCommands; }
+    public void setMaxQueuedCommands(Integer maxQueuedCommands) { this.maxQueuedCommands = maxQueuedCommands; }
+
+    public Integer getRetryAfterSeconds() { return retryAfterSeconds; }
+    public void setRetryAfterSeconds(Integer retryAfterSeconds) { this.retryAfterSeconds = retryAfterSeconds; }
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+package cc.techox.boardgame.game.uno;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 不可变的卡牌序列，元素为 {@link UnoCards} 的 kind
+ * 手牌按加入顺序保存；牌堆以末尾元素为堆顶
+ *
+ * 多个版本共享同一个底层数组：每个版本只读取自己 size 以内的元素，
+ * 只有追加到共享数组当前末尾的那个版本才能原地写入，其余情况复制
+ */
+public final class CardArray {
+    private static final CardArray EMPTY = new CardArray(new Buffer(new byte[0], 0), 0);
+
+    /**
+     * 共享的底层数组，top 为已写入的最大长度
+     */
+    private static final class Buffer {
+        final byte[] data;
+        final AtomicInteger top;
+
+        Buffer(byte[] data, int top) {
+            this.data = data;
+            this.top = new AtomicInteger(top);
+        }
+    }
+
+    private final Buffer buffer;
+    private final int size;
+
+    private CardArray(Buffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    public static CardArray empty() { return EMPTY; }
+
+    /**
+     * 创建预留容量的空序列，后续追加不再扩容
+     */
+    public static CardArray withCapacity(int capacity) {
+        return capacity <= 0 ? EMPTY : new CardArray(new Buffer(new byte[capacity], 0), 0);
+    }
+
+    /**
+     * 复制 cards 的前 size 个元素
+     */
+    public static CardArray of(byte[] cards, int size) {
+        return wrap(Arrays.copyOf(cards, size), size);
+    }
+
+    /**
+     * 直接接管 cards 数组（调用方之后不得再修改它）
+     */
+    static CardArray wrap(byte[] cards, int size) {
+        return size == 0 && cards.length == 0 ? EMPTY : new CardArray(new Buffer(cards, size), size);
+    }
+
+    public int size() { return size; }
+
+    /**
+     * 本序列持有的堆内存（字节）：自身、共享缓冲区及其数组，按实际容量计；空序列为共享单例，记 0
+     */
+    long retainedBytes() {
+        if (this == EMPTY) return 0;
+        // CardArray 24 + Buffer 24 + AtomicInteger 16 + byte[] 头 16，按 8 字节对齐
+        return 64 + ((16L + buffer.data.length + 7) & ~7L);
+    }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public int get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        return buffer.data[i];
+    }
+
+    /**
+     * 追加一张牌，返回新版本
+     */
+    public CardArray add(int kind) {
+        byte[] data = buffer.data;
+        if (size < data.length && buffer.top.compareAndSet(size, size + 1)) {
+            data[size] = (byte) kind;
+            return new CardArray(buffer, size + 1);
+        }
+        byte[] grown = Arrays.copyOf(data, Math.max(8, Math.max(size * 2, size + 1)));
+        grown[size] = (byte) kind;
+        return new CardArray(new Buffer(grown, size + 1), size + 1);
+    }
+
+    /**
+     * 第一张指定 kind 的牌的位置，不存在返回 -1
+     */
+    public int indexOf(int kind) {
+        byte[] data = buffer.data;
+        for (int i = 0; i < size; i++) {
+            if (data[i] == kind) return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(int kind) { return indexOf(kind) >= 0; }
+
+    /**
+     * 移除指定位置的牌，返回新版本
+     */
+    public CardArray removeAt(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        if (index == size - 1) return pop();
+        byte[] copy = new byte[Math.max(size, 8)];
+        System.arraycopy(buffer.data, 0, copy, 0, index);
+        System.arraycopy(buffer.data, index + 1, copy, index, size - index - 1);
+        return new CardArray(new Buffer(copy, size - 1), size - 1);
+    }
+
+    // ==================== 牌堆操作（末尾为堆顶） ====================
+
+    public CardArray push(int kind) { return add(kind); }
+
+    /**
+     * 去掉堆顶后的新版本，堆顶用 {@link #peek()} 读取
+     */
+    public CardArray pop() {
+        if (size == 0) throw new IllegalStateException("empty");
+        return new CardArray(buffer, size - 1);
+    }
+
+    /**
+     * 去掉堆顶 count 张后的新版本（不足时清空）
+     */
+    public CardArray pop(int count) {
+        return count <= 0 ? this : new CardArray(buffer, Math.max(0, size - count));
+    }
+
+    /**
+     * 查看堆顶，空时返回 {@link UnoCards#NONE}
+     */
+    public int peek() {
+        return size == 0 ? UnoCards.NONE : buffer.data[size - 1];
+    }
+
+    /**
+     * 查看距堆顶第 depth 张（0 为堆顶），不存在返回 {@link UnoCards#NONE}
+     */
+    public int peek(int depth) {
+        int i = size - 1 - depth;
+        return i < 0 ? UnoCards.NONE : buffer.data[i];
+    }
+
+    /**
+     * 从堆顶起取 count 张（顺序为取出顺序）
+     */
+    public CardArray top(int count) {
+        int n = Math.min(count, size);
+        byte[] taken = new byte[n];
+        for (int i = 0; i < n; i++) taken[i] = buffer.data[size - 1 - i];
+        return wrap(taken, n);
+    }
+
+    /**
+     * 依次追加 other 中的所有牌
+     */
+    public CardArray addAll(CardArray other) {
+        if (other.size == 0) return this;
+        byte[] data = buffer.data;
+        int newSize = size + other.size;
+        if (newSize <= data.length && buffer.top.compareAndSet(size, newSize)) {
+            System.arraycopy(other.buffer.data, 0, data, size, other.size);
+            return new CardArray(buffer, newSize);
+        }
+        byte[] grown = Arrays.copyOf(data, Math.max(8, Math.max(size * 2, newSize)));
+        System.arraycopy(other.buffer.data, 0, grown, size, other.size);
+        return new CardArray(new Buffer(grown, newSize), newSize);
+    }
+
+    /**
+     * 复制当前内容到目标位置
+     */
+    public void copyTo(byte[] dest, int destPos) {
+        System.arraycopy(buffer.data, 0, dest, destPos, size);
+    }
+
+    public byte[] toArray() {
+        return Arrays.copyOf(buffer.data, size);
+    }
+
+    // ==================== 序列化边界 ====================
+
+    public List<String> toCodes() {
+        List<String> codes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) codes.add(UnoCards.code(buffer.data[i]));
+        return codes;
+    }
+
+    public List<Map<String, Object>> toObjects() {
+        List<Map<String, Object>> objects = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) objects.add(UnoCards.toObject(buffer.data[i]));
+        return objects;
+    }
+
+    @Override
+    public String toString() { return toCodes().toString(); }
+}
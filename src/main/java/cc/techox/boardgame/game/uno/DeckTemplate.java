@@ -0,0 +1,66 @@
+package cc.techox.boardgame.game.uno;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的牌组模板（不可变）
+ * 加载 cards.json 时把每种牌面按数量展开成 kind 数组，开局只需复制这个数组再洗牌发牌
+ */
+public final class DeckTemplate {
+    private final byte[] cards;
+
+    private DeckTemplate(byte[] cards) {
+        this.cards = cards;
+    }
+
+    /**
+     * 由 cards.json 的 deck 数据编译模板
+     */
+    public static DeckTemplate fromCardData(List<Map<String, Object>> cardData) {
+        int total = 0;
+        for (Map<String, Object> cardInfo : cardData) {
+            total += ((Number) cardInfo.getOrDefault("count", 1)).intValue();
+        }
+        byte[] cards = new byte[total];
+        int pos = 0;
+        for (Map<String, Object> cardInfo : cardData) {
+            String cardId = (String) cardInfo.get("id");
+            int count = ((Number) cardInfo.getOrDefault("count", 1)).intValue();
+            
+            // 将 JSON 格式的卡牌 ID 转换为内部编码
+            int kind = UnoCards.fromDataId(cardId);
+            if (kind == UnoCards.NONE) {
+                throw new IllegalArgumentException("bad card id:" + cardId);
+            }
+            Arrays.fill(cards, pos, pos + count, (byte) kind);
+            pos += count;
+        }
+        return new DeckTemplate(cards);
+    }
+
+    static DeckTemplate of(CardArray cards) {
+        return new DeckTemplate(cards.toArray());
+    }
+
+    public int size() { return cards.length; }
+
+    /**
+     * 某种牌面在整副牌中的张数
+     */
+    public int count(int kind) {
+        int n = 0;
+        for (byte card : cards) {
+            if (card == kind) n++;
+        }
+        return n;
+    }
+
+    /**
+     * 复制一份可以就地洗牌的牌组
+     */
+    byte[] copyCards() {
+        return cards.clone();
+    }
+}
@@ -0,0 +1,100 @@
+package cc.techox.boardgame.game.uno;
+
+import java.util.Arrays;
+
+/**
+ * 手牌计数索引（不可变）
+ * 按 kind、颜色、类型统计手牌数量，随手牌增减增量更新，
+ * 使可出牌判断只需与 {@link UnoRules} 的合法性位集合求一次交集，而不必遍历整手牌
+ */
+public final class HandIndex {
+    private static final int COLOR_BASE = UnoCards.NUM_KINDS;
+    private static final int TYPE_BASE = COLOR_BASE + UnoCard.Color.values().length;
+    private static final int LENGTH = TYPE_BASE + UnoCard.Type.values().length;
+    private static final int BLACK = UnoCard.Color.BLACK.ordinal();
+
+    static final HandIndex EMPTY = new HandIndex(new short[LENGTH], 0L);
+
+    // [0, 54) 各 kind 数量；[54, 59) 各颜色数量；[59, 74) 各类型数量
+    private final short[] counts;
+    // 手上至少有一张的 kind 位集合，与规则表的位集合求交即得可出的牌
+    private final long present;
+
+    private HandIndex(short[] counts, long present) {
+        this.counts = counts;
+        this.present = present;
+    }
+
+    /**
+     * 本索引持有的堆内存（字节）：对象 24 + short[] 数组；空索引为共享单例，记 0
+     */
+    long retainedBytes() {
+        return this == EMPTY ? 0 : 24 + ((16L + 2L * LENGTH + 7) & ~7L);
+    }
+
+    public static HandIndex of(CardArray hand) {
+        short[] counts = new short[LENGTH];
+        long present = 0;
+        for (int i = 0; i < hand.size(); i++) {
+            increment(counts, hand.get(i), 1);
+            present |= 1L << hand.get(i);
+        }
+        return new HandIndex(counts, present);
+    }
+
+    public HandIndex plus(CardArray cards) {
+        if (cards.isEmpty()) return this;
+        short[] copy = Arrays.copyOf(counts, LENGTH);
+        long bits = present;
+        for (int i = 0; i < cards.size(); i++) {
+            increment(copy, cards.get(i), 1);
+            bits |= 1L << cards.get(i);
+        }
+        return new HandIndex(copy, bits);
+    }
+
+    public HandIndex minus(int kind) {
+        short[] copy = Arrays.copyOf(counts, LENGTH);
+        increment(copy, kind, -1);
+        return new HandIndex(copy, copy[kind] > 0 ? present : present & ~(1L << kind));
+    }
+
+    private static void increment(short[] counts, int kind, int delta) {
+        counts[kind] += delta;
+        counts[COLOR_BASE + UnoCards.color(kind)] += delta;
+        counts[TYPE_BASE + UnoCards.type(kind)] += delta;
+    }
+
+    public int count(int kind) { return counts[kind]; }
+
+    public int colorCount(int color) { return counts[COLOR_BASE + color]; }
+
+    public int typeCount(int type) { return counts[TYPE_BASE + type]; }
+
+    public int wildCount() { return counts[COLOR_BASE + BLACK]; }
+
+    /**
+     * 手牌中是否有 legalMask 内的牌（legalMask 由 {@link UnoRules#legalMask} 查表得到）
+     */
+    public boolean hasPlayable(long legalMask) {
+        return (present & legalMask) != 0;
+    }
+
+    /**
+     * 列出 legalMask 内的手牌（按 kind 顺序，同 kind 多张时重复列出）
+     */
+    public CardArray playable(long legalMask) {
+        long bits = present & legalMask;
+        CardArray result = CardArray.withCapacity(16);
+        while (bits != 0) {
+            result = repeat(result, Long.numberOfTrailingZeros(bits));
+            bits &= bits - 1;
+        }
+        return result;
+    }
+
+    private CardArray repeat(CardArray result, int kind) {
+        for (int n = counts[kind]; n > 0; n--) result = result.add(kind);
+        return result;
+    }
+}
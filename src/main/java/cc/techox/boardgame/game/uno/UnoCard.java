@@ -66,6 +66,8 @@ public class UnoCard {
      * 从卡牌代码创建对象格式
      */
     public static Map<String, Object> codeToObject(String code) {
+        int kind = UnoCards.parse(code);
+        if (kind != UnoCards.NONE) return UnoCards.toObject(kind);
         try {
             UnoCard card = fromCode(code);
             return card.toObject();
@@ -120,6 +122,8 @@ public class UnoCard {
 
     public static UnoCard fromCode(String code) {
         if (code == null) throw new IllegalArgumentException("code null");
+        int kind = UnoCards.parse(code);
+        if (kind != UnoCards.NONE) return UnoCards.card(kind);
         String[] parts = code.split("-");
         if (parts.length != 2) throw new IllegalArgumentException("bad code:" + code);
         Color color = switch (parts[0].toUpperCase(Locale.ROOT)) {
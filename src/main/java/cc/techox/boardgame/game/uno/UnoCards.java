@@ -0,0 +1,174 @@
+package cc.techox.boardgame.game.uno;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * UNO 卡牌的紧凑整数编码
+ * 引擎内部以 0..53 的 kind 表示一种牌面，仅在序列化边界才转换为 "R-5" 等字符串
+ *
+ * 编码规则：有色牌 kind = 颜色序号 * 13 + 类型序号（0-9、SKIP、REVERSE、DRAW2），
+ * 万能牌为 52，+4 万能牌为 53
+ */
+public final class UnoCards {
+    private UnoCards() {}
+
+    public static final int NUM_KINDS = 54;
+    public static final int NUM_COLORS = 4; // 不含 BLACK
+    public static final int TYPES_PER_COLOR = 13;
+    public static final int WILD = 52;
+    public static final int WILD_DRAW4 = 53;
+    public static final int NONE = -1;
+
+    private static final UnoCard.Color[] COLORS = UnoCard.Color.values();
+    private static final UnoCard.Type[] TYPES = UnoCard.Type.values();
+
+    private static final byte[] COLOR_OF = new byte[NUM_KINDS];
+    private static final byte[] TYPE_OF = new byte[NUM_KINDS];
+    private static final String[] CODE_OF = new String[NUM_KINDS];
+    private static final UnoCard[] CARD_OF = new UnoCard[NUM_KINDS];
+    private static final Map<String, Object>[] OBJECT_OF;
+    private static final Map<String, Integer> KIND_BY_CODE = new HashMap<>();
+
+    static {
+        @SuppressWarnings("unchecked")
+        Map<String, Object>[] objects = new Map[NUM_KINDS];
+        for (int k = 0; k < NUM_KINDS; k++) {
+            UnoCard.Color color;
+            UnoCard.Type type;
+            if (k < WILD) {
+                color = COLORS[k / TYPES_PER_COLOR];
+                type = TYPES[k % TYPES_PER_COLOR];
+            } else {
+                color = UnoCard.Color.BLACK;
+                type = k == WILD ? UnoCard.Type.WILD : UnoCard.Type.WILDDRAW4;
+            }
+            UnoCard card = new UnoCard(color, type);
+            COLOR_OF[k] = (byte) color.ordinal();
+            TYPE_OF[k] = (byte) type.ordinal();
+            CARD_OF[k] = card;
+            CODE_OF[k] = card.code();
+            objects[k] = Collections.unmodifiableMap(new LinkedHashMap<>(card.toObject()));
+            KIND_BY_CODE.put(CODE_OF[k], k);
+        }
+        OBJECT_OF = objects;
+    }
+
+    /**
+     * 由颜色与类型计算 kind
+     */
+    public static int kindOf(UnoCard.Color color, UnoCard.Type type) {
+        if (type == UnoCard.Type.WILD) return WILD;
+        if (type == UnoCard.Type.WILDDRAW4) return WILD_DRAW4;
+        if (color == UnoCard.Color.BLACK) return NONE;
+        return color.ordinal() * TYPES_PER_COLOR + type.ordinal();
+    }
+
+    /**
+     * 解析线上卡牌代码（如 "R-5"），未知代码返回 {@link #NONE}
+     */
+    public static int parse(String code) {
+        if (code == null) return NONE;
+        Integer kind = KIND_BY_CODE.get(code);
+        if (kind == null) kind = KIND_BY_CODE.get(code.toUpperCase(Locale.ROOT));
+        return kind != null ? kind : NONE;
+    }
+
+    /**
+     * 将 cards.json 中的卡牌 ID 转换为 kind
+     * 例如：green_reverse -> G-REV
+     */
+    public static int fromDataId(String cardId) {
+        if (cardId == null) return NONE;
+        if ("wild".equals(cardId)) return WILD;
+        if ("wild_draw4".equals(cardId)) return WILD_DRAW4;
+
+        int sep = cardId.indexOf('_');
+        if (sep < 0) return NONE;
+        int color = switch (cardId.substring(0, sep).toLowerCase(Locale.ROOT)) {
+            case "red" -> 0;
+            case "green" -> 1;
+            case "blue" -> 2;
+            case "yellow" -> 3;
+            default -> NONE;
+        };
+        if (color == NONE) return NONE;
+        String value = cardId.substring(sep + 1).toLowerCase(Locale.ROOT);
+        int type = switch (value) {
+            case "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" -> value.charAt(0) - '0';
+            case "skip" -> UnoCard.Type.SKIP.ordinal();
+            case "reverse" -> UnoCard.Type.REVERSE.ordinal();
+            case "draw2" -> UnoCard.Type.DRAW2.ordinal();
+            default -> NONE;
+        };
+        if (type == NONE) return NONE;
+        return color * TYPES_PER_COLOR + type;
+    }
+
+    /** 颜色序号，对应 {@link UnoCard.Color#ordinal()}，万能牌为 BLACK */
+    public static int color(int kind) { return COLOR_OF[kind]; }
+
+    /** 类型序号，对应 {@link UnoCard.Type#ordinal()} */
+    public static int type(int kind) { return TYPE_OF[kind]; }
+
+    public static boolean isWild(int kind) { return kind >= WILD; }
+
+    public static String code(int kind) { return CODE_OF[kind]; }
+
+    public static UnoCard card(int kind) { return CARD_OF[kind]; }
+
+    /**
+     * 返回前端使用的对象格式（共享的只读实例）
+     */
+    public static Map<String, Object> toObject(int kind) { return OBJECT_OF[kind]; }
+
+    /**
+     * {@link #toObject(int)} 的逆运算：对象是某种牌面的标准对象格式时返回其 kind，否则返回 {@link #NONE}
+     */
+    public static int kindOfObject(Object obj) {
+        if (!(obj instanceof Map<?, ?> map) || map.size() != 4) return NONE;
+        Object id = map.get("id");
+        if (!(id instanceof String code)) return NONE;
+        Integer kind = KIND_BY_CODE.get(code);
+        if (kind == null) return NONE;
+        Map<String, Object> standard = OBJECT_OF[kind];
+        return standard == map || standard.equals(map) ? kind : NONE;
+    }
+
+    /**
+     * 将 "R"/"G"/"B"/"Y" 等颜色代码转换为颜色序号，无效返回 {@link #NONE}
+     */
+    public static int parseColor(String colorCode) {
+        if (colorCode == null) return NONE;
+        return switch (colorCode.toUpperCase(Locale.ROOT)) {
+            case "R", "RED" -> 0;
+            case "G", "GREEN" -> 1;
+            case "B", "BLUE" -> 2;
+            case "Y", "YELLOW" -> 3;
+            default -> NONE;
+        };
+    }
+
+    /**
+     * 某一颜色全部有色牌（不含万能牌）的 kind 位掩码，可直接用于 {@link HandIndex#hasPlayable(long)}
+     */
+    public static long colorMask(int color) {
+        return ((1L << TYPES_PER_COLOR) - 1) << (color * TYPES_PER_COLOR);
+    }
+
+    /**
+     * 颜色序号转换为线上颜色代码，{@link #NONE} 返回 null
+     */
+    public static String colorCode(int color) {
+        return switch (color) {
+            case 0 -> "R";
+            case 1 -> "G";
+            case 2 -> "B";
+            case 3 -> "Y";
+            default -> null;
+        };
+    }
+}
@@ -4,110 +4,86 @@ import java.security.SecureRandom;
 import java.util.*;
 
 public class UnoEngine {
-    private static final SecureRandom RND = new SecureRandom();
+    // 只用于生成每局的种子；对局内的洗牌使用 UnoState 自带的随机数状态
+    private static final SecureRandom SEED_SOURCE = new SecureRandom();
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
 
     /**
-     * 使用外部卡牌数据创建新游戏（推荐）
+     * 从安全随机源生成一局的种子
+     */
+    public static long newSeed() {
+        return SEED_SOURCE.nextLong();
+    }
+
+    /**
+     * 使用外部卡牌数据创建新游戏
      */
     public static UnoState createInitialStateWithDeck(List<Long> userIds, List<Map<String, Object>> cardData) {
+        return createInitialStateWithDeck(userIds, cardData, newSeed());
+    }
+
+    /**
+     * 使用指定种子创建新游戏，相同的种子与操作序列总能复现同一局
+     */
+    public static UnoState createInitialStateWithDeck(List<Long> userIds, List<Map<String, Object>> cardData, long seed) {
+        return createInitialState(userIds, DeckTemplate.fromCardData(cardData), seed);
+    }
+
+    /**
+     * 使用预编译的牌组模板创建新游戏（推荐）
+     * 只复制一次模板数组，就地洗牌后直接切出手牌与牌库
+     */
+    public static UnoState createInitialState(List<Long> userIds, DeckTemplate deck, long seed) {
+        return createInitialState(userIds, deck, UnoRules.STANDARD, seed);
+    }
+
+    /**
+     * 使用指定规则变体创建新游戏
+     */
+    public static UnoState createInitialState(List<Long> userIds, DeckTemplate deck, UnoRules rules, long seed) {
         UnoState s = new UnoState();
         for (Long uid : userIds) s.players.add(new UnoState.PlayerState(uid));
-        
-        // 从外部数据构建卡牌
-        List<String> deck = buildDeckFromData(cardData);
-        shuffle(deck);
-        
-        // 发牌 7 张
-        for (int r = 0; r < 7; r++) {
-            for (UnoState.PlayerState p : s.players) {
-                p.hand.add(deck.remove(deck.size()-1));
-            }
-        }
-        
-        // 翻第一张（避免万能牌）
-        String first;
-        do { 
-            first = deck.remove(deck.size()-1); 
-        } while (first.startsWith("wild"));
-        s.discardPile.push(first);
-        
-        // 初始方向与效果
-        UnoCard.Type t = UnoCard.fromCode(first).getType();
-        if (t == UnoCard.Type.REVERSE && s.players.size() > 2) s.direction = -1;
-        if (t == UnoCard.Type.SKIP) s.currentIdx = s.nextIndex(1);
-        if (t == UnoCard.Type.DRAW2) s.pendingDraw += 2;
-        
-        // 剩余入牌堆
-        for (int i = deck.size()-1; i >= 0; i--) s.drawPile.push(deck.get(i));
-        s.started = true;
+        s.rules = rules;
+        s.seed = seed;
+        s.rngState = seed;
+        deal(s, deck.copyCards());
         return s;
     }
 
     /**
-     * 从外部数据构建卡牌列表
+     * 洗牌、发牌并翻开第一张（cards 归本局所有，就地修改）
      */
-    private static List<String> buildDeckFromData(List<Map<String, Object>> cardData) {
-        List<String> deck = new ArrayList<>();
+    private static void deal(UnoState s, byte[] cards) {
+        shuffle(s, cards);
         
-        for (Map<String, Object> cardInfo : cardData) {
-            String cardId = (String) cardInfo.get("id");
-            Integer count = (Integer) cardInfo.getOrDefault("count", 1);
-            
-            // 将 JSON 格式的卡牌 ID 转换为 UnoCard 期望的格式
-            String convertedCardCode = convertCardIdToCode(cardId);
-            
-            // 根据count添加多张相同卡牌
-            for (int i = 0; i < count; i++) {
-                deck.add(convertedCardCode);
-            }
+        // 发牌 7 张：从堆顶（数组末尾）依次切给每位玩家
+        int top = cards.length;
+        for (int i = 0; i < s.players.size(); i++) {
+            top -= 7;
+            CardArray hand = CardArray.wrap(Arrays.copyOfRange(cards, top, top + 7), 7);
+            s.players.set(i, s.players.get(i).withHand(hand));
         }
         
-        return deck;
-    }
-    
-    /**
-     * 将 JSON 中的卡牌 ID 转换为 UnoCard 期望的格式
-     * 例如：green_reverse -> G-REV
-     */
-    private static String convertCardIdToCode(String cardId) {
-        if (cardId == null) return "?-?";
-        
-        // 特殊处理万能牌
-        if ("wild".equals(cardId)) {
-            return "W-WILD";
+        // 翻第一张（避免万能牌，翻到的万能牌放回牌堆底部）
+        int pos = top - 1;
+        while (UnoCards.isWild(cards[pos]) && pos > 0) pos--;
+        int first = cards[pos];
+        int skipped = top - 1 - pos;
+        if (skipped > 0) {
+            byte[] wilds = Arrays.copyOfRange(cards, pos + 1, top);
+            System.arraycopy(cards, 0, cards, skipped, pos);
+            System.arraycopy(wilds, 0, cards, 0, skipped);
         }
-        if ("wild_draw4".equals(cardId)) {
-            return "W-D4";
-        }
-        
-        String[] parts = cardId.split("_");
-        if (parts.length != 2) return cardId; // 如果格式不对，直接返回原值
-        
-        String color = parts[0];
-        String value = parts[1];
+        s.discardPile = CardArray.withCapacity(cards.length).push(first);
         
-        // 转换颜色
-        String colorCode = switch (color.toLowerCase()) {
-            case "red" -> "R";
-            case "green" -> "G";
-            case "blue" -> "B";
-            case "yellow" -> "Y";
-            case "wild" -> "W";
-            default -> "?";
-        };
-        
-        // 转换值
-        String valueCode = switch (value.toLowerCase()) {
-            case "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" -> value;
-            case "skip" -> "SKIP";
-            case "reverse" -> "REV";
-            case "draw2" -> "D2";
-            case "wild" -> "WILD";
-            case "wild_draw4" -> "D4";
-            default -> value.toUpperCase();
-        };
+        // 初始方向与效果
+        if (s.rules.reverses(first) && s.players.size() > 2) s.direction = -1;
+        if (s.rules.skips(first)) s.currentIdx = s.nextIndex(1);
+        s.pendingDraw += s.rules.drawAmount(first);
         
-        return colorCode + "-" + valueCode;
+        // 剩余入牌堆（末尾为堆顶），直接复用数组
+        s.drawPile = CardArray.wrap(cards, top - 1);
+        s.started = true;
     }
 
     /**
@@ -121,183 +97,186 @@ public class UnoEngine {
     public static UnoState newGame(List<Long> userIds) {
         UnoState s = new UnoState();
         for (Long uid : userIds) s.players.add(new UnoState.PlayerState(uid));
-        // 构建一副 UNO 牌
-        List<String> deck = buildDeck();
-        shuffle(deck);
-        // 发牌 7 张
-        for (int r = 0; r < 7; r++) {
-            for (UnoState.PlayerState p : s.players) {
-                p.hand.add(deck.remove(deck.size()-1));
-            }
-        }
-        // 翻第一张
-        String first;
-        do { first = deck.remove(deck.size()-1); } while (first.startsWith("W-"));
-        s.discardPile.push(first);
-        // 初始方向与效果
-        UnoCard.Type t = UnoCard.fromCode(first).getType();
-        if (t == UnoCard.Type.REVERSE && s.players.size() > 2) s.direction = -1;
-        if (t == UnoCard.Type.SKIP) s.currentIdx = s.nextIndex(1);
-        if (t == UnoCard.Type.DRAW2) s.pendingDraw += 2;
-        // 剩余入牌堆
-        for (int i = deck.size()-1; i >= 0; i--) s.drawPile.push(deck.get(i));
-        s.started = true;
+        s.seed = newSeed();
+        s.rngState = s.seed;
+        // 使用标准牌组
+        deal(s, STANDARD_DECK.copyCards());
         return s;
     }
 
+    private static final DeckTemplate STANDARD_DECK = DeckTemplate.of(buildDeckKinds());
+
     public static List<String> buildDeck() {
-        List<String> deck = new ArrayList<>();
+        return buildDeckKinds().toCodes();
+    }
+
+    private static CardArray buildDeckKinds() {
+        CardArray deck = CardArray.withCapacity(108);
         for (UnoCard.Color c : List.of(UnoCard.Color.RED, UnoCard.Color.GREEN, UnoCard.Color.BLUE, UnoCard.Color.YELLOW)) {
-            deck.add(new UnoCard(c, UnoCard.Type.ZERO).code());
+            deck = deck.add(UnoCards.kindOf(c, UnoCard.Type.ZERO));
             for (int k=0;k<2;k++) {
-                deck.add(new UnoCard(c, UnoCard.Type.ONE).code());
-                deck.add(new UnoCard(c, UnoCard.Type.TWO).code());
-                deck.add(new UnoCard(c, UnoCard.Type.THREE).code());
-                deck.add(new UnoCard(c, UnoCard.Type.FOUR).code());
-                deck.add(new UnoCard(c, UnoCard.Type.FIVE).code());
-                deck.add(new UnoCard(c, UnoCard.Type.SIX).code());
-                deck.add(new UnoCard(c, UnoCard.Type.SEVEN).code());
-                deck.add(new UnoCard(c, UnoCard.Type.EIGHT).code());
-                deck.add(new UnoCard(c, UnoCard.Type.NINE).code());
-                deck.add(new UnoCard(c, UnoCard.Type.SKIP).code());
-                deck.add(new UnoCard(c, UnoCard.Type.REVERSE).code());
-                deck.add(new UnoCard(c, UnoCard.Type.DRAW2).code());
+                for (UnoCard.Type t : UnoCard.Type.values()) {
+                    if (t == UnoCard.Type.ZERO || t == UnoCard.Type.WILD || t == UnoCard.Type.WILDDRAW4) continue;
+                    deck = deck.add(UnoCards.kindOf(c, t));
+                }
             }
         }
-        for (int k=0;k<4;k++) deck.add(new UnoCard(UnoCard.Color.BLACK, UnoCard.Type.WILD).code());
-        for (int k=0;k<4;k++) deck.add(new UnoCard(UnoCard.Color.BLACK, UnoCard.Type.WILDDRAW4).code());
+        for (int k=0;k<4;k++) deck = deck.add(UnoCards.WILD);
+        for (int k=0;k<4;k++) deck = deck.add(UnoCards.WILD_DRAW4);
         return deck;
     }
 
-    private static void shuffle(List<String> deck) {
-        for (int i=deck.size()-1;i>0;i--) {
-            int j = RND.nextInt(i+1);
-            String tmp = deck.get(i);
-            deck.set(i, deck.get(j));
-            deck.set(j, tmp);
+    private static CardArray shuffle(UnoState s, CardArray deck) {
+        byte[] cards = deck.toArray();
+        shuffle(s, cards);
+        return CardArray.wrap(cards, cards.length);
+    }
+
+    /**
+     * 用对局自己的随机数状态就地洗牌（Fisher-Yates），并推进该状态
+     */
+    private static void shuffle(UnoState s, byte[] cards) {
+        for (int i=cards.length-1;i>0;i--) {
+            int j = nextInt(s, i+1);
+            byte tmp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = tmp;
         }
     }
 
+    /**
+     * SplitMix64：状态只是一个 long，随 UnoState 一起复制，不同对局之间没有共享
+     */
+    private static int nextInt(UnoState s, int bound) {
+        long z = (s.rngState += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+
     public static boolean canPlay(UnoState s, String cardCode) {
-        UnoCard card = UnoCard.fromCode(cardCode);
-        UnoCard top = UnoCard.fromCode(s.discardPile.peek());
-        
-        // 如果有待摸牌惩罚，只能出相同的惩罚牌或摸牌
-        if (s.pendingDraw > 0) {
-            // 只能出Draw2叠加Draw2，或WildDraw4叠加任何惩罚牌
-            if (card.getType() == UnoCard.Type.DRAW2 && top.getType() == UnoCard.Type.DRAW2) {
-                return true;
-            }
-            if (card.getType() == UnoCard.Type.WILDDRAW4) {
-                return true;
-            }
-            return false; // 其他情况必须摸牌
-        }
-        
-        // 万能牌总是可以出
-        if (card.getType() == UnoCard.Type.WILD || card.getType() == UnoCard.Type.WILDDRAW4) return true;
-        
-        // 检查强制颜色
-        if (s.forcedColor != null && card.getColor() != UnoCard.Color.BLACK) {
-            return switch (s.forcedColor) {
-                case "R" -> card.getColor() == UnoCard.Color.RED;
-                case "G" -> card.getColor() == UnoCard.Color.GREEN;
-                case "B" -> card.getColor() == UnoCard.Color.BLUE;
-                case "Y" -> card.getColor() == UnoCard.Color.YELLOW;
-                default -> false;
-            };
-        }
-        
-        // 正常匹配规则：颜色相同或类型相同
-        return card.getColor() == top.getColor() || card.getType() == top.getType();
+        int card = UnoCards.parse(cardCode);
+        if (card == UnoCards.NONE) throw new IllegalArgumentException("bad code:" + cardCode);
+        return canPlay(s, card);
+    }
+
+    /**
+     * 查规则变体的合法性表：（顶牌或指定颜色, 候选牌, 是否有累积惩罚）
+     */
+    static boolean canPlay(UnoState s, int card) {
+        return s.rules.isLegal(s, card);
     }
 
     public static void play(UnoState s, long userId, String cardCode, String chooseColor) {
+        play(s, userId, UnoCards.parse(cardCode), normalizeColor(chooseColor));
+    }
+
+    /**
+     * 出牌（内部编码版本）
+     * @param card UnoCards kind
+     * @param chooseColor 颜色序号，仅万能牌使用
+     */
+    public static void play(UnoState s, long userId, int card, int chooseColor) {
         if (s.finished) throw new IllegalStateException("game finished");
+        UnoRules rules = s.rules;
+        int playerIdx = s.currentIdx;
         UnoState.PlayerState p = s.currentPlayer();
-        if (p.userId != userId) throw new IllegalArgumentException("not your turn");
-        if (!p.hand.remove(cardCode)) throw new IllegalArgumentException("no such card in hand");
-        if (!canPlay(s, cardCode)) throw new IllegalArgumentException("cannot play");
-        
-        s.discardPile.push(cardCode);
-        UnoCard card = UnoCard.fromCode(cardCode);
-        s.forcedColor = null;
-        
-        // 处理特殊牌效果
-        switch (card.getType()) {
-            case REVERSE -> {
-                s.direction = -s.direction;
-                // 在2人游戏中，Reverse相当于Skip
-                if (s.players.size() == 2) {
-                    // 等同于跳过对手，当前玩家再次行动
-                    s.currentIdx = s.nextIndex(2);
-                }
-            }
-            case SKIP -> {
-                // Skip直接跳过下一个玩家
-                s.currentIdx = s.nextIndex(2);
-            }
-            case DRAW2 -> {
-                s.pendingDraw += 2;
-                // 如果下一个玩家没有Draw2或WildDraw4，他们必须摸牌并跳过
-                s.currentIdx = s.nextIndex(1);
-            }
-            case WILD -> {
-                s.forcedColor = normalizeColor(chooseColor);
-                // 万能牌不跳过，正常推进到下一位
-                s.currentIdx = s.nextIndex(1);
-            }
-            case WILDDRAW4 -> {
-                s.pendingDraw += 4;
-                s.forcedColor = normalizeColor(chooseColor);
-                // 下一个玩家必须摸牌并跳过（除非他们也有WildDraw4）
-                s.currentIdx = s.nextIndex(1);
-            }
-            default -> {
-                // 普通牌，正常推进到下一个玩家
-                s.currentIdx = s.nextIndex(1);
-            }
-        }
+        if (p.userId != userId) {
+            // 抢出：打出与顶牌完全相同的牌，轮转从抢出者继续
+            int jumper = s.indexOf(userId);
+            if (jumper < 0 || !rules.canJumpIn(s, card)) throw new IllegalArgumentException("not your turn");
+            playerIdx = jumper;
+            s.currentIdx = jumper;
+            p = s.players.get(jumper);
+        }
+        int pos = card == UnoCards.NONE ? -1 : p.hand.indexOf(card);
+        if (pos < 0) throw new IllegalArgumentException("no such card in hand");
+        if (!canPlay(s, card)) throw new IllegalArgumentException("cannot play");
+        UnoState.PlayerState after = p.withoutCardAt(pos);
+        
+        s.priorColor = colorInEffect(s);
+        s.discardPile = s.discardPile.push(card);
+        
+        // 处理特殊牌效果：全部来自规则变体的效果表
+        s.forcedColor = rules.choosesColor(card) ? chooseColor : UnoCards.NONE;
+        if (rules.reverses(card)) s.direction = -s.direction;
+        s.pendingDraw += rules.drawAmount(card);
+        s.currentIdx = s.nextIndex(rules.steps(card, s.players.size()));
         
         // 检查是否需要自动调用 UNO（当玩家只剩一张牌时）
-        if (p.hand.size() == 1) {
-            p.hasCalledUno = true;
-        }
+        s.players.set(playerIdx, after);
         
         // 胜利判定
-        if (p.hand.isEmpty()) { 
-            s.finished = true; 
-            s.winnerUserId = p.userId; 
-            return; 
+        if (after.hand.isEmpty()) {
+            s.finished = true;
+            s.winnerUserId = p.userId;
+            return;
         }
         
-        // 注意：回合切换已经在上面的switch中处理了，不需要再次推进
+        if (rules.swapsHands(card)) swapHands(s, playerIdx);
+        if (rules.rotatesHands(card)) rotateHands(s);
+    }
+
+    /**
+     * 7 号交换：与手牌最少的对手交换手牌（同样少时取出牌顺序上最近的一位）
+     */
+    private static void swapHands(UnoState s, int playerIdx) {
+        int n = s.players.size();
+        int target = -1;
+        for (int k = 1; k < n; k++) {
+            int i = ((playerIdx + k * s.direction) % n + n) % n;
+            if (target < 0 || s.players.get(i).hand.size() < s.players.get(target).hand.size()) target = i;
+        }
+        UnoState.PlayerState self = s.players.get(playerIdx);
+        UnoState.PlayerState other = s.players.get(target);
+        s.players.set(playerIdx, self.withHandOf(other));
+        s.players.set(target, other.withHandOf(self));
+    }
+
+    /**
+     * 0 号轮转：所有玩家沿出牌方向把手牌传给下家
+     */
+    private static void rotateHands(UnoState s) {
+        int n = s.players.size();
+        List<UnoState.PlayerState> before = new ArrayList<>(s.players);
+        for (int i = 0; i < n; i++) {
+            int from = ((i - s.direction) % n + n) % n;
+            s.players.set(i, before.get(i).withHandOf(before.get(from)));
+        }
     }
 
     private static void ensureDrawPile(UnoState s) {
         if (s.drawPile.isEmpty()) {
-            String top = s.discardPile.pop();
-            List<String> rest = new ArrayList<>(s.discardPile);
-            s.discardPile.clear();
-            Collections.shuffle(rest, RND);
-            for (String c : rest) s.drawPile.push(c);
-            s.discardPile.push(top);
+            int top = s.discardPile.peek();
+            s.drawPile = shuffle(s, s.discardPile.pop());
+            s.discardPile = CardArray.withCapacity(108).push(top);
         }
     }
 
+    /**
+     * 从牌堆顶部摸最多 count 张牌给指定玩家，返回实际摸到的牌
+     */
+    private static CardArray drawCards(UnoState s, int playerIdx, int count) {
+        CardArray drawn = s.drawPile.top(count);
+        s.drawPile = s.drawPile.pop(drawn.size());
+        s.players.set(playerIdx, s.players.get(playerIdx).withCards(drawn));
+        return drawn;
+    }
+
     public static Map<String, Object> publicView(UnoState s, long viewerId) {
         Map<String, Object> m = new LinkedHashMap<>();
         m.put("currentPlayer", s.currentIdx);
         m.put("direction", s.direction);
         m.put("drawCount", s.pendingDraw);
-        m.put("lastColor", s.forcedColor);
+        m.put("lastColor", UnoCards.colorCode(s.forcedColor));
         
         // 添加牌库数量
         m.put("deckSize", s.drawPile.size());
         
         // 返回顶部卡牌的对象格式
-        if (s.discardPile.peek() != null) {
-            m.put("topCard", UnoCard.codeToObject(s.discardPile.peek()));
+        if (!s.discardPile.isEmpty()) {
+            m.put("topCard", UnoCards.toObject(s.discardPile.peek()));
         } else {
             m.put("topCard", null);
         }
@@ -317,11 +296,7 @@ public class UnoEngine {
             
             // 如果是当前查看者，返回完整手牌对象
             if (p.userId == viewerId) {
-                List<Map<String, Object>> handObjects = new ArrayList<>();
-                for (String cardCode : p.hand) {
-                    handObjects.add(UnoCard.codeToObject(cardCode));
-                }
-                pm.put("hand", handObjects);
+                pm.put("hand", p.hand.toObjects());
             }
             
             players.add(pm);
@@ -334,70 +309,96 @@ public class UnoEngine {
      * 增强版的 publicView，包含用户信息
      */
     public static Map<String, Object> publicViewWithUserInfo(UnoState s, long viewerId, Map<Long, Map<String, Object>> userInfoMap) {
-        Map<String, Object> m = new LinkedHashMap<>();
-        m.put("currentPlayer", s.currentIdx);
-        m.put("direction", s.direction);
-        m.put("drawCount", s.pendingDraw);
-        m.put("lastColor", s.forcedColor);
-        
-        // 添加牌库数量
-        m.put("deckSize", s.drawPile.size());
-        
-        // 返回顶部卡牌的对象格式
-        if (s.discardPile.peek() != null) {
-            m.put("topCard", UnoCard.codeToObject(s.discardPile.peek()));
-        } else {
-            m.put("topCard", null);
-        }
-        
-        m.put("started", s.started);
-        m.put("finished", s.finished);
-        m.put("winnerUserId", s.winnerUserId);
+        return sharedView(s, userInfoMap).forViewer(viewerId);
+    }
+
+    /**
+     * 构建一次所有人都能看到的部分，之后每名观看者只附加自己的手牌与可出牌提示
+     */
+    public static SharedView sharedView(UnoState s, Map<Long, Map<String, Object>> userInfoMap) {
+        return new SharedView(s, userInfoMap);
+    }
+
+    /**
+     * 同一状态的公共视图；各观看者的视图共享其中的公共对象，只复制顶层与玩家列表
+     */
+    public static class SharedView {
+        private final UnoState state;
+        private final Map<String, Object> common = new LinkedHashMap<>();
+        private final List<Map<String, Object>> players = new ArrayList<>();
+        
+        private SharedView(UnoState s, Map<Long, Map<String, Object>> userInfoMap) {
+            this.state = s;
+            common.put("currentPlayer", s.currentIdx);
+            common.put("direction", s.direction);
+            common.put("drawCount", s.pendingDraw);
+            common.put("lastColor", UnoCards.colorCode(s.forcedColor));
+        
+            // 添加牌库数量
+            common.put("deckSize", s.drawPile.size());
+        
+            // 返回顶部卡牌的对象格式
+            if (!s.discardPile.isEmpty()) {
+                common.put("topCard", UnoCards.toObject(s.discardPile.peek()));
+            } else {
+                common.put("topCard", null);
+            }
         
-        // 添加当前玩家的游戏状态信息
-        UnoState.PlayerState currentPlayerState = s.currentPlayer();
-        if (currentPlayerState.userId == viewerId) {
-            m.put("mustDraw", mustDraw(s, viewerId));
-            m.put("playableCards", getPlayableCards(s, viewerId).stream()
-                .map(UnoCard::codeToObject)
-                .collect(java.util.stream.Collectors.toList()));
-        }
+            common.put("started", s.started);
+            common.put("finished", s.finished);
+            common.put("winnerUserId", s.winnerUserId);
         
-        List<Map<String,Object>> players = new ArrayList<>();
-        for (int i=0;i<s.players.size();i++) {
-            UnoState.PlayerState p = s.players.get(i);
-            Map<String,Object> pm = new LinkedHashMap<>();
-            pm.put("userId", p.userId);
+            for (int i=0;i<s.players.size();i++) {
+                UnoState.PlayerState p = s.players.get(i);
+                Map<String,Object> pm = new LinkedHashMap<>();
+                pm.put("userId", p.userId);
             
-            // 添加用户信息
-            Map<String, Object> userInfo = userInfoMap.get(p.userId);
-            if (userInfo != null) {
-                pm.put("username", userInfo.get("username"));
-                pm.put("displayName", userInfo.get("displayName"));
-            } else {
-                pm.put("username", "unknown");
-                pm.put("displayName", "未知用户");
+                // 添加用户信息
+                Map<String, Object> userInfo = userInfoMap.get(p.userId);
+                if (userInfo != null) {
+                    pm.put("username", userInfo.get("username"));
+                    pm.put("displayName", userInfo.get("displayName"));
+                } else {
+                    pm.put("username", "unknown");
+                    pm.put("displayName", "未知用户");
+                }
+            
+                pm.put("handSize", p.hand.size());
+                pm.put("position", i);
+                pm.put("isReady", false); // 游戏中不需要准备状态
+                pm.put("hasCalledUno", p.hasCalledUno);
+                pm.put("isCurrentPlayer", i == s.currentIdx);
+                players.add(pm);
             }
+        }
             
-            pm.put("handSize", p.hand.size());
-            pm.put("position", i);
-            pm.put("isReady", false); // 游戏中不需要准备状态
-            pm.put("hasCalledUno", p.hasCalledUno);
-            pm.put("isCurrentPlayer", i == s.currentIdx);
+        /**
+         * 某一观看者的视图，内容与字段顺序与逐人构建时相同
+         */
+        public Map<String, Object> forViewer(long viewerId) {
+            Map<String, Object> m = new LinkedHashMap<>(common);
             
-            // 如果是当前查看者，返回完整手牌对象
-            if (p.userId == viewerId) {
-                List<Map<String, Object>> handObjects = new ArrayList<>();
-                for (String cardCode : p.hand) {
-                    handObjects.add(UnoCard.codeToObject(cardCode));
-                }
-                pm.put("hand", handObjects);
+            // 添加当前玩家的游戏状态信息
+            if (state.currentPlayer().userId == viewerId) {
+                m.put("mustDraw", mustDraw(state, viewerId));
+                m.put("playableCards", playableKinds(state, viewerId).toObjects());
             }
             
-            players.add(pm);
+            List<Map<String,Object>> viewerPlayers = players;
+            for (int i=0;i<state.players.size();i++) {
+                UnoState.PlayerState p = state.players.get(i);
+                // 如果是当前查看者，返回完整手牌对象
+                if (p.userId == viewerId) {
+                    Map<String,Object> own = new LinkedHashMap<>(players.get(i));
+                    own.put("hand", p.hand.toObjects());
+                    viewerPlayers = new ArrayList<>(players);
+                    viewerPlayers.set(i, own);
+                    break;
+                }
+            }
+            m.put("players", viewerPlayers);
+            return m;
         }
-        m.put("players", players);
-        return m;
     }
 
     /**
@@ -406,14 +407,14 @@ public class UnoEngine {
     public static boolean isGameFinished(UnoState state) {
         return state.finished;
     }
-    
+
     /**
      * 获取获胜者ID
      */
     public static Long getWinner(UnoState state) {
         return state.winnerUserId;
     }
-    
+
     /**
      * 出牌方法（使用新的状态对象）
      */
@@ -423,7 +424,16 @@ public class UnoEngine {
         play(state, userId, cardCode, chooseColor);
         return state;
     }
-    
+
+    /**
+     * 出牌方法（内部编码版本，供模拟器与机器人使用）
+     */
+    public static UnoState playCard(UnoState originalState, long userId, int card, int chooseColor) {
+        UnoState state = copyState(originalState);
+        play(state, userId, card, chooseColor);
+        return state;
+    }
+
     /**
      * 检查玩家是否必须摸牌（因为有待摸牌惩罚且没有合法牌可出）
      */
@@ -433,33 +443,25 @@ public class UnoEngine {
         UnoState.PlayerState p = s.currentPlayer();
         if (p.userId != userId) return false;
         
-        // 检查手牌中是否有可以叠加的惩罚牌
-        for (String cardCode : p.hand) {
-            if (canPlay(s, cardCode)) {
-                return false; // 有牌可出，不需要强制摸牌
-            }
-        }
-        
-        return true; // 没有合法牌，必须摸牌
+        // 查手牌索引：有可以叠加的惩罚牌则不需要强制摸牌
+        return !p.index.hasPlayable(s.rules.legalMask(s));
     }
-    
+
     /**
      * 获取玩家手牌中可以出的牌
      */
     public static List<String> getPlayableCards(UnoState s, long userId) {
+        return playableKinds(s, userId).toCodes();
+    }
+
+    public static CardArray playableKinds(UnoState s, long userId) {
         UnoState.PlayerState p = s.currentPlayer();
-        if (p.userId != userId) return new ArrayList<>();
+        if (p.userId != userId) return CardArray.empty();
         
-        List<String> playableCards = new ArrayList<>();
-        for (String cardCode : p.hand) {
-            if (canPlay(s, cardCode)) {
-                playableCards.add(cardCode);
-            }
-        }
-        
-        return playableCards;
+        // 规则表给出合法牌的位集合，与手牌索引求交集即可，不遍历手牌
+        return p.index.playable(s.rules.legalMask(s));
     }
-    
+
     /**
      * UNO 调用方法
      */
@@ -469,24 +471,18 @@ public class UnoEngine {
         if (state.finished) throw new IllegalStateException("game finished");
         
         // 找到调用 UNO 的玩家
-        UnoState.PlayerState player = null;
-        for (UnoState.PlayerState p : state.players) {
-            if (p.userId == userId) {
-                player = p;
-                break;
-            }
-        }
-        
-        if (player == null) {
+        int playerIdx = state.indexOf(userId);
+        if (playerIdx < 0) {
             throw new IllegalArgumentException("player not found");
         }
+        UnoState.PlayerState player = state.players.get(playerIdx);
         
         // 只有当玩家手牌数为1时才能调用 UNO
         if (player.hand.size() != 1) {
             throw new IllegalArgumentException("can only call UNO with exactly 1 card");
         }
         
-        player.hasCalledUno = true;
+        state.players.set(playerIdx, player.withCalledUno(true));
         return state;
     }
 
@@ -501,7 +497,7 @@ public class UnoEngine {
         public final int penaltyCards;
         public final String reason;
         
-        public ChallengeResult(UnoState newState, boolean challengeSuccessful, long challengerId, 
+        public ChallengeResult(UnoState newState, boolean challengeSuccessful, long challengerId,
                              long challengedPlayerId, int penaltyCards, String reason) {
             this.newState = newState;
             this.challengeSuccessful = challengeSuccessful;
@@ -538,15 +534,8 @@ public class UnoEngine {
         if (state.finished) throw new IllegalStateException("game finished");
         
         // 找到质疑者
-        UnoState.PlayerState challenger = null;
-        for (UnoState.PlayerState p : state.players) {
-            if (p.userId == challengerId) {
-                challenger = p;
-                break;
-            }
-        }
-        
-        if (challenger == null) {
+        int challengerIdx = state.indexOf(challengerId);
+        if (challengerIdx < 0) {
             throw new IllegalArgumentException("challenger not found");
         }
         
@@ -555,8 +544,7 @@ public class UnoEngine {
             throw new IllegalArgumentException("no card to challenge");
         }
         
-        String topCard = state.discardPile.peek();
-        if (!topCard.equals("W-D4")) {
+        if (state.discardPile.peek() != UnoCards.WILD_DRAW4) {
             throw new IllegalArgumentException("can only challenge Wild Draw 4 cards");
         }
         
@@ -566,80 +554,35 @@ public class UnoEngine {
         
         // 检查被质疑玩家的手牌中是否有其他可出的牌
         boolean hasOtherPlayableCards = false;
-        String previousCard = null;
-        
-        // 模拟移除 +4 牌后的状态来检查
-        if (state.discardPile.size() > 1) {
-            List<String> discardList = new ArrayList<>(state.discardPile);
-            if (discardList.size() > 1) {
-                previousCard = discardList.get(discardList.size() - 2);
-            }
-        }
         
-        if (previousCard != null) {
-            // 检查被质疑玩家是否有其他可出的牌
-            for (String cardCode : challengedPlayer.hand) {
-                if (canPlayAgainstCard(cardCode, previousCard, state.forcedColor)) {
-                    hasOtherPlayableCards = true;
-                    break;
-                }
-            }
+        // 按 +4 打出前生效的颜色判断：手中有该颜色的牌即为违规（forcedColor 已是 +4 选定的新颜色，不能用）
+        if (state.priorColor != UnoCards.NONE) {
+            hasOtherPlayableCards = challengedPlayer.index.hasPlayable(UnoCards.colorMask(state.priorColor));
         }
         
         ensureDrawPile(state);
         
         if (hasOtherPlayableCards) {
             // 质疑成功：被质疑玩家违规出牌，罚摸4张牌
-            for (int i = 0; i < 4 && !state.drawPile.isEmpty(); i++) {
-                challengedPlayer.hand.add(state.drawPile.pop());
-            }
+            drawCards(state, challengedPlayerIdx, 4);
             
             // 清除待摸牌惩罚（质疑者不需要摸牌）
             state.pendingDraw = 0;
             
-            return new ChallengeResult(state, true, challengerId, challengedPlayer.userId, 4, 
+            return new ChallengeResult(state, true, challengerId, challengedPlayer.userId, 4,
                 "质疑成功：被质疑玩家有其他可出的牌却出了+4");
         } else {
             // 质疑失败：质疑者罚摸6张牌（原本4张+惩罚2张）
-            for (int i = 0; i < 6 && !state.drawPile.isEmpty(); i++) {
-                challenger.hand.add(state.drawPile.pop());
-            }
+            drawCards(state, challengerIdx, 6);
             
             // 清除待摸牌惩罚
             state.pendingDraw = 0;
             
-            return new ChallengeResult(state, false, challengerId, challengedPlayer.userId, 6, 
+            return new ChallengeResult(state, false, challengerId, challengedPlayer.userId, 6,
                 "质疑失败：被质疑玩家合法出牌");
         }
     }
 
-    /**
-     * 检查卡牌是否可以对指定卡牌出牌
-     */
-    private static boolean canPlayAgainstCard(String cardCode, String targetCard, String forcedColor) {
-        UnoCard card = UnoCard.fromCode(cardCode);
-        UnoCard target = UnoCard.fromCode(targetCard);
-        
-        // 万能牌总是可以出
-        if (card.getType() == UnoCard.Type.WILD || card.getType() == UnoCard.Type.WILDDRAW4) {
-            return true;
-        }
-        
-        // 检查强制颜色
-        if (forcedColor != null && card.getColor() != UnoCard.Color.BLACK) {
-            return switch (forcedColor) {
-                case "red", "R" -> card.getColor() == UnoCard.Color.RED;
-                case "green", "G" -> card.getColor() == UnoCard.Color.GREEN;
-                case "blue", "B" -> card.getColor() == UnoCard.Color.BLUE;
-                case "yellow", "Y" -> card.getColor() == UnoCard.Color.YELLOW;
-                default -> false;
-            };
-        }
-        
-        // 颜色或数字/类型匹配
-        return card.getColor() == target.getColor() || card.getType() == target.getType();
-    }
-
     /**
      * 惩罚忘记喊 UNO 的玩家
      */
@@ -649,17 +592,11 @@ public class UnoEngine {
         if (state.finished) throw new IllegalStateException("game finished");
         
         // 找到被惩罚的玩家
-        UnoState.PlayerState penalizedPlayer = null;
-        for (UnoState.PlayerState p : state.players) {
-            if (p.userId == penalizedPlayerId) {
-                penalizedPlayer = p;
-                break;
-            }
-        }
-        
-        if (penalizedPlayer == null) {
+        int penalizedIdx = state.indexOf(penalizedPlayerId);
+        if (penalizedIdx < 0) {
             throw new IllegalArgumentException("penalized player not found");
         }
+        UnoState.PlayerState penalizedPlayer = state.players.get(penalizedIdx);
         
         // 检查玩家是否确实忘记喊 UNO（手牌数为1且未调用UNO）
         if (penalizedPlayer.hand.size() != 1 || penalizedPlayer.hasCalledUno) {
@@ -669,9 +606,7 @@ public class UnoEngine {
         ensureDrawPile(state);
         
         // 罚摸2张牌
-        for (int i = 0; i < 2 && !state.drawPile.isEmpty(); i++) {
-            penalizedPlayer.hand.add(state.drawPile.pop());
-        }
+        drawCards(state, penalizedIdx, 2);
         
         return new UnoPenaltyResult(state, penalizedPlayerId, 2, "忘记喊 UNO");
     }
@@ -681,10 +616,10 @@ public class UnoEngine {
      */
     public static class DrawResult {
         public final UnoState newState;
-        public final List<String> drawnCards;
+        public final CardArray drawnCards;
         public final int drawCount;
         
-        public DrawResult(UnoState newState, List<String> drawnCards, int drawCount) {
+        public DrawResult(UnoState newState, CardArray drawnCards, int drawCount) {
             this.newState = newState;
             this.drawnCards = drawnCards;
             this.drawCount = drawCount;
@@ -706,22 +641,13 @@ public class UnoEngine {
         
         // 确定摸牌数量
         int drawCount = Math.max(1, state.pendingDraw);
-        List<String> drawnCards = new ArrayList<>();
         
-        // 摸牌
-        for (int i = 0; i < drawCount; i++) {
-            if (state.drawPile.isEmpty()) {
-                // 如果牌库空了但还需要摸牌，游戏结束（平局）
-                break;
-            }
-            String drawnCard = state.drawPile.pop();
-            p.hand.add(drawnCard);
-            drawnCards.add(drawnCard);
-        }
+        // 摸牌（牌库不足时只摸剩余的牌）
+        CardArray drawnCards = drawCards(state, state.currentIdx, drawCount);
         
         // 清除待摸牌惩罚和强制颜色
         state.pendingDraw = 0;
-        state.forcedColor = null;
+        state.forcedColor = UnoCards.NONE;
         
         // 推进到下一个玩家
         state.currentIdx = state.nextIndex(1);
@@ -745,63 +671,37 @@ public class UnoEngine {
         // 确定摸牌数量
         int drawCount = Math.max(1, state.pendingDraw);
         
-        // 摸牌
-        for (int i = 0; i < drawCount; i++) {
-            if (state.drawPile.isEmpty()) {
-                // 如果牌库空了但还需要摸牌，游戏结束（平局）
-                break;
-            }
-            p.hand.add(state.drawPile.pop());
-        }
+        // 摸牌（牌库不足时只摸剩余的牌）
+        drawCards(state, state.currentIdx, drawCount);
         
         // 清除待摸牌惩罚和强制颜色
         state.pendingDraw = 0;
-        state.forcedColor = null;
+        state.forcedColor = UnoCards.NONE;
         
         // 推进到下一个玩家
         state.currentIdx = state.nextIndex(1);
         
         return state;
     }
-    
+
+    /**
+     * 当前生效的颜色：顶牌为万能牌时是其选定的颜色，否则是顶牌自身的颜色；没有顶牌或万能牌未选色时为 NONE
+     */
+    static int colorInEffect(UnoState s) {
+        int top = s.discardPile.peek();
+        if (top == UnoCards.NONE) return UnoCards.NONE;
+        return UnoCards.isWild(top) ? s.forcedColor : UnoCards.color(top);
+    }
+
     /**
      * 复制游戏状态
+     * 手牌与牌堆不可变，只需浅复制；修改时替换对应的 PlayerState / CardArray
      */
-    private static UnoState copyState(UnoState original) {
-        UnoState copy = new UnoState();
-        
-        // 复制玩家状态
-        for (UnoState.PlayerState player : original.players) {
-            UnoState.PlayerState playerCopy = new UnoState.PlayerState(player.userId);
-            playerCopy.hand.addAll(player.hand);
-            playerCopy.hasCalledUno = player.hasCalledUno;
-            copy.players.add(playerCopy);
-        }
-        
-        // 复制牌堆
-        copy.drawPile.addAll(original.drawPile);
-        copy.discardPile.addAll(original.discardPile);
-        
-        // 复制游戏状态
-        copy.currentIdx = original.currentIdx;
-        copy.direction = original.direction;
-        copy.pendingDraw = original.pendingDraw;
-        copy.forcedColor = original.forcedColor;
-        copy.started = original.started;
-        copy.finished = original.finished;
-        copy.winnerUserId = original.winnerUserId;
-        
-        return copy;
-    }
-    
-    private static String normalizeColor(String chooseColor) {
-        if (chooseColor == null) return null;
-        return switch (chooseColor.toUpperCase(Locale.ROOT)) {
-            case "R" -> "R";
-            case "G" -> "G";
-            case "B" -> "B";
-            case "Y" -> "Y";
-            default -> null;
-        };
+    static UnoState copyState(UnoState original) {
+        return original.copy();
+    }
+
+    private static int normalizeColor(String chooseColor) {
+        return UnoCards.parseColor(chooseColor);
     }
 }
\ No newline at end of file
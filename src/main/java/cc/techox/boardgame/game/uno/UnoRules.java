@@ -0,0 +1,204 @@
+package cc.techox.boardgame.game.uno;
+
+import java.util.Map;
+
+/**
+ * 编译后的 UNO 规则变体（不可变）
+ * 由 config.yml 的 gameRules 与 cardEffects 一次性编译出出牌合法性表和效果表，
+ * 引擎出牌时只查表，不再按牌型分支；不同房间可以各自持有一个变体，每步开销相同
+ *
+ * 合法性表按（顶牌 kind, 是否有累积惩罚）索引，值是候选牌 kind 的位集合，
+ * 54 种 kind 正好放进一个 long；顶牌被万能牌指定颜色时改用 NUM_KINDS + 颜色序号 这一行
+ */
+public final class UnoRules {
+    public static final String DEFAULT_VARIANT = "default";
+
+    // 与 config.yml 中 gameRules 的默认值一致
+    public static final UnoRules STANDARD = compile(DEFAULT_VARIANT, Map.of(), Map.of());
+
+    private static final int ROWS = UnoCards.NUM_KINDS + UnoCards.NUM_COLORS;
+    private static final long ALL_KINDS = (1L << UnoCards.NUM_KINDS) - 1;
+
+    // 效果标志位
+    private static final byte REVERSE = 1;
+    private static final byte CHOOSE_COLOR = 2;
+    private static final byte SWAP_HANDS = 4;
+    private static final byte ROTATE_HANDS = 8;
+
+    public final String name;
+    public final boolean stackDraw2;
+    public final boolean stackDraw4;
+    public final boolean jumpIn;
+    public final boolean sevenSwap;
+    public final boolean zeroRotate;
+
+    private final long[] legal = new long[ROWS]; // 无惩罚时可压在该行顶牌上的牌
+    private final long[] stacking = new long[UnoCards.NUM_KINDS]; // 有惩罚时可叠加的牌
+    private final long[] jumpIns = new long[UnoCards.NUM_KINDS]; // 非本回合玩家可抢出的牌
+    private final byte[] steps = new byte[UnoCards.NUM_KINDS]; // 出牌后前进几位
+    private final byte[] stepsTwoPlayers = new byte[UnoCards.NUM_KINDS]; // 两人局时前进几位
+    private final byte[] draws = new byte[UnoCards.NUM_KINDS]; // 累加的摸牌惩罚
+    private final byte[] flags = new byte[UnoCards.NUM_KINDS];
+
+    private UnoRules(String name, boolean stackDraw2, boolean stackDraw4,
+                     boolean jumpIn, boolean sevenSwap, boolean zeroRotate) {
+        this.name = name;
+        this.stackDraw2 = stackDraw2;
+        this.stackDraw4 = stackDraw4;
+        this.jumpIn = jumpIn;
+        this.sevenSwap = sevenSwap;
+        this.zeroRotate = zeroRotate;
+    }
+
+    /**
+     * 编译规则变体
+     * @param gameRules config.yml 中的 gameRules（缺省项取标准规则）
+     * @param cardEffects config.yml 中的 cardEffects（缺省项取标准效果）
+     */
+    public static UnoRules compile(String name, Map<String, Object> gameRules, Map<String, Object> cardEffects) {
+        Map<String, Object> draw2 = section(cardEffects, "draw2");
+        Map<String, Object> draw4 = section(cardEffects, "wild_draw4");
+        UnoRules rules = new UnoRules(name,
+                flag(gameRules, "stackDraw2", flag(draw2, "stackable", true)),
+                flag(gameRules, "stackDraw4", flag(draw4, "stackable", false)),
+                flag(gameRules, "jumpIn", false),
+                flag(gameRules, "sevenSwap", false),
+                flag(gameRules, "zeroRotate", false));
+
+        for (int kind = 0; kind < UnoCards.NUM_KINDS; kind++) {
+            rules.steps[kind] = 1;
+            rules.stepsTwoPlayers[kind] = 1;
+        }
+        rules.applyEffect(UnoCard.Type.SKIP, section(cardEffects, "skip"), "skip_next_player");
+        rules.applyEffect(UnoCard.Type.REVERSE, section(cardEffects, "reverse"), "reverse_direction");
+        rules.applyEffect(UnoCard.Type.DRAW2, draw2, "draw_cards");
+        rules.applyEffect(UnoCard.Type.WILD, section(cardEffects, "wild"), "change_color");
+        rules.applyEffect(UnoCard.Type.WILDDRAW4, draw4, "change_color_and_draw");
+        if (rules.sevenSwap) rules.setFlag(UnoCard.Type.SEVEN, SWAP_HANDS);
+        if (rules.zeroRotate) rules.setFlag(UnoCard.Type.ZERO, ROTATE_HANDS);
+
+        for (int top = 0; top < UnoCards.NUM_KINDS; top++) {
+            for (int card = 0; card < UnoCards.NUM_KINDS; card++) {
+                long bit = 1L << card;
+                if (UnoCards.isWild(card)
+                        || UnoCards.color(card) == UnoCards.color(top)
+                        || UnoCards.type(card) == UnoCards.type(top)) {
+                    rules.legal[top] |= bit;
+                }
+                if (rules.canStack(top, card)) rules.stacking[top] |= bit;
+            }
+            if (rules.jumpIn && !UnoCards.isWild(top)) rules.jumpIns[top] = 1L << top;
+        }
+        for (int color = 0; color < UnoCards.NUM_COLORS; color++) {
+            long row = (1L << UnoCards.WILD) | (1L << UnoCards.WILD_DRAW4);
+            for (int t = 0; t < UnoCards.TYPES_PER_COLOR; t++) row |= 1L << (color * UnoCards.TYPES_PER_COLOR + t);
+            rules.legal[UnoCards.NUM_KINDS + color] = row;
+        }
+        return rules;
+    }
+
+    /**
+     * 有累积惩罚时 card 能否叠加在 top 上：
+     * 顶牌所属的惩罚牌允许叠加，且候选牌的惩罚不少于顶牌（不能用 +2 接 +4）
+     */
+    private boolean canStack(int top, int card) {
+        if (draws[top] == 0 || draws[card] < draws[top]) return false;
+        return top == UnoCards.WILD_DRAW4 ? stackDraw4 : stackDraw2;
+    }
+
+    private void applyEffect(UnoCard.Type type, Map<String, Object> config, String defaultEffect) {
+        Object value = config.getOrDefault("effect", defaultEffect);
+        String effect = value != null ? value.toString() : "none";
+        int amount = ((Number) config.getOrDefault("amount", type == UnoCard.Type.WILDDRAW4 ? 4 : 2)).intValue();
+        for (int kind = 0; kind < UnoCards.NUM_KINDS; kind++) {
+            if (UnoCards.type(kind) != type.ordinal()) continue;
+            switch (effect) {
+                case "skip_next_player" -> {
+                    steps[kind] = 2;
+                    stepsTwoPlayers[kind] = 2;
+                }
+                case "reverse_direction" -> {
+                    flags[kind] |= REVERSE;
+                    // 两人局反转等同于跳过对手
+                    stepsTwoPlayers[kind] = 2;
+                }
+                case "draw_cards" -> draws[kind] = (byte) amount;
+                case "change_color" -> flags[kind] |= CHOOSE_COLOR;
+                case "change_color_and_draw" -> {
+                    flags[kind] |= CHOOSE_COLOR;
+                    draws[kind] = (byte) amount;
+                }
+                case "none" -> { }
+                default -> throw new IllegalArgumentException("unknown card effect: " + effect);
+            }
+        }
+    }
+
+    private void setFlag(UnoCard.Type type, byte flag) {
+        for (int c = 0; c < UnoCards.NUM_COLORS; c++) flags[c * UnoCards.TYPES_PER_COLOR + type.ordinal()] |= flag;
+    }
+
+    // ==================== 查表 ====================
+
+    /**
+     * 当前局面下可以打出的牌（kind 位集合）
+     * @param top 顶牌，牌堆为空时为 {@link UnoCards#NONE}
+     * @param forcedColor WILD / D4 指定的颜色，无则为 {@link UnoCards#NONE}
+     * @param pendingDraw 累积的摸牌惩罚
+     */
+    public long legalMask(int top, int forcedColor, int pendingDraw) {
+        if (top == UnoCards.NONE) return ALL_KINDS;
+        if (pendingDraw > 0) return stacking[top];
+        if (forcedColor != UnoCards.NONE) return legal[UnoCards.NUM_KINDS + forcedColor];
+        return legal[top];
+    }
+
+    public long legalMask(UnoState s) {
+        return legalMask(s.discardPile.peek(), s.forcedColor, s.pendingDraw);
+    }
+
+    public boolean isLegal(UnoState s, int card) {
+        return (legalMask(s) >>> card & 1) != 0;
+    }
+
+    /**
+     * 非本回合玩家能否抢出 card（与顶牌完全相同且没有累积惩罚）
+     */
+    public boolean canJumpIn(UnoState s, int card) {
+        int top = s.discardPile.peek();
+        return top != UnoCards.NONE && s.pendingDraw == 0 && (jumpIns[top] >>> card & 1) != 0;
+    }
+
+    /**
+     * 打出 kind 后轮转前进的位数
+     */
+    public int steps(int kind, int playerCount) {
+        return playerCount == 2 ? stepsTwoPlayers[kind] : steps[kind];
+    }
+
+    public boolean skips(int kind) { return steps[kind] > 1; }
+
+    public int drawAmount(int kind) { return draws[kind]; }
+
+    public boolean reverses(int kind) { return (flags[kind] & REVERSE) != 0; }
+
+    public boolean choosesColor(int kind) { return (flags[kind] & CHOOSE_COLOR) != 0; }
+
+    public boolean swapsHands(int kind) { return (flags[kind] & SWAP_HANDS) != 0; }
+
+    public boolean rotatesHands(int kind) { return (flags[kind] & ROTATE_HANDS) != 0; }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> section(Map<String, Object> config, String key) {
+        Object value = config.get(key);
+        return value instanceof Map ? (Map<String, Object>) value : Map.of();
+    }
+
+    private static boolean flag(Map<String, Object> config, String key, boolean defaultValue) {
+        Object value = config.get(key);
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    @Override
+    public String toString() { return name; }
+}
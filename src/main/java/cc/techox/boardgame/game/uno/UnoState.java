@@ -1,29 +1,138 @@
 package cc.techox.boardgame.game.uno;
 
+import cc.techox.boardgame.memory.MemoryFootprint;
+
 import java.util.*;
 
-public class UnoState {
-    public static class PlayerState {
-        public long userId;
-        public List<String> hand = new ArrayList<>(); // UnoCard.code()
-        public boolean hasCalledUno = false; // 是否已调用 UNO
-        public PlayerState() {}
-        public PlayerState(long userId) { this.userId = userId; }
+/**
+ * UNO 对局状态
+ * 手牌与牌堆均为不可变的 {@link CardArray}，PlayerState 也不可变，
+ * 因此 {@link #copy()} 只复制标量字段与玩家列表，未改动的手牌和牌堆在新旧版本间共享
+ */
+public class UnoState implements MemoryFootprint {
+    // UnoState 对象（5 个引用、5 个 int、2 个 boolean、2 个 long）与玩家 ArrayList 的固定开销
+    private static final long STATE_BYTES = 72 + 24;
+    private static final long PLAYER_BYTES = 32; // PlayerState 对象本身
+    private static final long BOXED_LONG_BYTES = 16;
+
+    public static final class PlayerState {
+        public final long userId;
+        public final CardArray hand; // UnoCards kind
+        public final HandIndex index; // 手牌计数索引，与 hand 同步
+        public final boolean hasCalledUno; // 是否已调用 UNO
+        public PlayerState(long userId) { this(userId, CardArray.empty(), HandIndex.EMPTY, false); }
+        public PlayerState(long userId, CardArray hand, boolean hasCalledUno) {
+            this(userId, hand, HandIndex.of(hand), hasCalledUno);
+        }
+        private PlayerState(long userId, CardArray hand, HandIndex index, boolean hasCalledUno) {
+            this.userId = userId;
+            this.hand = hand;
+            this.index = index;
+            this.hasCalledUno = hasCalledUno;
+        }
+        public PlayerState withHand(CardArray hand) { return new PlayerState(userId, hand, hasCalledUno); }
+        public PlayerState withCards(CardArray cards) {
+            return new PlayerState(userId, hand.addAll(cards), index.plus(cards), hasCalledUno);
+        }
+        /**
+         * 打出 pos 位置的牌，只剩一张时自动视为已喊 UNO
+         */
+        public PlayerState withoutCardAt(int pos) {
+            CardArray remaining = hand.removeAt(pos);
+            return new PlayerState(userId, remaining, index.minus(hand.get(pos)), hasCalledUno || remaining.size() == 1);
+        }
+        /**
+         * 换成 other 的手牌（7 号交换、0 号轮转），只剩一张时自动视为已喊 UNO
+         */
+        public PlayerState withHandOf(PlayerState other) {
+            return new PlayerState(userId, other.hand, other.index, other.hand.size() == 1);
+        }
+        public PlayerState withCalledUno(boolean called) {
+            return called == hasCalledUno ? this : new PlayerState(userId, hand, index, called);
+        }
     }
 
     public List<PlayerState> players = new ArrayList<>();
-    public Deque<String> drawPile = new ArrayDeque<>();
-    public Deque<String> discardPile = new ArrayDeque<>();
+    public CardArray drawPile = CardArray.empty(); // 末尾为堆顶
+    public CardArray discardPile = CardArray.empty(); // 末尾为堆顶
     public int currentIdx = 0; // 当前出牌玩家索引
     public int direction = 1; // 1 顺时针，-1 逆时针
     public int pendingDraw = 0; // 累积抽牌惩罚
-    public String forcedColor = null; // WILD / D4 选色
+    public int forcedColor = UnoCards.NONE; // WILD / D4 选色（颜色序号）
+    public int priorColor = UnoCards.NONE; // 顶牌打出前生效的颜色（+4 质疑按此判断），无则为 NONE
     public boolean started = false;
     public boolean finished = false;
     public Long winnerUserId = null;
+    public long seed; // 本局种子（记录在对局元数据中，用于复盘）
+    public long rngState; // 洗牌随机数状态，由 seed 初始化
+    public UnoRules rules = UnoRules.STANDARD; // 本局使用的规则变体（不可变，各版本共享）
 
     public PlayerState currentPlayer() { return players.get(currentIdx); }
 
+    /**
+     * 按 userId 查找玩家位置，不存在返回 -1
+     */
+    public int indexOf(long userId) {
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).userId == userId) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 浅复制：共享所有 PlayerState 与牌堆，只复制玩家列表与标量字段
+     */
+    public UnoState copy() {
+        UnoState copy = new UnoState();
+        copy.players = new ArrayList<>(players);
+        copy.drawPile = drawPile;
+        copy.discardPile = discardPile;
+        copy.currentIdx = currentIdx;
+        copy.direction = direction;
+        copy.pendingDraw = pendingDraw;
+        copy.forcedColor = forcedColor;
+        copy.priorColor = priorColor;
+        copy.started = started;
+        copy.finished = finished;
+        copy.winnerUserId = winnerUserId;
+        copy.seed = seed;
+        copy.rngState = rngState;
+        copy.rules = rules;
+        return copy;
+    }
+
+    /**
+     * 按实际手牌与牌堆长度计量；规则变体在所有对局间共享，不计入
+     */
+    @Override
+    public long estimatedBytes() {
+        long bytes = fixedBytes() + drawPile.retainedBytes() + discardPile.retainedBytes();
+        for (PlayerState p : players) bytes += playerBytes(p);
+        return bytes;
+    }
+
+    @Override
+    public Map<String, Long> footprintBreakdown() {
+        long hands = 0;
+        for (PlayerState p : players) hands += playerBytes(p);
+        Map<String, Long> breakdown = new LinkedHashMap<>();
+        breakdown.put("state", fixedBytes());
+        breakdown.put("hands", hands);
+        breakdown.put("drawPile", drawPile.retainedBytes());
+        breakdown.put("discardPile", discardPile.retainedBytes());
+        return breakdown;
+    }
+
+    private long fixedBytes() {
+        // ArrayList 的 Object[] 按元素数计（copy() 用 new ArrayList<>(players)，容量等于人数）
+        long bytes = STATE_BYTES + ((16L + 4L * players.size() + 7) & ~7L);
+        return winnerUserId != null ? bytes + BOXED_LONG_BYTES : bytes;
+    }
+
+    private static long playerBytes(PlayerState p) {
+        return PLAYER_BYTES + p.hand.retainedBytes() + p.index.retainedBytes();
+    }
+
     public int nextIndex(int step) {
         int n = players.size();
         int i = currentIdx;
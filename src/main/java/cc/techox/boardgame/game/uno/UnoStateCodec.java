@@ -0,0 +1,244 @@
+package cc.techox.boardgame.game.uno;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * UnoState 的紧凑二进制编码（带格式版本号）
+ * 用于对局持久化、迁移和校验；标准 4 人局约 170 字节
+ *
+ * 格式（版本 2）：
+ * <pre>
+ * magic 'U' | version | flags | currentIdx | pendingDraw | forcedColor+1 | priorColor+1 | seed(8) | rngState(8)
+ * | rules 名称 | [winnerUserId] | 玩家数 { userId | hasCalledUno | 手牌 }
+ * | drawPile | discardPile
+ * </pre>
+ * 版本 1 没有 priorColor，读取时按顶牌下面那张牌推断（那张是万能牌时无法推断，记为无）
+ * 整数均为 varint（userId 用 zigzag，机器人 id 为负），牌序列为长度 + 每张一个字节的 kind；
+ * 新增字段时提升版本号，旧版本的快照仍按各自的格式读取
+ */
+public final class UnoStateCodec {
+    private UnoStateCodec() {}
+
+    public static final int CURRENT_VERSION = 2;
+
+    private static final byte MAGIC = 'U';
+
+    private static final int FLAG_STARTED = 1;
+    private static final int FLAG_FINISHED = 2;
+    private static final int FLAG_REVERSED = 4;
+    private static final int FLAG_HAS_WINNER = 8;
+
+    /**
+     * 编码为当前版本格式
+     */
+    public static byte[] encode(UnoState s) {
+        Writer w = new Writer(64 + s.drawPile.size() + s.discardPile.size() + s.players.size() * 24);
+        w.writeByte(MAGIC);
+        w.writeByte(CURRENT_VERSION);
+        int flags = (s.started ? FLAG_STARTED : 0)
+                | (s.finished ? FLAG_FINISHED : 0)
+                | (s.direction < 0 ? FLAG_REVERSED : 0)
+                | (s.winnerUserId != null ? FLAG_HAS_WINNER : 0);
+        w.writeByte(flags);
+        w.writeVarint(s.currentIdx);
+        w.writeVarint(s.pendingDraw);
+        w.writeByte(s.forcedColor + 1);
+        w.writeByte(s.priorColor + 1);
+        w.writeLong(s.seed);
+        w.writeLong(s.rngState);
+        w.writeString(s.rules.name);
+        if (s.winnerUserId != null) w.writeSignedVarint(s.winnerUserId);
+
+        w.writeVarint(s.players.size());
+        for (UnoState.PlayerState p : s.players) {
+            w.writeSignedVarint(p.userId);
+            w.writeByte(p.hasCalledUno ? 1 : 0);
+            w.writeCards(p.hand);
+        }
+        w.writeCards(s.drawPile);
+        w.writeCards(s.discardPile);
+        return w.toByteArray();
+    }
+
+    /**
+     * 解码任意已知版本的快照
+     * @param rulesByName 按名称查找规则变体（如 GameDataManager::getUnoRules）
+     */
+    public static UnoState decode(byte[] data, Function<String, UnoRules> rulesByName) {
+        Reader r = new Reader(data);
+        if (r.readByte() != MAGIC) throw new IllegalArgumentException("not an UnoState snapshot");
+        int version = r.readByte();
+        return switch (version) {
+            case 1, 2 -> decode(r, version, rulesByName);
+            default -> throw new IllegalArgumentException("unsupported snapshot version: " + version);
+        };
+    }
+
+    /**
+     * 读取快照的格式版本，不解码内容
+     */
+    public static int version(byte[] data) {
+        if (data.length < 2 || data[0] != MAGIC) throw new IllegalArgumentException("not an UnoState snapshot");
+        return data[1] & 0xFF;
+    }
+
+    private static UnoState decode(Reader r, int version, Function<String, UnoRules> rulesByName) {
+        UnoState s = new UnoState();
+        int flags = r.readByte();
+        s.started = (flags & FLAG_STARTED) != 0;
+        s.finished = (flags & FLAG_FINISHED) != 0;
+        s.direction = (flags & FLAG_REVERSED) != 0 ? -1 : 1;
+        s.currentIdx = r.readVarint();
+        s.pendingDraw = r.readVarint();
+        s.forcedColor = r.readByte() - 1;
+        if (version >= 2) s.priorColor = r.readByte() - 1;
+        s.seed = r.readLong();
+        s.rngState = r.readLong();
+        s.rules = rulesByName.apply(r.readString());
+        if ((flags & FLAG_HAS_WINNER) != 0) s.winnerUserId = r.readSignedVarint();
+
+        int playerCount = r.readVarint();
+        for (int i = 0; i < playerCount; i++) {
+            long userId = r.readSignedVarint();
+            boolean calledUno = r.readByte() != 0;
+            s.players.add(new UnoState.PlayerState(userId, r.readCards(), calledUno));
+        }
+        s.drawPile = r.readCards();
+        s.discardPile = r.readCards();
+        if (version == 1) {
+            int previous = s.discardPile.peek(1);
+            s.priorColor = previous == UnoCards.NONE || UnoCards.isWild(previous) ? UnoCards.NONE : UnoCards.color(previous);
+        }
+        if (r.remaining() != 0) throw new IllegalArgumentException("trailing bytes in snapshot: " + r.remaining());
+        if (playerCount > 0 && (s.currentIdx < 0 || s.currentIdx >= playerCount)) {
+            throw new IllegalArgumentException("bad current player index: " + s.currentIdx);
+        }
+        return s;
+    }
+
+    // ==================== 读写辅助 ====================
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        private void ensure(int n) {
+            if (pos + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeSignedVarint(long v) {
+            writeVarint((v << 1) ^ (v >> 63));
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) buf[pos++] = (byte) (v >>> (i * 8));
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        void writeCards(CardArray cards) {
+            writeVarint(cards.size());
+            ensure(cards.size());
+            cards.copyTo(buf, pos);
+            pos += cards.size();
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int remaining() { return buf.length - pos; }
+
+        private void require(int n) {
+            if (n < 0 || pos + n > buf.length) throw new IllegalArgumentException("truncated snapshot");
+        }
+
+        int readByte() {
+            require(1);
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return result;
+            }
+            throw new IllegalArgumentException("malformed varint");
+        }
+
+        int readVarint() {
+            long v = readVarLong();
+            if (v < 0 || v > Integer.MAX_VALUE) throw new IllegalArgumentException("varint out of range: " + v);
+            return (int) v;
+        }
+
+        long readSignedVarint() {
+            long v = readVarLong();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        long readLong() {
+            require(8);
+            long v = 0;
+            for (int i = 0; i < 8; i++) v |= (long) (buf[pos++] & 0xFF) << (i * 8);
+            return v;
+        }
+
+        String readString() {
+            int length = readVarint();
+            require(length);
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        CardArray readCards() {
+            int size = readVarint();
+            require(size);
+            byte[] cards = Arrays.copyOfRange(buf, pos, pos + size);
+            pos += size;
+            for (byte kind : cards) {
+                if (kind < 0 || kind >= UnoCards.NUM_KINDS) throw new IllegalArgumentException("bad card kind: " + kind);
+            }
+            return CardArray.wrap(cards, size);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cc.techox.boardgame.game.uno.bot;
+
+import cc.techox.boardgame.game.uno.UnoCards;
+import cc.techox.boardgame.game.uno.UnoEngine;
+import cc.techox.boardgame.game.uno.UnoState;
+
+/**
+ * 机器人的一步决策：出牌（含万能牌选色）、摸牌并跳过，或质疑 +4
+ */
+public final class BotMove {
+    public enum Type { PLAY, DRAW, CHALLENGE }
+
+    public final Type type;
+    public final int card; // UnoCards kind，仅 PLAY
+    public final int color; // 颜色序号，仅万能牌
+
+    private BotMove(Type type, int card, int color) {
+        this.type = type;
+        this.card = card;
+        this.color = color;
+    }
+
+    public static final BotMove DRAW = new BotMove(Type.DRAW, UnoCards.NONE, UnoCards.NONE);
+    public static final BotMove CHALLENGE = new BotMove(Type.CHALLENGE, UnoCards.NONE, UnoCards.NONE);
+
+    public static BotMove play(int card, int color) {
+        return new BotMove(Type.PLAY, card, color);
+    }
+
+    /**
+     * 在 s 上执行这一步，返回新状态（不修改 s）
+     */
+    UnoState apply(UnoState s, long userId) {
+        return switch (type) {
+            case PLAY -> UnoEngine.playCard(s, userId, card, color);
+            case DRAW -> UnoEngine.drawAndPass(s, userId);
+            case CHALLENGE -> UnoEngine.challengeWildDraw4(s, userId).newState;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case PLAY -> "PLAY " + UnoCards.code(card) + (color != UnoCards.NONE ? " " + UnoCards.colorCode(color) : "");
+            case DRAW -> "DRAW";
+            case CHALLENGE -> "CHALLENGE";
+        };
+    }
+}
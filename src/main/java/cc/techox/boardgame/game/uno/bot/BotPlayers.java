@@ -0,0 +1,28 @@
+package cc.techox.boardgame.game.uno.bot;
+
+/**
+ * 补位机器人的身份约定
+ * 补位机器人没有数据库用户，使用负数 userId（-1、-2 ...），只在单局内唯一
+ */
+public final class BotPlayers {
+    private BotPlayers() {}
+
+    public static boolean isBot(long userId) {
+        return userId < 0;
+    }
+
+    /**
+     * 第 n 个补位机器人（从 1 开始）的 userId
+     */
+    public static long botId(int n) {
+        return -n;
+    }
+
+    public static String username(long userId) {
+        return "bot" + (-userId);
+    }
+
+    public static String displayName(long userId) {
+        return "机器人" + (-userId);
+    }
+}
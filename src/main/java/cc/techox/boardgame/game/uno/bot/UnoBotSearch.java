@@ -0,0 +1,214 @@
+package cc.techox.boardgame.game.uno.bot;
+
+import cc.techox.boardgame.game.uno.CardArray;
+import cc.techox.boardgame.game.uno.UnoCards;
+import cc.techox.boardgame.game.uno.UnoEngine;
+import cc.techox.boardgame.game.uno.UnoState;
+import cc.techox.boardgame.game.uno.sim.GreedyPolicy;
+import cc.techox.boardgame.game.uno.sim.UnoPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 限时的并行蒙特卡洛搜索
+ *
+ * 每次迭代先把对手手牌与牌库重新随机分配（确定化，保持各自张数不变，机器人只知道自己的手牌与弃牌堆），
+ * 再按 UCB1 选一个根节点动作，用贪心策略把对局推演到结束或步数上限。
+ * 多个工作线程各自独立搜索到同一截止时间，最后合并访问次数，取访问最多的动作
+ */
+public final class UnoBotSearch {
+    private static final double EXPLORATION = 1.4;
+    private static final int ROLLOUT_TURNS = 200;
+    private static final UnoPolicy ROLLOUT_POLICY = GreedyPolicy.INSTANCE;
+
+    private UnoBotSearch() {}
+
+    /**
+     * 列出当前玩家所有合法动作：每张可出的牌（万能牌按四种颜色展开）、摸牌，以及面对 +4 时的质疑
+     */
+    public static List<BotMove> legalMoves(UnoState s, long userId) {
+        List<BotMove> moves = new ArrayList<>();
+        CardArray playable = UnoEngine.playableKinds(s, userId);
+        int last = UnoCards.NONE;
+        for (int i = 0; i < playable.size(); i++) {
+            int kind = playable.get(i);
+            if (kind == last) continue; // playable 按 kind 排序，同 kind 只取一次
+            last = kind;
+            if (UnoCards.isWild(kind)) {
+                for (int c = 0; c < UnoCards.NUM_COLORS; c++) moves.add(BotMove.play(kind, c));
+            } else {
+                moves.add(BotMove.play(kind, UnoCards.NONE));
+            }
+        }
+        moves.add(BotMove.DRAW);
+        if (s.pendingDraw > 0 && s.discardPile.peek() == UnoCards.WILD_DRAW4) moves.add(BotMove.CHALLENGE);
+        return moves;
+    }
+
+    /**
+     * 在 pool 上以 workers 个任务并行搜索，到 budgetNanos 截止
+     * 池满时少开任务；一个任务都提交不了时直接返回贪心决策，调用方线程不会被阻塞
+     */
+    public static CompletableFuture<BotMove> searchAsync(UnoState root, long userId, long budgetNanos,
+                                                         int workers, Executor pool, long seed) {
+        List<BotMove> moves = legalMoves(root, userId);
+        if (moves.size() == 1) return CompletableFuture.completedFuture(moves.get(0));
+
+        long deadline = System.nanoTime() + budgetNanos;
+        List<CompletableFuture<long[]>> tasks = new ArrayList<>(workers);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        for (int w = 0; w < workers; w++) {
+            SplittableRandom rnd = seeds.split();
+            try {
+                tasks.add(CompletableFuture.supplyAsync(() -> runWorker(root, userId, moves, deadline, rnd), pool));
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        if (tasks.isEmpty()) return CompletableFuture.completedFuture(fallback(root, userId));
+
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            long[] visits = new long[moves.size()];
+            for (CompletableFuture<long[]> task : tasks) {
+                long[] v = task.join();
+                for (int i = 0; i < visits.length; i++) visits[i] += v[i];
+            }
+            int best = -1;
+            for (int i = 0; i < visits.length; i++) {
+                if (visits[i] > 0 && (best < 0 || visits[i] > visits[best])) best = i;
+            }
+            return best < 0 ? fallback(root, userId) : moves.get(best);
+        });
+    }
+
+    /**
+     * 没有搜索结果时的贪心决策
+     */
+    public static BotMove fallback(UnoState s, long userId) {
+        SplittableRandom rnd = new SplittableRandom();
+        if (s.pendingDraw > 0 && s.discardPile.peek() == UnoCards.WILD_DRAW4 && ROLLOUT_POLICY.challenge(s, rnd)) {
+            return BotMove.CHALLENGE;
+        }
+        CardArray playable = UnoEngine.playableKinds(s, userId);
+        if (playable.isEmpty()) return BotMove.DRAW;
+        int card = playable.get(ROLLOUT_POLICY.chooseCard(s, playable, rnd));
+        int color = UnoCards.isWild(card) ? ROLLOUT_POLICY.chooseColor(s, s.currentPlayer().hand, rnd) : UnoCards.NONE;
+        return BotMove.play(card, color);
+    }
+
+    /**
+     * 单个工作线程的搜索循环，返回各根节点动作的访问次数
+     */
+    private static long[] runWorker(UnoState root, long userId, List<BotMove> moves, long deadline, SplittableRandom rnd) {
+        int n = moves.size();
+        long[] visits = new long[n];
+        double[] rewards = new double[n];
+        int seat = root.indexOf(userId);
+        long total = 0;
+        while (System.nanoTime() < deadline) {
+            int m = select(visits, rewards, total);
+            UnoState world = determinize(root, seat, rnd);
+            double reward;
+            try {
+                reward = rollout(moves.get(m).apply(world, userId), userId, rnd);
+            } catch (RuntimeException e) {
+                reward = 0; // 推演中的非法局面按失败计
+            }
+            visits[m]++;
+            rewards[m] += reward;
+            total++;
+        }
+        return visits;
+    }
+
+    private static int select(long[] visits, double[] rewards, long total) {
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double logTotal = Math.log(Math.max(1, total));
+        for (int i = 0; i < visits.length; i++) {
+            if (visits[i] == 0) return i;
+            double score = rewards[i] / visits[i] + EXPLORATION * Math.sqrt(logTotal / visits[i]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 重新分配隐藏信息：对手手牌与牌库合并洗匀后按原张数重发
+     */
+    static UnoState determinize(UnoState root, int seat, SplittableRandom rnd) {
+        int hidden = root.drawPile.size();
+        for (int i = 0; i < root.players.size(); i++) {
+            if (i != seat) hidden += root.players.get(i).hand.size();
+        }
+        byte[] cards = new byte[hidden];
+        int pos = 0;
+        for (int i = 0; i < root.players.size(); i++) {
+            if (i == seat) continue;
+            CardArray hand = root.players.get(i).hand;
+            hand.copyTo(cards, pos);
+            pos += hand.size();
+        }
+        root.drawPile.copyTo(cards, pos);
+        for (int i = cards.length - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            byte tmp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = tmp;
+        }
+
+        UnoState world = root.copy();
+        pos = 0;
+        for (int i = 0; i < world.players.size(); i++) {
+            if (i == seat) continue;
+            UnoState.PlayerState p = world.players.get(i);
+            byte[] hand = new byte[p.hand.size()];
+            System.arraycopy(cards, pos, hand, 0, hand.length);
+            pos += hand.length;
+            world.players.set(i, new UnoState.PlayerState(p.userId, CardArray.of(hand, hand.length), p.hasCalledUno));
+        }
+        byte[] draw = new byte[cards.length - pos];
+        System.arraycopy(cards, pos, draw, 0, draw.length);
+        world.drawPile = CardArray.of(draw, draw.length);
+        // 真实的洗牌随机数状态也属于隐藏信息，推演时替换掉
+        world.rngState = rnd.nextLong();
+        return world;
+    }
+
+    /**
+     * 用贪心策略推演，返回机器人视角的收益：获胜 1，落败 0，未结束时按手牌多少估值
+     */
+    private static double rollout(UnoState s, long userId, SplittableRandom rnd) {
+        for (int turn = 0; turn < ROLLOUT_TURNS && !s.finished; turn++) {
+            long current = s.currentPlayer().userId;
+            if (s.pendingDraw > 0 && s.discardPile.peek() == UnoCards.WILD_DRAW4 && ROLLOUT_POLICY.challenge(s, rnd)) {
+                s = UnoEngine.challengeWildDraw4(s, current).newState;
+            }
+            CardArray playable = UnoEngine.playableKinds(s, current);
+            if (playable.isEmpty()) {
+                s = UnoEngine.drawAndPass(s, current);
+            } else {
+                int card = playable.get(ROLLOUT_POLICY.chooseCard(s, playable, rnd));
+                int color = UnoCards.isWild(card) ? ROLLOUT_POLICY.chooseColor(s, s.currentPlayer().hand, rnd) : UnoCards.NONE;
+                s = UnoEngine.playCard(s, current, card, color);
+            }
+        }
+        if (s.finished) return s.winnerUserId == userId ? 1.0 : 0.0;
+
+        int mine = 0;
+        int fewestOther = Integer.MAX_VALUE;
+        for (UnoState.PlayerState p : s.players) {
+            if (p.userId == userId) mine = p.hand.size();
+            else fewestOther = Math.min(fewestOther, p.hand.size());
+        }
+        return (double) fewestOther / (mine + fewestOther);
+    }
+}
@@ -0,0 +1,63 @@
+package cc.techox.boardgame.game.uno.sim;
+
+import cc.techox.boardgame.game.uno.CardArray;
+import cc.techox.boardgame.game.uno.UnoCard;
+import cc.techox.boardgame.game.uno.UnoCards;
+import cc.techox.boardgame.game.uno.UnoState;
+
+import java.util.SplittableRandom;
+
+/**
+ * 贪心策略：优先出功能牌，其次出手中最多颜色的牌，万能牌留到最后；
+ * 选色取手中最多的颜色；对手牌较多的 +4 出牌者发起质疑
+ */
+public final class GreedyPolicy implements UnoPolicy {
+    public static final GreedyPolicy INSTANCE = new GreedyPolicy();
+
+    private GreedyPolicy() {}
+
+    @Override
+    public int chooseCard(UnoState s, CardArray playable, SplittableRandom rnd) {
+        int best = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < playable.size(); i++) {
+            int score = score(s, playable.get(i));
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static int score(UnoState s, int kind) {
+        if (kind == UnoCards.WILD_DRAW4) return s.pendingDraw > 0 ? 100 : -20;
+        if (kind == UnoCards.WILD) return -10;
+        int score = s.currentPlayer().index.colorCount(UnoCards.color(kind));
+        int type = UnoCards.type(kind);
+        if (type == UnoCard.Type.DRAW2.ordinal()) score += 30;
+        else if (type == UnoCard.Type.SKIP.ordinal() || type == UnoCard.Type.REVERSE.ordinal()) score += 20;
+        else score += type; // 数字大的先出
+        return score;
+    }
+
+    @Override
+    public int chooseColor(UnoState s, CardArray hand, SplittableRandom rnd) {
+        int best = rnd.nextInt(UnoCards.NUM_COLORS);
+        int[] counts = new int[UnoCards.NUM_COLORS];
+        for (int i = 0; i < hand.size(); i++) {
+            int color = UnoCards.color(hand.get(i));
+            if (color < UnoCards.NUM_COLORS) counts[color]++;
+        }
+        for (int c = 0; c < counts.length; c++) {
+            if (counts[c] > counts[best]) best = c;
+        }
+        return best;
+    }
+
+    @Override
+    public boolean challenge(UnoState s, SplittableRandom rnd) {
+        int previous = (s.currentIdx - s.direction + s.players.size()) % s.players.size();
+        return s.players.get(previous).hand.size() >= 4;
+    }
+}
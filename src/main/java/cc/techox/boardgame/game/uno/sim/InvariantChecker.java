@@ -0,0 +1,91 @@
+package cc.techox.boardgame.game.uno.sim;
+
+import cc.techox.boardgame.game.uno.CardArray;
+import cc.techox.boardgame.game.uno.DeckTemplate;
+import cc.techox.boardgame.game.uno.HandIndex;
+import cc.techox.boardgame.game.uno.UnoCard;
+import cc.techox.boardgame.game.uno.UnoCards;
+import cc.techox.boardgame.game.uno.UnoState;
+
+import java.util.Arrays;
+
+/**
+ * 引擎不变量检查
+ * 每一步之后校验：牌的总数与各 kind 数量守恒、当前玩家下标合法、
+ * 方向与惩罚值合法、手牌索引与手牌一致、结束状态有唯一胜者
+ */
+final class InvariantChecker {
+    private final int[] deckCounts = new int[UnoCards.NUM_KINDS];
+    private final int deckSize;
+    private final int[] scratch = new int[UnoCards.NUM_KINDS];
+
+    InvariantChecker(DeckTemplate deck) {
+        for (int k = 0; k < UnoCards.NUM_KINDS; k++) deckCounts[k] = deck.count(k);
+        this.deckSize = deck.size();
+    }
+
+    /**
+     * @return 第一条违反的不变量描述，全部满足时返回 null
+     */
+    String check(UnoState s) {
+        int n = s.players.size();
+        if (s.currentIdx < 0 || s.currentIdx >= n) return "currentIdx out of range: " + s.currentIdx;
+        if (s.direction != 1 && s.direction != -1) return "bad direction: " + s.direction;
+        if (s.pendingDraw < 0) return "negative pendingDraw: " + s.pendingDraw;
+        if (s.forcedColor != UnoCards.NONE && (s.forcedColor < 0 || s.forcedColor >= UnoCards.NUM_COLORS)) {
+            return "bad forcedColor: " + s.forcedColor;
+        }
+        if (s.discardPile.isEmpty()) return "empty discard pile";
+
+        Arrays.fill(scratch, 0);
+        int total = count(s.drawPile) + count(s.discardPile);
+        for (int i = 0; i < n; i++) {
+            UnoState.PlayerState p = s.players.get(i);
+            total += count(p.hand);
+            String indexError = checkIndex(p.hand, p.index);
+            if (indexError != null) return "seat " + i + ": " + indexError;
+        }
+        if (total != deckSize) return "card total " + total + " != " + deckSize;
+        for (int k = 0; k < UnoCards.NUM_KINDS; k++) {
+            if (scratch[k] != deckCounts[k]) {
+                return "kind " + UnoCards.code(k) + " count " + scratch[k] + " != " + deckCounts[k];
+            }
+        }
+
+        if (s.finished) {
+            if (s.winnerUserId == null) return "finished without winner";
+            int winner = s.indexOf(s.winnerUserId);
+            if (winner < 0) return "winner not seated: " + s.winnerUserId;
+            if (!s.players.get(winner).hand.isEmpty()) return "winner still holds cards";
+        } else {
+            for (int i = 0; i < n; i++) {
+                if (s.players.get(i).hand.isEmpty()) return "seat " + i + " empty hand but game not finished";
+            }
+        }
+        return null;
+    }
+
+    private int count(CardArray cards) {
+        for (int i = 0; i < cards.size(); i++) {
+            int kind = cards.get(i);
+            if (kind < 0 || kind >= UnoCards.NUM_KINDS) return Integer.MIN_VALUE / 2;
+            scratch[kind]++;
+        }
+        return cards.size();
+    }
+
+    private static String checkIndex(CardArray hand, HandIndex index) {
+        HandIndex fresh = HandIndex.of(hand);
+        for (int k = 0; k < UnoCards.NUM_KINDS; k++) {
+            if (index.count(k) != fresh.count(k)) return "hand index drift at " + UnoCards.code(k);
+            if (index.hasPlayable(1L << k) != (fresh.count(k) > 0)) return "hand index bitset drift at " + UnoCards.code(k);
+        }
+        for (int c = 0; c < UnoCard.Color.values().length; c++) {
+            if (index.colorCount(c) != fresh.colorCount(c)) return "hand index color drift at " + c;
+        }
+        for (int t = 0; t < UnoCard.Type.values().length; t++) {
+            if (index.typeCount(t) != fresh.typeCount(t)) return "hand index type drift at " + t;
+        }
+        return null;
+    }
+}
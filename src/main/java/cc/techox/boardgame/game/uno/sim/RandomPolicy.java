@@ -0,0 +1,33 @@
+package cc.techox.boardgame.game.uno.sim;
+
+import cc.techox.boardgame.game.uno.CardArray;
+import cc.techox.boardgame.game.uno.UnoCards;
+import cc.techox.boardgame.game.uno.UnoState;
+
+import java.util.SplittableRandom;
+
+/**
+ * 随机策略：均匀随机出牌、选色，偶尔主动摸牌或质疑，用于覆盖尽可能多的状态
+ */
+public final class RandomPolicy implements UnoPolicy {
+    public static final RandomPolicy INSTANCE = new RandomPolicy();
+
+    private RandomPolicy() {}
+
+    @Override
+    public int chooseCard(UnoState s, CardArray playable, SplittableRandom rnd) {
+        // 少量概率在有牌可出时仍选择摸牌
+        if (rnd.nextInt(20) == 0) return -1;
+        return rnd.nextInt(playable.size());
+    }
+
+    @Override
+    public int chooseColor(UnoState s, CardArray hand, SplittableRandom rnd) {
+        return rnd.nextInt(UnoCards.NUM_COLORS);
+    }
+
+    @Override
+    public boolean challenge(UnoState s, SplittableRandom rnd) {
+        return rnd.nextInt(4) == 0;
+    }
+}
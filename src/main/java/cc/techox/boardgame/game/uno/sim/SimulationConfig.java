@@ -0,0 +1,30 @@
+package cc.techox.boardgame.game.uno.sim;
+
+import cc.techox.boardgame.game.uno.DeckTemplate;
+import cc.techox.boardgame.game.uno.UnoRules;
+
+/**
+ * 一次模拟运行的参数（创建后只读，在所有任务间共享）
+ */
+final class SimulationConfig {
+    final DeckTemplate deck;
+    final UnoRules rules;
+    final int players;
+    final UnoPolicy[] policies; // 按座位
+    final long seed;
+    final int maxTurns;
+    final int leafSize;
+    final boolean checkInvariants;
+
+    SimulationConfig(DeckTemplate deck, UnoRules rules, UnoPolicy[] policies, long seed,
+                     int maxTurns, int leafSize, boolean checkInvariants) {
+        this.deck = deck;
+        this.rules = rules;
+        this.players = policies.length;
+        this.policies = policies;
+        this.seed = seed;
+        this.maxTurns = maxTurns;
+        this.leafSize = leafSize;
+        this.checkInvariants = checkInvariants;
+    }
+}
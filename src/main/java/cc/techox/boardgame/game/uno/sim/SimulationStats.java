@@ -0,0 +1,125 @@
+package cc.techox.boardgame.game.uno.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模拟统计
+ * 每个叶子任务独占一个实例，结束后由 {@link #merge} 合并，不需要同步
+ */
+public final class SimulationStats {
+    private static final int MAX_SAMPLES = 10;
+
+    final long[] lengthHistogram; // 下标为对局回合数
+    final long[] winsBySeat;
+
+    long games;
+    long finished;
+    long stalled; // 超过回合上限仍未结束
+    long turns;
+    long cardsPlayed;
+    long draws;
+    long draw2Stacked;
+    long draw4Played;
+    long draw4Stacked;
+    long challenges;
+    long challengesWon;
+    long reverses;
+    long skips;
+    long reshuffles;
+    int maxHandSize;
+    int maxPendingDraw;
+    long violations;
+    final List<String> violationSamples = new ArrayList<>();
+
+    SimulationStats(int maxTurns, int players) {
+        this.lengthHistogram = new long[maxTurns + 1];
+        this.winsBySeat = new long[players];
+    }
+
+    void recordViolation(String message) {
+        violations++;
+        if (violationSamples.size() < MAX_SAMPLES) violationSamples.add(message);
+    }
+
+    SimulationStats merge(SimulationStats other) {
+        for (int i = 0; i < lengthHistogram.length; i++) lengthHistogram[i] += other.lengthHistogram[i];
+        for (int i = 0; i < winsBySeat.length; i++) winsBySeat[i] += other.winsBySeat[i];
+        games += other.games;
+        finished += other.finished;
+        stalled += other.stalled;
+        turns += other.turns;
+        cardsPlayed += other.cardsPlayed;
+        draws += other.draws;
+        draw2Stacked += other.draw2Stacked;
+        draw4Played += other.draw4Played;
+        draw4Stacked += other.draw4Stacked;
+        challenges += other.challenges;
+        challengesWon += other.challengesWon;
+        reverses += other.reverses;
+        skips += other.skips;
+        reshuffles += other.reshuffles;
+        maxHandSize = Math.max(maxHandSize, other.maxHandSize);
+        maxPendingDraw = Math.max(maxPendingDraw, other.maxPendingDraw);
+        violations += other.violations;
+        for (String sample : other.violationSamples) {
+            if (violationSamples.size() >= MAX_SAMPLES) break;
+            violationSamples.add(sample);
+        }
+        return this;
+    }
+
+    /**
+     * 对局回合数的百分位（只统计正常结束的对局）
+     */
+    public int lengthPercentile(double p) {
+        long total = 0;
+        for (long n : lengthHistogram) total += n;
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < lengthHistogram.length; i++) {
+            seen += lengthHistogram[i];
+            if (seen >= rank) return i;
+        }
+        return lengthHistogram.length - 1;
+    }
+
+    public long games() { return games; }
+
+    public long turns() { return turns; }
+
+    public long violations() { return violations; }
+
+    public List<String> violationSamples() { return violationSamples; }
+
+    /**
+     * 生成文本报告
+     */
+    public String report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("games=%d finished=%d stalled=%d elapsed=%.2fs%n", games, finished, stalled, seconds));
+        sb.append(String.format("throughput: %.0f games/s, %.0f turns/s%n", games / seconds, turns / seconds));
+        sb.append(String.format("game length (turns): mean=%.1f p50=%d p90=%d p99=%d max=%d%n",
+                perGame(turns),
+                lengthPercentile(0.50), lengthPercentile(0.90), lengthPercentile(0.99), lengthPercentile(1.0)));
+        sb.append(String.format("per game: played=%.1f draws=%.1f reverses=%.2f skips=%.2f reshuffles=%.3f%n",
+                perGame(cardsPlayed), perGame(draws), perGame(reverses), perGame(skips), perGame(reshuffles)));
+        sb.append(String.format("penalties: draw2Stacked=%d draw4Played=%d draw4Stacked=%d challenges=%d (won %d)%n",
+                draw2Stacked, draw4Played, draw4Stacked, challenges, challengesWon));
+        sb.append(String.format("extremes: maxHandSize=%d maxPendingDraw=%d%n", maxHandSize, maxPendingDraw));
+        sb.append("wins by seat:");
+        for (int i = 0; i < winsBySeat.length; i++) {
+            sb.append(String.format(" #%d=%.2f%%", i, finished == 0 ? 0.0 : 100.0 * winsBySeat[i] / finished));
+        }
+        sb.append(System.lineSeparator());
+        sb.append("invariant violations: ").append(violations).append(System.lineSeparator());
+        for (String sample : violationSamples) sb.append("  ").append(sample).append(System.lineSeparator());
+        return sb.toString();
+    }
+
+    private double perGame(long value) {
+        return games == 0 ? 0.0 : (double) value / games;
+    }
+}
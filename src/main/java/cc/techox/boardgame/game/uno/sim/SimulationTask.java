@@ -0,0 +1,132 @@
+package cc.techox.boardgame.game.uno.sim;
+
+import cc.techox.boardgame.game.uno.CardArray;
+import cc.techox.boardgame.game.uno.UnoCard;
+import cc.techox.boardgame.game.uno.UnoCards;
+import cc.techox.boardgame.game.uno.UnoEngine;
+import cc.techox.boardgame.game.uno.UnoState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 对 [from, to) 区间内的对局做 fork-join 拆分，叶子任务顺序跑完整局并汇总统计
+ * 每局的发牌与策略随机源只由 (seed, 对局序号) 决定，与拆分方式和线程数无关，同一 seed 的结果完全一致
+ */
+final class SimulationTask extends RecursiveTask<SimulationStats> {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final SimulationConfig config;
+    private final long from;
+    private final long to;
+
+    SimulationTask(SimulationConfig config, long from, long to) {
+        this.config = config;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected SimulationStats compute() {
+        if (to - from <= config.leafSize) {
+            return runLeaf();
+        }
+        long mid = (from + to) >>> 1;
+        SimulationTask left = new SimulationTask(config, from, mid);
+        left.fork();
+        SimulationStats right = new SimulationTask(config, mid, to).compute();
+        return left.join().merge(right);
+    }
+
+    private SimulationStats runLeaf() {
+        SimulationStats stats = new SimulationStats(config.maxTurns, config.players);
+        InvariantChecker checker = config.checkInvariants ? new InvariantChecker(config.deck) : null;
+        List<Long> userIds = new ArrayList<>(config.players);
+        for (int i = 0; i < config.players; i++) userIds.add((long) i + 1);
+
+        for (long game = from; game < to; game++) {
+            SplittableRandom rnd = new SplittableRandom(config.seed + game * GOLDEN_GAMMA);
+            playGame(userIds, rnd, checker, stats, game);
+        }
+        return stats;
+    }
+
+    private void playGame(List<Long> userIds, SplittableRandom rnd, InvariantChecker checker,
+                          SimulationStats stats, long game) {
+        UnoState s = UnoEngine.createInitialState(userIds, config.deck, config.rules, rnd.nextLong());
+        stats.games++;
+        if (checker != null && !verify(checker, s, stats, game, 0)) return;
+
+        int turn = 0;
+        while (!s.finished && turn < config.maxTurns) {
+            UnoPolicy policy = config.policies[s.currentIdx];
+            long userId = s.currentPlayer().userId;
+            int top = s.discardPile.peek();
+            stats.maxPendingDraw = Math.max(stats.maxPendingDraw, s.pendingDraw);
+
+            if (top == UnoCards.WILD_DRAW4 && s.pendingDraw > 0 && policy.challenge(s, rnd)) {
+                UnoEngine.ChallengeResult result = UnoEngine.challengeWildDraw4(s, userId);
+                stats.challenges++;
+                if (result.challengeSuccessful) stats.challengesWon++;
+                if (result.newState.drawPile.size() > s.drawPile.size()) stats.reshuffles++;
+                s = result.newState;
+                if (checker != null && !verify(checker, s, stats, game, turn)) return;
+            }
+
+            CardArray playable = UnoEngine.playableKinds(s, userId);
+            int pick = playable.isEmpty() ? -1 : policy.chooseCard(s, playable, rnd);
+            if (pick < 0) {
+                int before = s.drawPile.size();
+                UnoEngine.DrawResult result = UnoEngine.drawAndPassWithDetails(s, userId);
+                if (result.newState.drawPile.size() > before) stats.reshuffles++;
+                stats.draws++;
+                s = result.newState;
+            } else {
+                int card = playable.get(pick);
+                int color = UnoCards.isWild(card) ? policy.chooseColor(s, s.currentPlayer().hand, rnd) : UnoCards.NONE;
+                countPlay(s, card, stats);
+                s = UnoEngine.playCard(s, userId, card, color);
+            }
+            turn++;
+            for (UnoState.PlayerState p : s.players) stats.maxHandSize = Math.max(stats.maxHandSize, p.hand.size());
+            if (checker != null && !verify(checker, s, stats, game, turn)) return;
+        }
+
+        stats.turns += turn;
+        if (s.finished) {
+            stats.finished++;
+            stats.lengthHistogram[turn]++;
+            stats.winsBySeat[s.indexOf(s.winnerUserId)]++;
+        } else {
+            stats.stalled++;
+        }
+    }
+
+    private static void countPlay(UnoState s, int card, SimulationStats stats) {
+        stats.cardsPlayed++;
+        if (card == UnoCards.WILD_DRAW4) {
+            stats.draw4Played++;
+            if (s.pendingDraw > 0) stats.draw4Stacked++;
+            return;
+        }
+        UnoCard.Type type = UnoCards.card(card).getType();
+        switch (type) {
+            case DRAW2 -> {
+                if (s.pendingDraw > 0) stats.draw2Stacked++;
+            }
+            case REVERSE -> stats.reverses++;
+            case SKIP -> stats.skips++;
+            default -> {
+            }
+        }
+    }
+
+    private static boolean verify(InvariantChecker checker, UnoState s, SimulationStats stats, long game, int turn) {
+        String error = checker.check(s);
+        if (error == null) return true;
+        stats.recordViolation("game " + game + " turn " + turn + ": " + error);
+        return false;
+    }
+}
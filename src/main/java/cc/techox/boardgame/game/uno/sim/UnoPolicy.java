@@ -0,0 +1,42 @@
+package cc.techox.boardgame.game.uno.sim;
+
+import cc.techox.boardgame.game.uno.CardArray;
+import cc.techox.boardgame.game.uno.UnoState;
+
+import java.util.SplittableRandom;
+
+/**
+ * 模拟器中的玩家策略
+ * 实现必须无状态（或只依赖传入的随机源），以便在多个线程间共享
+ */
+public interface UnoPolicy {
+
+    /**
+     * 从可出的牌中选择一张
+     * @param playable 当前可出的牌（非空）
+     * @return playable 中的位置，返回 -1 表示选择摸牌
+     */
+    int chooseCard(UnoState s, CardArray playable, SplittableRandom rnd);
+
+    /**
+     * 打出万能牌后选择颜色
+     * @return 颜色序号 0..3
+     */
+    int chooseColor(UnoState s, CardArray hand, SplittableRandom rnd);
+
+    /**
+     * 面对 +4 时是否发起质疑
+     */
+    boolean challenge(UnoState s, SplittableRandom rnd);
+
+    /**
+     * 按名称获取内置策略
+     */
+    static UnoPolicy byName(String name) {
+        return switch (name.toLowerCase()) {
+            case "random" -> RandomPolicy.INSTANCE;
+            case "greedy" -> GreedyPolicy.INSTANCE;
+            default -> throw new IllegalArgumentException("unknown policy: " + name);
+        };
+    }
+}
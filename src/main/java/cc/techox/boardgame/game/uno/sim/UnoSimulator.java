@@ -0,0 +1,83 @@
+package cc.techox.boardgame.game.uno.sim;
+
+import cc.techox.boardgame.config.GameDataManager;
+import cc.techox.boardgame.game.uno.DeckTemplate;
+import cc.techox.boardgame.game.uno.UnoRules;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 无界面的 UNO 批量模拟器
+ * 通过 {@link cc.techox.boardgame.game.uno.UnoEngine} 跑完整对局，用 fork-join 分摊到所有核心，
+ * 输出吞吐、对局长度分布、规则相关统计以及不变量违规，用于验证规则改动和测量引擎吞吐
+ *
+ * 运行方式（参数均为 key=value，可省略）：
+ * <pre>
+ * mvn -q compile exec:java -Dexec.mainClass=cc.techox.boardgame.game.uno.sim.UnoSimulator \
+ *     -Dexec.args="games=1000000 players=4 policy=greedy,random seed=42"
+ * </pre>
+ * policy 按座位循环分配；variant 选用 config.yml 中的规则变体；
+ * check=false 可关闭逐步不变量检查以测量纯引擎吞吐
+ */
+public final class UnoSimulator {
+    private UnoSimulator() {}
+
+    public static void main(String[] args) {
+        Map<String, String> opts = parseArgs(args);
+        long games = Long.parseLong(opts.getOrDefault("games", "100000"));
+        int players = Integer.parseInt(opts.getOrDefault("players", "4"));
+        String[] policyNames = opts.getOrDefault("policy", "greedy").split(",");
+        String variant = opts.getOrDefault("variant", UnoRules.DEFAULT_VARIANT);
+        long seed = Long.parseLong(opts.getOrDefault("seed", String.valueOf(System.nanoTime())));
+        int maxTurns = Integer.parseInt(opts.getOrDefault("maxTurns", "5000"));
+        int leafSize = Integer.parseInt(opts.getOrDefault("leaf", "256"));
+        boolean check = Boolean.parseBoolean(opts.getOrDefault("check", "true"));
+        int parallelism = Integer.parseInt(opts.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        if (players < 2 || players > 10) throw new IllegalArgumentException("players must be 2..10");
+        UnoPolicy[] policies = new UnoPolicy[players];
+        for (int i = 0; i < players; i++) policies[i] = UnoPolicy.byName(policyNames[i % policyNames.length]);
+
+        // 与服务端使用同一份卡牌数据
+        GameDataManager dataManager = new GameDataManager();
+        dataManager.loadGameData();
+        DeckTemplate deck = dataManager.getDeckTemplate("uno");
+        UnoRules rules = dataManager.getUnoRules(variant);
+
+        SimulationConfig config = new SimulationConfig(deck, rules, policies, seed, maxTurns, leafSize, check);
+        System.out.printf("simulating %d games, %d players, policy=%s, variant=%s, seed=%d, threads=%d, check=%s%n",
+                games, players, String.join(",", policyNames), rules, seed, parallelism, check);
+
+        SimulationStats stats = run(config, games, parallelism);
+        if (stats.violations() > 0) System.exit(1);
+    }
+
+    /**
+     * 运行模拟并打印报告
+     */
+    static SimulationStats run(SimulationConfig config, long games, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long start = System.nanoTime();
+            SimulationStats stats = pool.invoke(new SimulationTask(config, 0, games));
+            long elapsed = System.nanoTime() - start;
+            System.out.print(stats.report(elapsed));
+            return stats;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("expected key=value: " + arg);
+            opts.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return opts;
+    }
+}
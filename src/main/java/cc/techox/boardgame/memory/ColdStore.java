@@ -0,0 +1,117 @@
+package cc.techox.boardgame.memory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 冷数据区（堆外）
+ * 长时间无人操作的对局序列化后存放在这里，不占堆、不被 GC 扫描；再次访问时读回堆内并释放槽位
+ *
+ * 槽位按 2 的幂分级（64B ~ 64KB），从 1MB 的直接内存块中顺序切出；
+ * 释放的槽位进入同级空闲链表复用，内存块本身只增不减，总量受 max-mb 限制
+ * 句柄为 (块序号 << 32) | 块内偏移，槽位开头 4 字节记录数据长度
+ */
+@Component
+public class ColdStore {
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int MIN_SHIFT = 6;
+    private static final int MAX_SHIFT = 16;
+    private static final int HEADER = 4;
+
+    private final long maxBytes;
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedQueue<Long>[] free = new ConcurrentLinkedQueue[MAX_SHIFT + 1];
+
+    // 新块只在持锁时追加；读取方先读 volatile 数组引用，拿到的前缀总是已初始化的
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private int chunkOffset = CHUNK_BYTES;
+
+    // 统计
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong slotBytes = new AtomicLong();
+    private final AtomicLong entries = new AtomicLong();
+
+    public ColdStore(@Value("${boardgame.cold.max-mb:256}") long maxMb) {
+        this.maxBytes = maxMb * 1024 * 1024;
+        for (int shift = MIN_SHIFT; shift <= MAX_SHIFT; shift++) free[shift] = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * 存入一段数据，返回句柄；数据过大或冷数据区已满时返回 -1（调用方保持在堆内）
+     */
+    public long put(byte[] data) {
+        int shift = sizeClass(data.length + HEADER);
+        if (shift > MAX_SHIFT) return -1;
+        Long handle = free[shift].poll();
+        if (handle == null) {
+            handle = allocate(1 << shift);
+            if (handle < 0) return -1;
+        }
+        ByteBuffer chunk = chunks[chunkOf(handle)];
+        int offset = offsetOf(handle);
+        chunk.putInt(offset, data.length);
+        chunk.put(offset + HEADER, data);
+        storedBytes.addAndGet(data.length);
+        slotBytes.addAndGet(1L << shift);
+        entries.incrementAndGet();
+        return handle;
+    }
+
+    public byte[] get(long handle) {
+        ByteBuffer chunk = chunks[chunkOf(handle)];
+        int offset = offsetOf(handle);
+        byte[] data = new byte[chunk.getInt(offset)];
+        chunk.get(offset + HEADER, data);
+        return data;
+    }
+
+    /**
+     * 释放槽位；同一句柄只能释放一次
+     */
+    public void free(long handle) {
+        int length = chunks[chunkOf(handle)].getInt(offsetOf(handle));
+        int shift = sizeClass(length + HEADER);
+        storedBytes.addAndGet(-length);
+        slotBytes.addAndGet(-(1L << shift));
+        entries.decrementAndGet();
+        free[shift].offer(handle);
+    }
+
+    private synchronized long allocate(int size) {
+        if (chunkOffset + size > CHUNK_BYTES) {
+            if ((long) (chunks.length + 1) * CHUNK_BYTES > maxBytes) return -1;
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = ByteBuffer.allocateDirect(CHUNK_BYTES);
+            chunks = grown;
+            chunkOffset = 0;
+        }
+        long handle = ((long) (chunks.length - 1) << 32) | chunkOffset;
+        chunkOffset += size;
+        return handle;
+    }
+
+    private static int sizeClass(int size) {
+        return Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(size - 1));
+    }
+
+    private static int chunkOf(long handle) { return (int) (handle >>> 32); }
+
+    private static int offsetOf(long handle) { return (int) handle; }
+
+    // ==================== 统计 ====================
+
+    public long getEntryCount() { return entries.get(); }
+
+    public long getStoredBytes() { return storedBytes.get(); }
+
+    public long getSlotBytes() { return slotBytes.get(); }
+
+    public long getReservedBytes() { return (long) chunks.length * CHUNK_BYTES; }
+
+    public long getMaxBytes() { return maxBytes; }
+}
@@ -1,11 +1,21 @@
 package cc.techox.boardgame.memory;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -19,28 +29,64 @@ public class GameStateManager {
     // 游戏状态存储 matchId -> GameStateData
     private final Map<Long, GameStateData> gameStates = new ConcurrentHashMap<>();
     
+    // 二级索引：roomId -> 进行中的 matchId，userId -> 进行中的 matchId
+    // 与 gameStates 在同一个 compute 中更新，查找不再遍历所有对局
+    private final Map<Long, Long> roomMatches = new ConcurrentHashMap<>();
+    private final Map<Long, Long> userMatches = new ConcurrentHashMap<>();
+    
+    // 淘汰时钟（第二次机会算法）：对局按放入顺序排队，访问只置引用位，不移动节点；
+    // 淘汰时从队头取，进行中的与被引用过的已结束对局（清位后）放回队尾，其余已结束的对局移出内存。
+    // 进行中的对局从不在这里移除（移除会记为结束而无法恢复），空闲的只会被移入冷数据区
+    private final ConcurrentLinkedQueue<GameStateData> clock = new ConcurrentLinkedQueue<>();
+    // 队列中已被其他途径移除、等待淘汰指针顺带丢弃的节点数
+    private final AtomicInteger clockGarbage = new AtomicInteger();
+    
     // 房间玩家状态 roomId -> Map<userId, PlayerRoomState>
     private final Map<Long, Map<Long, PlayerRoomState>> roomPlayers = new ConcurrentHashMap<>();
     
-    // 定时清理器
-    private final ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
+    // 定时任务：每个对局、每个房间玩家各自在时间轮上登记到期检查，不再定期扫描全表
+    private final TimingWheel timingWheel;
+    
+    // 对局信箱：对局移出内存时一并丢弃
+    private final MatchMailbox mailbox;
     
-    // 内存使用限制配置
-    private static final int MAX_ACTIVE_GAMES = 1000; // 最大同时活跃游戏数
-    private static final int MAX_MEMORY_MB = 100; // 最大内存使用限制(MB)
-    private static final long CLEANUP_INTERVAL_MINUTES = 5; // 清理间隔
-    private static final long EXPIRE_HOURS = 2; // 状态过期时间
+    // 对局预写日志：对局结束或被移出内存时记一笔，恢复时不再重建
+    private final MatchJournal journal;
     
-    // 内存使用监控
-    private volatile long estimatedMemoryUsage = 0;
+    // 冷数据区：空闲对局序列化后移到堆外，下次读取状态时再读回
+    private final ColdStore coldStore;
+    private final Map<String, StateCodec> codecs = new ConcurrentHashMap<>();
+    private final long spillAfterMinutes;
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong faultedCount = new AtomicLong();
     
-    public GameStateManager() {
-        // 每5分钟清理一次过期状态
-        cleanupExecutor.scheduleAtFixedRate(this::cleanupExpiredStates, 
-            CLEANUP_INTERVAL_MINUTES, CLEANUP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    // 容量限制：初值来自 boardgame.capacity.*，运行中可由管理接口调整
+    private volatile int maxActiveGames; // 最大同时活跃游戏数
+    private volatile long maxMemoryMb; // 对局状态计量内存上限(MB)
+    private volatile long expireHours; // 状态过期时间
+    private static final long CAPACITY_SPILL_IDLE_MINUTES = 10; // 内存不足时，超过该时间无人访问的进行中对局移入冷数据区
+    
+    // 内存使用监控：每局的大小在写入状态时按实际内容计量，总量与按游戏类型的分量只累加差值
+    private final LongAdder totalBytes = new LongAdder();
+    private final Map<String, LongAdder> bytesByGame = new ConcurrentHashMap<>();
+
+    public GameStateManager(MatchJournal journal, ColdStore coldStore, TimingWheel timingWheel, MatchMailbox mailbox,
+                            MemoryPressureMonitor pressureMonitor,
+                            @Value("${boardgame.cold.spill-after-minutes:5}") long spillAfterMinutes,
+                            @Value("${boardgame.capacity.max-active-games:1000}") int maxActiveGames,
+                            @Value("${boardgame.capacity.max-memory-mb:100}") long maxMemoryMb,
+                            @Value("${boardgame.capacity.expire-hours:2}") long expireHours) {
+        this.journal = journal;
+        this.coldStore = coldStore;
+        this.timingWheel = timingWheel;
+        this.mailbox = mailbox;
+        this.spillAfterMinutes = spillAfterMinutes;
+        setMaxActiveGames(maxActiveGames);
+        setMaxMemoryMb(maxMemoryMb);
+        setExpireHours(expireHours);
         
-        // 每分钟检查内存使用
-        cleanupExecutor.scheduleAtFixedRate(this::checkMemoryUsage, 1, 1, TimeUnit.MINUTES);
+        // 内存压力由老年代阈值通知驱动，不再定时检查
+        pressureMonitor.addListener(this::relievePressure);
     }
     
     /**
@@ -49,20 +95,41 @@ public class GameStateManager {
     public static class GameStateData {
         private final Long matchId;
         private final String gameCode;
-        private Object state; // 具体的游戏状态对象
-        private LocalDateTime lastUpdated;
-        private LocalDateTime lastAccessed;
+        private volatile Object state; // 具体的游戏状态对象，在冷数据区时为 null
+        private volatile LocalDateTime lastUpdated;
+        private volatile LocalDateTime lastAccessed;
         
         // 游戏会话元数据
+        // 回合数等只由对局信箱（MatchMailbox）串行写入，volatile 保证其他线程读到最新值
         private final Long roomId;
         private final LocalDateTime startedAt;
         private final Integer playerCount;
-        private Integer turnCount;
-        private LocalDateTime lastActionAt;
-        private String status; // playing, finished, aborted
-        private Long winnerId;
+        private volatile Integer turnCount;
+        private volatile LocalDateTime lastActionAt;
+        private volatile String status; // playing, finished, aborted
+        private volatile Long winnerId;
+        private final Long seed; // 对局随机种子，配合操作序列可复现整局
+        private final List<Long> playerIds; // 参与对局的玩家（用于 userId 索引）
+        private volatile Map<Long, Map<String, Object>> playerInfo; // 玩家展示信息（用户名、昵称），首次需要时由游戏服务写入
+        private long version; // 状态版本，每次 updateState 加一，对局日志按它对齐快照与指令
+        private long sizeBytes; // 已计入内存统计的大小（在本对象锁内与 state 一起更新）
+        private volatile boolean removed; // 已移出内存，之后的写入不再计入统计
+        private volatile boolean referenced; // 淘汰时钟的引用位，访问时置位
+        private long coldHandle = -1; // 冷数据区句柄，-1 表示状态在堆内
+        private GameStateManager owner; // 放入管理器时设置，用于从冷数据区读回
+        private volatile TimingWheel.Timeout expiryTimer; // 空闲过期检查
+        private volatile TimingWheel.Timeout spillTimer; // 移入冷数据区检查
         
         public GameStateData(Long matchId, String gameCode, Object state, Long roomId, Integer playerCount) {
+            this(matchId, gameCode, state, roomId, playerCount, null);
+        }
+        
+        public GameStateData(Long matchId, String gameCode, Object state, Long roomId, Integer playerCount, Long seed) {
+            this(matchId, gameCode, state, roomId, playerCount, seed, List.of());
+        }
+        
+        public GameStateData(Long matchId, String gameCode, Object state, Long roomId, Integer playerCount, Long seed,
+                             List<Long> playerIds) {
             this.matchId = matchId;
             this.gameCode = gameCode;
             this.state = state;
@@ -74,16 +141,42 @@ public class GameStateManager {
             this.turnCount = 0;
             this.lastActionAt = LocalDateTime.now();
             this.status = "playing";
+            this.seed = seed;
+            this.playerIds = List.copyOf(playerIds);
         }
         
-        public void updateState(Object newState) {
+        public synchronized long updateState(Object newState) {
             this.state = newState;
             this.lastUpdated = LocalDateTime.now();
             this.lastAccessed = LocalDateTime.now();
+            return ++version;
+        }
+        
+        /**
+         * 原子地读取状态及其版本（写日志快照时使用）
+         */
+        public synchronized VersionedState versionedState() {
+            return new VersionedState(getState(), version);
+        }
+        
+        /**
+         * 原子地读取状态的编码及其版本：在冷数据区时直接取出已编码的字节，不读回堆内（写日志检查点时使用）
+         */
+        public EncodedState encodedState() {
+            if (owner == null) throw new IllegalStateException("对局未放入管理器, matchId: " + matchId);
+            return owner.encode(this);
+        }
+        
+        /**
+         * 状态是否在冷数据区
+         */
+        public synchronized boolean isCold() {
+            return coldHandle >= 0;
         }
         
         public void markAccessed() {
             this.lastAccessed = LocalDateTime.now();
+            this.referenced = true;
         }
         
         public void incrementTurn() {
@@ -99,7 +192,10 @@ public class GameStateManager {
         // getters
         public Long getMatchId() { return matchId; }
         public String getGameCode() { return gameCode; }
-        public Object getState() { return state; }
+        public Object getState() {
+            Object current = state;
+            return current != null || owner == null ? current : owner.faultIn(this);
+        }
         public LocalDateTime getLastUpdated() { return lastUpdated; }
         public LocalDateTime getLastAccessed() { return lastAccessed; }
         public Long getRoomId() { return roomId; }
@@ -109,8 +205,24 @@ public class GameStateManager {
         public LocalDateTime getLastActionAt() { return lastActionAt; }
         public String getStatus() { return status; }
         public Long getWinnerId() { return winnerId; }
+        public Long getSeed() { return seed; }
+        public List<Long> getPlayerIds() { return playerIds; }
+        public Map<Long, Map<String, Object>> getPlayerInfo() { return playerInfo; }
+        public void setPlayerInfo(Map<Long, Map<String, Object>> playerInfo) { this.playerInfo = playerInfo; }
+        public synchronized long getVersion() { return version; }
+        public synchronized long getSizeBytes() { return sizeBytes; }
     }
     
+    /**
+     * 某一版本的游戏状态
+     */
+    public record VersionedState(Object state, long version) {}
+
+    /**
+     * 某一版本的游戏状态编码（与移入冷数据区时相同的 {@link StateCodec} 格式）
+     */
+    public record EncodedState(byte[] bytes, long version) {}
+
     /**
      * 房间内玩家状态
      */
@@ -122,6 +234,7 @@ public class GameStateManager {
         private LocalDateTime lastActiveAt;
         private Integer seatNo;
         private String team;
+        private volatile TimingWheel.Timeout expiryTimer; // 空闲过期检查
         
         public PlayerRoomState(Long userId, Long roomId) {
             this.userId = userId;
@@ -154,23 +267,193 @@ public class GameStateManager {
      * 创建新的游戏状态（带内存检查）
      */
     public void createGameState(Long matchId, String gameCode, Object initialState, Long roomId, Integer playerCount) {
-        // 检查是否超过最大游戏数限制
-        if (gameStates.size() >= MAX_ACTIVE_GAMES) {
-            // 强制清理最老的游戏状态
-            forceCleanupOldestGames(10);
-        }
-        
-        // 估算新游戏状态的内存占用
+        createGameState(matchId, gameCode, initialState, roomId, playerCount, null);
+    }
+    
+    /**
+     * 创建新的游戏状态，并记录对局随机种子
+     */
+    public void createGameState(Long matchId, String gameCode, Object initialState, Long roomId, Integer playerCount, Long seed) {
+        createGameState(matchId, gameCode, initialState, roomId, playerCount, seed, List.of());
+    }
+    
+    /**
+     * 创建新的游戏状态，并为房间和玩家建立索引
+     * 是否还有容量由调用方事先通过 {@link #reserveCapacity()}（经准入控制）确认，这里不再淘汰其他对局
+     */
+    public void createGameState(Long matchId, String gameCode, Object initialState, Long roomId, Integer playerCount, Long seed,
+                                List<Long> playerIds) {
+        // 计量新游戏状态的内存占用
         long estimatedSize = estimateGameStateSize(gameCode, initialState);
         
-        // 检查内存使用是否会超限
-        if (estimatedMemoryUsage + estimatedSize > MAX_MEMORY_MB * 1024 * 1024) {
-            // 强制清理以释放内存
-            forceCleanupOldestGames(20);
+        GameStateData data = new GameStateData(matchId, gameCode, initialState, roomId, playerCount, seed, playerIds);
+        put(data);
+        track(data, estimatedSize);
+    }
+    
+    /**
+     * 从对局日志恢复的游戏状态：沿用日志中的版本与回合数
+     */
+    public GameStateData restoreGameState(Long matchId, String gameCode, Object state, Long roomId,
+                                          List<Long> playerIds, Long seed, long version, int turnCount) {
+        GameStateData data = new GameStateData(matchId, gameCode, state, roomId, playerIds.size(), seed, playerIds);
+        data.version = version;
+        data.turnCount = turnCount;
+        put(data);
+        track(data, estimateGameStateSize(gameCode, state));
+        return data;
+    }
+    
+    /**
+     * 放入对局并建立索引（与 gameStates 的写入在同一个 compute 中完成）
+     */
+    private void put(GameStateData data) {
+        data.owner = this;
+        GameStateData[] replaced = new GameStateData[1];
+        gameStates.compute(data.getMatchId(), (id, previous) -> {
+            if (previous != null) unindex(previous);
+            if (data.getRoomId() != null) roomMatches.put(data.getRoomId(), id);
+            for (Long userId : data.getPlayerIds()) userMatches.put(userId, id);
+            replaced[0] = previous;
+            return data;
+        });
+        clock.offer(data);
+        if (replaced[0] != null) release(replaced[0]);
+        data.expiryTimer = timingWheel.schedule(expireHours, TimeUnit.HOURS, () -> expireIfIdle(data));
+        scheduleSpill(data, TimeUnit.MINUTES.toMillis(spillAfterMinutes));
+    }
+    
+    // ==================== 内存计量 ====================
+
+    /**
+     * 新放入的对局计入统计；若在此之前已被移除则不再计入
+     */
+    private void track(GameStateData data, long size) {
+        synchronized (data) {
+            if (data.removed) return;
+            charge(data.getGameCode(), size - data.sizeBytes);
+            data.sizeBytes = size;
         }
-        
-        gameStates.put(matchId, new GameStateData(matchId, gameCode, initialState, roomId, playerCount));
-        estimatedMemoryUsage += estimatedSize;
+    }
+    
+    /**
+     * 移出内存的对局从统计中扣除（只扣一次）
+     */
+    private void release(GameStateData data) {
+        synchronized (data) {
+            if (data.removed) return;
+            data.removed = true;
+            charge(data.getGameCode(), -data.sizeBytes);
+            if (data.coldHandle >= 0) {
+                coldStore.free(data.coldHandle);
+                data.coldHandle = -1;
+            }
+        }
+        cancel(data.expiryTimer);
+        cancel(data.spillTimer);
+        mailbox.discard(data.getMatchId());
+        // 死节点积累到与存活对局数相当时整体清扫一次，均摊到每次移除仍是 O(1)
+        if (clockGarbage.incrementAndGet() > gameStates.size() + 64) {
+            clockGarbage.set(0);
+            clock.removeIf(d -> d.removed);
+        }
+    }
+    
+    // ==================== 冷数据区 ====================
+
+    /**
+     * 注册某类游戏的状态编码，之后该类游戏的空闲对局会被移入冷数据区
+     */
+    public void registerStateCodec(String gameCode, StateCodec codec) {
+        codecs.put(gameCode, codec);
+    }
+    
+    /**
+     * 登记移入冷数据区的检查；到点时若期间有人访问过，按最后访问时间顺延
+     */
+    private void scheduleSpill(GameStateData data, long delayMillis) {
+        cancel(data.spillTimer);
+        data.spillTimer = timingWheel.schedule(delayMillis, TimeUnit.MILLISECONDS, () -> spillIfIdle(data));
+    }
+    
+    /**
+     * spillAfterMinutes 内无人访问的进行中对局序列化到堆外；已结束的对局很快会被淘汰，不再移动
+     */
+    private void spillIfIdle(GameStateData data) {
+        StateCodec codec = codecs.get(data.getGameCode());
+        if (data.removed || codec == null || !"playing".equals(data.getStatus())) return;
+        long remaining = untilIdle(data.getLastAccessed(), Duration.ofMinutes(spillAfterMinutes));
+        if (remaining > 0) {
+            scheduleSpill(data, remaining);
+            return;
+        }
+        try {
+            // 冷数据区已满时稍后再试
+            if (!spill(data, codec) && !data.removed) {
+                scheduleSpill(data, TimeUnit.MINUTES.toMillis(spillAfterMinutes));
+            }
+        } catch (Exception e) {
+            System.err.println("对局移入冷数据区失败, matchId: " + data.getMatchId() + " - " + e.getMessage());
+        }
+    }
+
+    private boolean spill(GameStateData data, StateCodec codec) {
+        synchronized (data) {
+            if (data.removed || data.state == null) return false;
+            long handle = coldStore.put(codec.encode(data.state));
+            if (handle < 0) return false;
+            data.coldHandle = handle;
+            data.state = null;
+            charge(data.getGameCode(), -data.sizeBytes);
+            data.sizeBytes = 0;
+        }
+        spilledCount.incrementAndGet();
+        return true;
+    }
+    
+    /**
+     * 从冷数据区读回状态（由 {@link GameStateData#getState()} 在状态不在堆内时调用）
+     */
+    private Object faultIn(GameStateData data) {
+        synchronized (data) {
+            if (data.state != null || data.coldHandle < 0) return data.state;
+            Object state = codecs.get(data.getGameCode()).decode(coldStore.get(data.coldHandle));
+            coldStore.free(data.coldHandle);
+            data.coldHandle = -1;
+            data.state = state;
+            long size = estimateGameStateSize(data.getGameCode(), state);
+            charge(data.getGameCode(), size - data.sizeBytes);
+            data.sizeBytes = size;
+            faultedCount.incrementAndGet();
+            scheduleSpill(data, TimeUnit.MINUTES.toMillis(spillAfterMinutes));
+            return state;
+        }
+    }
+    
+    /**
+     * 状态的编码：冷数据区中的对局直接复制其字节，堆内的对局现场编码；两种情况都不改变对局所在的位置
+     */
+    private EncodedState encode(GameStateData data) {
+        synchronized (data) {
+            if (data.coldHandle >= 0) return new EncodedState(coldStore.get(data.coldHandle), data.version);
+            StateCodec codec = codecs.get(data.getGameCode());
+            if (codec == null) throw new IllegalStateException("未注册状态编码: " + data.getGameCode());
+            return new EncodedState(codec.encode(data.state), data.version);
+        }
+    }
+
+    private void charge(String gameCode, long delta) {
+        if (delta == 0) return;
+        totalBytes.add(delta);
+        bytesByGame.computeIfAbsent(gameCode, k -> new LongAdder()).add(delta);
+    }
+    
+    /**
+     * 移除索引；只删除仍指向该对局的条目，不影响同一房间或玩家后来开的新局
+     */
+    private void unindex(GameStateData data) {
+        if (data.getRoomId() != null) roomMatches.remove(data.getRoomId(), data.getMatchId());
+        for (Long userId : data.getPlayerIds()) userMatches.remove(userId, data.getMatchId());
     }
     
     /**
@@ -187,9 +470,14 @@ public class GameStateManager {
      * 结束游戏
      */
     public void finishGame(Long matchId, String status, Long winnerId) {
-        GameStateData gameData = gameStates.get(matchId);
-        if (gameData != null) {
+        GameStateData finished = gameStates.computeIfPresent(matchId, (id, gameData) -> {
             gameData.finishGame(status, winnerId);
+            unindex(gameData);
+            return gameData;
+        });
+        // 日志队列满时 append 会阻塞，不能放在 computeIfPresent 里占着映射的桶锁
+        if (finished != null) {
+            journal.append(MatchJournal.FINISHED, matchId, finished.getVersion(), new byte[0]);
         }
     }
     
@@ -218,12 +506,23 @@ public class GameStateManager {
     }
     
     /**
-     * 更新游戏状态
+     * 更新游戏状态，返回新的状态版本（对局不存在时返回 -1）
      */
-    public void updateGameState(Long matchId, Object newState) {
+    public long updateGameState(Long matchId, Object newState) {
         GameStateData data = gameStates.get(matchId);
-        if (data != null) {
-            data.updateState(newState);
+        if (data == null) return -1;
+        long size = estimateGameStateSize(data.getGameCode(), newState);
+        synchronized (data) {
+            if (data.removed) return -1;
+            if (data.coldHandle >= 0) {
+                coldStore.free(data.coldHandle);
+                data.coldHandle = -1;
+                scheduleSpill(data, TimeUnit.MINUTES.toMillis(spillAfterMinutes));
+            }
+            long version = data.updateState(newState);
+            charge(data.getGameCode(), size - data.sizeBytes);
+            data.sizeBytes = size;
+            return version;
         }
     }
     
@@ -231,19 +530,34 @@ public class GameStateManager {
      * 删除游戏状态
      */
     public void removeGameState(Long matchId) {
-        GameStateData removed = gameStates.remove(matchId);
+        removeGameState(matchId, null);
+    }
+    
+    /**
+     * 删除游戏状态；expected 不为空时只在当前对象仍是它时删除（定时任务使用，避免删掉同编号的新对象）
+     */
+    private void removeGameState(Long matchId, GameStateData expected) {
+        GameStateData[] removedHolder = new GameStateData[1];
+        gameStates.computeIfPresent(matchId, (id, data) -> {
+            if (expected != null && data != expected) return data;
+            unindex(data);
+            removedHolder[0] = data;
+            return null;
+        });
+        GameStateData removed = removedHolder[0];
         if (removed != null) {
-            // 减少内存使用估算
-            long estimatedSize = estimateGameStateSize(removed.getGameCode(), removed.getState());
-            estimatedMemoryUsage = Math.max(0, estimatedMemoryUsage - estimatedSize);
+            journal.append(MatchJournal.FINISHED, matchId, removed.getVersion(), new byte[0]);
+            release(removed);
         }
     }
     
     /**
-     * 估算游戏状态内存占用
+     * 计量游戏状态内存占用：状态自报大小的按实际内容计算，否则按游戏类型取估值
      */
     private long estimateGameStateSize(String gameCode, Object state) {
-        // 根据游戏类型估算内存占用
+        if (state instanceof MemoryFootprint footprint) {
+            return footprint.estimatedBytes();
+        }
         return switch (gameCode.toLowerCase()) {
             case "uno" -> 1500; // UNO游戏约1.5KB
             case "chess" -> 2000; // 象棋约2KB
@@ -253,31 +567,107 @@ public class GameStateManager {
     }
     
     /**
-     * 强制清理最老的游戏状态
+     * 为一个新对局腾出位置：对局数或计量内存到达上限时，按淘汰时钟移出已结束的对局，
+     * 计量内存仍超限时再把空闲的进行中对局移入冷数据区，返回之后是否还有空位
+     * 进行中的对局不会因此被移出内存；没有空位时由调用方拒绝新对局
      */
-    private void forceCleanupOldestGames(int count) {
-        gameStates.entrySet().stream()
-            .sorted((e1, e2) -> e1.getValue().getLastAccessed().compareTo(e2.getValue().getLastAccessed()))
-            .limit(count)
-            .map(Map.Entry::getKey)
-            .forEach(this::removeGameState);
+    public boolean reserveCapacity() {
+        int over = gameStates.size() - maxActiveGames + 1;
+        if (over > 0) evictFinishedGames(Math.max(over, 10));
+        long limitBytes = maxMemoryMb * 1024 * 1024;
+        if (totalBytes.sum() >= limitBytes) {
+            evictFinishedGames(20);
+            if (totalBytes.sum() >= limitBytes) spillIdleGames(Duration.ofMinutes(CAPACITY_SPILL_IDLE_MINUTES));
+        }
+        return gameStates.size() < maxActiveGames && totalBytes.sum() < limitBytes;
     }
     
     /**
-     * 检查内存使用情况
+     * 按淘汰时钟移出至多 count 个已结束的对局，返回实际移出数
+     * 进行中的对局永远不会被移出；
+     * 每次最多检查 count * 32 个节点（且不超过两圈），指针位置保留在队列中，下次从这里继续
      */
-    private void checkMemoryUsage() {
-        Runtime runtime = Runtime.getRuntime();
-        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
-        long maxMemory = runtime.maxMemory();
-        
-        // 如果JVM内存使用超过80%，强制清理
-        if (usedMemory > maxMemory * 0.8) {
-            System.gc(); // 建议垃圾回收
-            forceCleanupOldestGames(50); // 清理50个最老的游戏状态
+    private int evictFinishedGames(int count) {
+        int evicted = 0;
+        int budget = Math.min(count * 32, 2 * gameStates.size() + clockGarbage.get());
+        while (evicted < count && budget-- > 0) {
+            GameStateData data = clock.poll();
+            if (data == null) break;
+            if (data.removed) {
+                clockGarbage.decrementAndGet();
+                continue;
+            }
+            if (isEvictable(data)) {
+                removeGameState(data.getMatchId());
+                // 节点已由指针取出，不算作队列中的死节点
+                clockGarbage.decrementAndGet();
+                evicted++;
+            } else {
+                clock.offer(data);
+            }
+        }
+        if (evicted > 0) {
+            System.out.println("GameStateManager: 淘汰了 " + evicted + " 个已结束的对局");
+        }
+        return evicted;
+    }
+
+    private static boolean isEvictable(GameStateData data) {
+        if ("playing".equals(data.getStatus())) return false;
+        // 已结束但近期被访问过（如仍在查看结算）：给第二次机会
+        if (data.referenced) {
+            data.referenced = false;
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 内存压力处理：SPILL 起提前把空闲 1 分钟的对局移入冷数据区；
+     * SHRINK 起再淘汰至多 50 个已结束的对局，并把 10 秒内无人操作的对局也移出堆；
+     * 缓存的清理由各自的服务在 {@link MemoryPressureMonitor} 上登记处理
+     */
+    private void relievePressure(MemoryPressureMonitor.Level level) {
+        int evicted = 0;
+        if (level.compareTo(MemoryPressureMonitor.Level.SHRINK) >= 0) {
+            evicted = evictFinishedGames(50);
+        }
+        Duration idle = level.compareTo(MemoryPressureMonitor.Level.SHRINK) >= 0 ? Duration.ofSeconds(10) : Duration.ofMinutes(1);
+        int spilled = spillIdleGames(idle);
+        if (evicted > 0 || spilled > 0) {
+            System.out.println("GameStateManager: 内存压力 " + level + "，移入冷数据区 " + spilled + " 个对局，淘汰 " + evicted + " 个对局");
         }
     }
     
+    /**
+     * 把 idle 内无人访问的进行中对局立即移入冷数据区，返回移动的数量
+     */
+    private int spillIdleGames(Duration idle) {
+        int spilled = 0;
+        for (GameStateData data : gameStates.values()) {
+            StateCodec codec = codecs.get(data.getGameCode());
+            if (codec == null || data.state == null || !"playing".equals(data.getStatus())) continue;
+            if (untilIdle(data.getLastAccessed(), idle) > 0) continue;
+            try {
+                if (spill(data, codec)) {
+                    // 读回时会重新登记
+                    cancel(data.spillTimer);
+                    spilled++;
+                }
+            } catch (Exception e) {
+                System.err.println("对局移入冷数据区失败, matchId: " + data.getMatchId() + " - " + e.getMessage());
+            }
+        }
+        return spilled;
+    }
+    
+    /**
+     * 所有内存中的对局（只读视图）
+     */
+    public Collection<GameStateData> getAllGameSessions() {
+        return Collections.unmodifiableCollection(gameStates.values());
+    }
+    
     /**
      * 检查游戏是否存在
      */
@@ -289,10 +679,20 @@ public class GameStateManager {
      * 根据房间ID查找当前进行中的对局
      */
     public Optional<GameStateData> getGameSessionByRoomId(Long roomId) {
-        return gameStates.values().stream()
-                .filter(gameData -> roomId.equals(gameData.getRoomId()))
-                .filter(gameData -> "playing".equals(gameData.getStatus()))
-                .findFirst();
+        return playingSession(roomMatches.get(roomId));
+    }
+    
+    /**
+     * 根据玩家ID查找其进行中的对局（重连时使用）
+     */
+    public Optional<GameStateData> getGameSessionByUserId(Long userId) {
+        return playingSession(userMatches.get(userId));
+    }
+
+    private Optional<GameStateData> playingSession(Long matchId) {
+        if (matchId == null) return Optional.empty();
+        GameStateData gameData = gameStates.get(matchId);
+        return gameData != null && "playing".equals(gameData.getStatus()) ? Optional.of(gameData) : Optional.empty();
     }
     
     // ==================== 房间玩家状态管理 ====================
@@ -301,8 +701,11 @@ public class GameStateManager {
      * 玩家加入房间
      */
     public void joinRoom(Long roomId, Long userId) {
-        roomPlayers.computeIfAbsent(roomId, k -> new ConcurrentHashMap<>())
-                   .put(userId, new PlayerRoomState(userId, roomId));
+        PlayerRoomState state = new PlayerRoomState(userId, roomId);
+        PlayerRoomState previous = roomPlayers.computeIfAbsent(roomId, k -> new ConcurrentHashMap<>())
+                   .put(userId, state);
+        if (previous != null) cancel(previous.expiryTimer);
+        state.expiryTimer = timingWheel.schedule(expireHours, TimeUnit.HOURS, () -> expireIfIdle(state));
     }
     
     /**
@@ -311,9 +714,10 @@ public class GameStateManager {
     public void leaveRoom(Long roomId, Long userId) {
         Map<Long, PlayerRoomState> players = roomPlayers.get(roomId);
         if (players != null) {
-            players.remove(userId);
+            PlayerRoomState removed = players.remove(userId);
+            if (removed != null) cancel(removed.expiryTimer);
             if (players.isEmpty()) {
-                roomPlayers.remove(roomId);
+                roomPlayers.remove(roomId, players);
             }
         }
     }
@@ -358,7 +762,8 @@ public class GameStateManager {
      * 清空房间所有玩家
      */
     public void clearRoom(Long roomId) {
-        roomPlayers.remove(roomId);
+        Map<Long, PlayerRoomState> players = roomPlayers.remove(roomId);
+        if (players != null) players.values().forEach(state -> cancel(state.expiryTimer));
     }
     
     // ==================== 统计和维护 ====================
@@ -386,30 +791,71 @@ public class GameStateManager {
                 .sum();
     }
     
+    // ==================== 容量限制 ====================
+
+    public int getMaxActiveGames() { return maxActiveGames; }
+
+    public void setMaxActiveGames(int maxActiveGames) {
+        if (maxActiveGames <= 0) throw new IllegalArgumentException("最大活跃对局数必须大于 0");
+        this.maxActiveGames = maxActiveGames;
+    }
+
+    public long getMaxMemoryMb() { return maxMemoryMb; }
+
+    public void setMaxMemoryMb(long maxMemoryMb) {
+        if (maxMemoryMb <= 0) throw new IllegalArgumentException("对局内存上限必须大于 0");
+        this.maxMemoryMb = maxMemoryMb;
+    }
+
+    public long getExpireHours() { return expireHours; }
+
+    /**
+     * 调整过期时间；已登记的过期检查仍在原时间到点，届时按新值判断是否过期
+     */
+    public void setExpireHours(long expireHours) {
+        if (expireHours <= 0) throw new IllegalArgumentException("过期时间必须大于 0");
+        this.expireHours = expireHours;
+    }
+    
+    // ==================== 过期 ====================
+
     /**
-     * 清理过期状态
+     * 对局的过期检查到点：expireHours 内无人访问则移除（经 removeGameState 同步索引、内存统计与对局日志），
+     * 否则按最后访问时间重新登记；访问本身不触碰时间轮
      */
-    private void cleanupExpiredStates() {
-        LocalDateTime expireTime = LocalDateTime.now().minusHours(EXPIRE_HOURS);
-        
-        // 清理过期的游戏状态
-        gameStates.entrySet().removeIf(entry -> {
-            boolean expired = entry.getValue().getLastAccessed().isBefore(expireTime);
-            if (expired) {
-                // 减少内存使用估算
-                long estimatedSize = estimateGameStateSize(entry.getValue().getGameCode(), entry.getValue().getState());
-                estimatedMemoryUsage = Math.max(0, estimatedMemoryUsage - estimatedSize);
-            }
-            return expired;
-        });
-        
-        // 清理过期的房间玩家状态
-        roomPlayers.entrySet().removeIf(entry -> {
-            Map<Long, PlayerRoomState> players = entry.getValue();
-            players.entrySet().removeIf(playerEntry -> 
-                playerEntry.getValue().getLastActiveAt().isBefore(expireTime));
-            return players.isEmpty();
-        });
+    private void expireIfIdle(GameStateData data) {
+        if (data.removed) return;
+        long remaining = untilIdle(data.getLastAccessed(), Duration.ofHours(expireHours));
+        if (remaining > 0) {
+            data.expiryTimer = timingWheel.schedule(remaining, TimeUnit.MILLISECONDS, () -> expireIfIdle(data));
+        } else {
+            removeGameState(data.getMatchId(), data);
+        }
+    }
+    
+    /**
+     * 房间玩家的过期检查，规则同对局
+     */
+    private void expireIfIdle(PlayerRoomState state) {
+        Map<Long, PlayerRoomState> players = roomPlayers.get(state.getRoomId());
+        if (players == null || players.get(state.getUserId()) != state) return;
+        long remaining = untilIdle(state.getLastActiveAt(), Duration.ofHours(expireHours));
+        if (remaining > 0) {
+            state.expiryTimer = timingWheel.schedule(remaining, TimeUnit.MILLISECONDS, () -> expireIfIdle(state));
+        } else if (players.remove(state.getUserId(), state) && players.isEmpty()) {
+            roomPlayers.remove(state.getRoomId(), players);
+        }
+    }
+    
+    /**
+     * 距离空闲满 idle 还有多少毫秒，已满时返回 0
+     */
+    private static long untilIdle(LocalDateTime lastActive, Duration idle) {
+        return Math.max(0, Duration.between(LocalDateTime.now(), lastActive.plus(idle)).toMillis());
+    }
+
+    private static void cancel(TimingWheel.Timeout timeout) {
+        if (timeout != null) timeout.cancel();
     }
     
     /**
@@ -420,10 +866,11 @@ public class GameStateManager {
         stats.put("activeGames", gameStates.size());
         stats.put("activeRooms", roomPlayers.size());
         stats.put("totalOnlinePlayers", getTotalOnlinePlayerCount());
-        stats.put("estimatedMemoryUsage", estimatedMemoryUsage);
-        stats.put("estimatedMemoryUsageMB", estimatedMemoryUsage / (1024.0 * 1024.0));
-        stats.put("maxActiveGames", MAX_ACTIVE_GAMES);
-        stats.put("maxMemoryMB", MAX_MEMORY_MB);
+        long usedBytes = totalBytes.sum();
+        stats.put("estimatedMemoryUsage", usedBytes);
+        stats.put("estimatedMemoryUsageMB", usedBytes / (1024.0 * 1024.0));
+        stats.put("maxActiveGames", maxActiveGames);
+        stats.put("maxMemoryMB", maxMemoryMb);
         
         // 按游戏类型统计
         Map<String, Long> gameTypeStats = new ConcurrentHashMap<>();
@@ -431,24 +878,83 @@ public class GameStateManager {
             gameTypeStats.merge(data.getGameCode(), 1L, Long::sum));
         stats.put("gamesByType", gameTypeStats);
         
+        // 按游戏类型的内存占用
+        Map<String, Long> bytesByType = new HashMap<>();
+        bytesByGame.forEach((gameCode, bytes) -> bytesByType.put(gameCode, bytes.sum()));
+        stats.put("memoryByType", bytesByType);
+        
+        // 冷数据区
+        Map<String, Object> cold = new HashMap<>();
+        cold.put("games", coldStore.getEntryCount());
+        cold.put("storedBytes", coldStore.getStoredBytes());
+        cold.put("slotBytes", coldStore.getSlotBytes());
+        cold.put("reservedBytes", coldStore.getReservedBytes());
+        cold.put("maxBytes", coldStore.getMaxBytes());
+        cold.put("spilled", spilledCount.get());
+        cold.put("faultedIn", faultedCount.get());
+        stats.put("coldTier", cold);
+        stats.put("scheduledTimers", timingWheel.getScheduledCount());
+        
         // 内存使用率
-        double memoryUsagePercent = (estimatedMemoryUsage * 100.0) / (MAX_MEMORY_MB * 1024 * 1024);
+        double memoryUsagePercent = (usedBytes * 100.0) / (maxMemoryMb * 1024 * 1024);
         stats.put("memoryUsagePercent", Math.round(memoryUsagePercent * 100.0) / 100.0);
         
         // 游戏数量使用率
-        double gameCountPercent = (gameStates.size() * 100.0) / MAX_ACTIVE_GAMES;
+        double gameCountPercent = (gameStates.size() * 100.0) / maxActiveGames;
         stats.put("gameCountPercent", Math.round(gameCountPercent * 100.0) / 100.0);
         
         return stats;
     }
     
+    /**
+     * 单局内存明细
+     */
+    public Optional<Map<String, Object>> getMatchMemory(Long matchId) {
+        GameStateData data = gameStates.get(matchId);
+        return data == null ? Optional.empty() : Optional.of(matchMemory(data));
+    }
+    
+    /**
+     * 占用内存最多的若干对局
+     */
+    public List<Map<String, Object>> getLargestMatches(int limit) {
+        return gameStates.values().stream()
+                .sorted(Comparator.comparingLong(GameStateData::getSizeBytes).reversed())
+                .limit(limit)
+                .map(this::matchMemory)
+                .toList();
+    }
+
+    private Map<String, Object> matchMemory(GameStateData data) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("matchId", data.getMatchId());
+        result.put("gameCode", data.getGameCode());
+        result.put("roomId", data.getRoomId());
+        result.put("status", data.getStatus());
+        result.put("version", data.getVersion());
+        result.put("turnCount", data.getTurnCount());
+        result.put("bytes", data.getSizeBytes());
+        // 查看明细不把冷数据区中的对局读回堆内
+        Object state = data.state;
+        result.put("cold", state == null && data.isCold());
+        if (state instanceof MemoryFootprint footprint) {
+            result.put("breakdown", footprint.footprintBreakdown());
+        }
+        return result;
+    }
+    
     /**
      * 清空所有状态 - 用于服务重启时的初始化
      */
     public void clearAllStates() {
+        gameStates.values().forEach(this::release);
         gameStates.clear();
+        clock.clear();
+        clockGarbage.set(0);
+        roomMatches.clear();
+        userMatches.clear();
+        roomPlayers.values().forEach(players -> players.values().forEach(state -> cancel(state.expiryTimer)));
         roomPlayers.clear();
-        estimatedMemoryUsage = 0;
         System.out.println("GameStateManager: 已清空所有游戏状态和房间玩家状态");
     }
 }
\ No newline at end of file
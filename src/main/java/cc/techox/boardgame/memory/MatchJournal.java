@@ -0,0 +1,320 @@
+package cc.techox.boardgame.memory;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 对局预写日志（本节点）
+ * 只追加的分段文件，记录对局快照、每条被接受的指令以及对局结束，重启时据此重建内存中的对局
+ *
+ * 组提交：调用方只把记录放入队列就返回，单独的写线程把队列中积攒的记录一次写入并 fsync 一次，
+ * 出牌路径不会等待单条记录落盘；当前分段超过上限时写线程用 checkpoint 快照开新分段并删除旧分段
+ *
+ * 写入失败时当前分段尾部可能已残缺，之后追加的记录恢复时也读不到，因此不在原分段上重试：
+ * 日志标记为失败，立即用 checkpoint 快照开新分段重建（失败的这批及失败期间到达的记录都已包含在快照中），
+ * 重建成功前每秒重试一次
+ *
+ * 记录格式：[int 长度][int CRC32][byte 类型][long matchId][long 版本][payload]，
+ * 读取时遇到不完整或校验失败的记录即视为崩溃时的残尾，之后的内容丢弃
+ */
+@Component
+public class MatchJournal {
+    public static final byte SNAPSHOT = 1; // 完整对局状态（开局时写一次，之后按间隔写）
+    public static final byte COMMAND = 2;  // 一条被接受的指令
+    public static final byte FINISHED = 3; // 对局结束，恢复时跳过
+
+    private static final int HEADER = 8;
+    private static final int BODY_PREFIX = 1 + 8 + 8;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    /**
+     * 一条日志记录
+     * @param version 对局状态版本，恢复时按版本跳过已包含在快照中的指令
+     */
+    public record Entry(byte type, long matchId, long version, byte[] payload) {}
+
+    private final boolean enabled;
+    private final Path dir;
+    private final long maxSegmentBytes;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>(65536);
+
+    // 统计
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong syncNanos = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile Supplier<List<Entry>> checkpointSource = List::of;
+    private FileChannel channel;
+    private long segmentSeq;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean failed;
+
+    public MatchJournal(@Value("${boardgame.journal.enabled:true}") boolean enabled,
+                        @Value("${boardgame.journal.dir:data/journal}") String dir,
+                        @Value("${boardgame.journal.max-segment-mb:64}") long maxSegmentMb) {
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.maxSegmentBytes = maxSegmentMb * 1024 * 1024;
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    // ==================== 启动与恢复 ====================
+
+    /**
+     * 按写入顺序读出所有分段中的完整记录
+     */
+    public List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!enabled || !Files.isDirectory(dir)) return entries;
+        for (Path segment : segments()) {
+            if (!readSegment(segment, entries)) {
+                System.err.println("对局日志 " + segment.getFileName() + " 尾部不完整，已忽略残尾");
+                break;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 以 base（恢复出的对局快照）开一个新分段、删除旧分段，然后启动写线程
+     * 恢复完成后调用一次；此前 append 的记录会在新分段的 base 之后写入
+     *
+     * @param checkpoint 分段轮转时提供所有进行中对局的快照
+     */
+    public synchronized void start(List<Entry> base, Supplier<List<Entry>> checkpoint) throws IOException {
+        if (!enabled || running) return;
+        this.checkpointSource = checkpoint;
+        Files.createDirectories(dir);
+        List<Path> old = segments();
+        segmentSeq = old.isEmpty() ? 1 : sequenceOf(old.get(old.size() - 1)) + 1;
+        openSegment(base, old);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "match-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        System.out.println("对局日志已启动: " + dir.toAbsolutePath() + "，基线快照 " + base.size() + " 条");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!running) return;
+        // 不中断写线程：中断会关闭正在写入的 FileChannel；写线程最多等一个轮询周期后自行退出
+        // 队列尾部由写线程自己写完并关闭分段，这里只等待它退出
+        running = false;
+        try {
+            writer.join(5000);
+            if (writer.isAlive()) System.err.println("对局日志写线程 5 秒内未退出，尾部记录仍由它写完后关闭分段");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== 追加 ====================
+
+    /**
+     * 追加一条记录，只入队不等待落盘；队列满时阻塞等待写线程（背压）
+     */
+    public void append(byte type, long matchId, long version, byte[] payload) {
+        if (!enabled) return;
+        try {
+            queue.put(new Entry(type, matchId, version, payload));
+            appended.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        long retryAt = 0;
+        while (running) {
+            try {
+                if (failed) {
+                    long wait = retryAt - System.currentTimeMillis();
+                    if (wait > 0) Thread.sleep(wait);
+                    // 排队中的记录会被接下来的快照覆盖，先丢弃，出牌路径不会因背压卡住
+                    queue.clear();
+                    rotate();
+                    failed = false;
+                    System.out.println("对局日志已用快照重建，恢复写入");
+                    continue;
+                }
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch);
+                writeBatch(batch);
+                if (channel.size() > maxSegmentBytes) rotate();
+            } catch (InterruptedException e) {
+                if (!running) break;
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                System.err.println("写入对局日志失败，将用快照重建日志: " + e.getMessage());
+                // 首次失败立即重建，重建本身失败时隔一秒再试
+                retryAt = failed ? System.currentTimeMillis() + 1000 : 0;
+                failed = true;
+            } finally {
+                batch.clear();
+            }
+        }
+        flushAndClose();
+    }
+
+    /**
+     * 停止后写完队列中剩余的记录并关闭分段；只在写线程上执行，FileChannel 始终只有这一个线程访问
+     */
+    private void flushAndClose() {
+        try {
+            List<Entry> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            if (failed) rotate();
+            else if (!rest.isEmpty()) writeBatch(rest);
+        } catch (Exception e) {
+            System.err.println("关闭对局日志失败: " + e.getMessage());
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("关闭对局日志分段失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 一批记录一次写入、一次 fsync
+     */
+    private void writeBatch(List<Entry> batch) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(batch.stream().mapToInt(e -> HEADER + BODY_PREFIX + e.payload().length).sum());
+        for (Entry e : batch) encode(e, buf);
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        long start = System.nanoTime();
+        channel.force(false);
+        syncNanos.addAndGet(System.nanoTime() - start);
+        batches.incrementAndGet();
+    }
+
+    /**
+     * 当前分段过大：用所有进行中对局的快照开新分段，旧分段随即删除
+     */
+    private void rotate() throws IOException {
+        List<Path> old = segments();
+        segmentSeq++;
+        openSegment(checkpointSource.get(), old);
+    }
+
+    private void openSegment(List<Entry> base, List<Path> old) throws IOException {
+        Path path = dir.resolve(PREFIX + String.format("%012d", segmentSeq) + SUFFIX);
+        FileChannel next = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        FileChannel previous = channel;
+        channel = next;
+        try {
+            if (!base.isEmpty()) writeBatch(base);
+            else channel.force(true);
+        } finally {
+            if (previous != null) previous.close();
+        }
+        // 新分段完整落盘后才删除旧分段
+        for (Path p : old) Files.deleteIfExists(p);
+    }
+
+    // ==================== 编解码 ====================
+
+    private static void encode(Entry e, ByteBuffer buf) {
+        int length = BODY_PREFIX + e.payload().length;
+        int start = buf.position();
+        buf.putInt(length).putInt(0);
+        buf.put(e.type()).putLong(e.matchId()).putLong(e.version()).put(e.payload());
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), start + HEADER, length);
+        buf.putInt(start + 4, (int) crc.getValue());
+    }
+
+    /**
+     * 读取一个分段，返回是否完整读到末尾
+     */
+    private static boolean readSegment(Path segment, List<Entry> out) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(segment));
+        while (buf.remaining() >= HEADER) {
+            int length = buf.getInt();
+            int checksum = buf.getInt();
+            if (length < BODY_PREFIX || length > buf.remaining()) return false;
+            CRC32 crc = new CRC32();
+            crc.update(buf.array(), buf.position(), length);
+            if ((int) crc.getValue() != checksum) return false;
+            byte type = buf.get();
+            long matchId = buf.getLong();
+            long version = buf.getLong();
+            byte[] payload = new byte[length - BODY_PREFIX];
+            buf.get(payload);
+            out.add(new Entry(type, matchId, version, payload));
+        }
+        return !buf.hasRemaining();
+    }
+
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // ==================== 统计 ====================
+
+    public long getAppendedCount() { return appended.get(); }
+
+    public long getBatchCount() { return batches.get(); }
+
+    public int getQueueDepth() { return queue.size(); }
+
+    /**
+     * 写入失败次数；isFailed 为 true 表示正在等待用快照重建
+     */
+    public long getFailureCount() { return failures.get(); }
+
+    public boolean isFailed() { return failed; }
+
+    /**
+     * 平均每批记录数（组提交的合并程度）
+     */
+    public double getAverageBatchSize() {
+        long b = batches.get();
+        return b == 0 ? 0 : (double) appended.get() / b;
+    }
+
+    public double getAverageSyncMillis() {
+        long b = batches.get();
+        return b == 0 ? 0 : syncNanos.get() / 1e6 / b;
+    }
+}
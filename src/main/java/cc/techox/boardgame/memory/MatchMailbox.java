@@ -0,0 +1,150 @@
+package cc.techox.boardgame.memory;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 对局信箱（单写者执行模型）
+ * 每个对局一个信箱，改动对局状态的指令按到达顺序排进信箱，由共享线程池串行执行：
+ * 同一对局的指令不会交错、也不需要加锁，不同对局在多个核上并行
+ *
+ * 同一时刻一个信箱最多占用一个池线程；每次最多连续执行 BATCH 条后让出线程，避免热门对局饿死其他对局。
+ * 在信箱线程内再次提交同一对局的指令时直接执行（可重入），对局移出内存时信箱随之丢弃
+ *
+ * 线程池按 CPU 核数设置，只适合纯内存的计算：信箱内的指令不能做数据库等阻塞 I/O。
+ * 需要的数据在进入信箱之前准备好（如开局时缓存的玩家信息），写库交给信箱之外的线程（如对局结束时重置房间状态）
+ */
+@Component
+public class MatchMailbox {
+    private static final int BATCH = 64;
+
+    // 当前线程正在执行的对局
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private final ExecutorService pool;
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final class Mailbox implements Runnable {
+        private final long matchId;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Mailbox(long matchId) {
+            this.matchId = matchId;
+        }
+
+        void enqueue(Runnable task) {
+            queued.incrementAndGet();
+            queue.offer(task);
+            if (scheduled.compareAndSet(false, true)) pool.execute(this);
+        }
+
+        @Override
+        public void run() {
+            CURRENT.set(matchId);
+            try {
+                Runnable task;
+                for (int n = 0; n < BATCH && (task = queue.poll()) != null; n++) {
+                    queued.decrementAndGet();
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        System.err.println("对局指令执行失败, matchId: " + matchId + " - " + e.getMessage());
+                    }
+                }
+            } finally {
+                CURRENT.remove();
+                scheduled.set(false);
+                // 释放标记后再检查一次，避免与刚入队的指令互相错过
+                if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) pool.execute(this);
+            }
+        }
+    }
+
+    public MatchMailbox(@Value("${boardgame.mailbox.threads:0}") int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(size, r -> {
+            Thread t = new Thread(r, "match-mailbox-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 在对局信箱中执行 task 并等待结果；task 抛出的异常原样抛给调用方
+     */
+    public <T> T call(long matchId, Supplier<T> task) {
+        Long current = CURRENT.get();
+        if (current != null && current == matchId) return task.get();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        mailboxes.computeIfAbsent(matchId, Mailbox::new).enqueue(() -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    /**
+     * 在对局信箱中执行 task 并等待其完成
+     */
+    public void run(long matchId, Runnable task) {
+        call(matchId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 把 task 排进对局信箱后立即返回，不等待执行；供时间轮回调等不能阻塞的调用方使用。
+     * task 抛出的异常只记录日志
+     */
+    public void post(long matchId, Runnable task) {
+        mailboxes.computeIfAbsent(matchId, Mailbox::new).enqueue(task);
+    }
+
+    /**
+     * 对局移出内存后丢弃其信箱；之后迟到的指令会建一个新信箱，并因对局不存在而失败
+     */
+    public void discard(long matchId) {
+        mailboxes.remove(matchId);
+    }
+
+    // ==================== 统计 ====================
+
+    /**
+     * 所有信箱中排队等待执行的指令数
+     */
+    public int getQueuedCount() { return queued.get(); }
+
+    public int getMailboxCount() { return mailboxes.size(); }
+}
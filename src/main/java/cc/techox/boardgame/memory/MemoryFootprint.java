@@ -0,0 +1,22 @@
+package cc.techox.boardgame.memory;
+
+import java.util.Map;
+
+/**
+ * 可自报内存占用的游戏状态
+ * GameStateManager 在状态写入时按实际内容（手牌、牌堆长度等）计量，而不是按游戏类型取固定估值
+ */
+public interface MemoryFootprint {
+
+    /**
+     * 按 64 位 JVM（压缩指针）估算的状态大小（字节）
+     */
+    long estimatedBytes();
+
+    /**
+     * 按组成部分拆分的大小，用于单局内存明细；各项之和等于 {@link #estimatedBytes()}
+     */
+    default Map<String, Long> footprintBreakdown() {
+        return Map.of("total", estimatedBytes());
+    }
+}
@@ -0,0 +1,254 @@
+package cc.techox.boardgame.memory;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内存压力监控
+ * 在老年代内存池上设置占用阈值与 GC 后占用阈值，由 JVM 在越过阈值时发出通知，不再定时轮询，也从不主动触发 GC
+ *
+ * 压力分级（高一级同时包含低一级的处理）：
+ * SPILL  —— 老年代占用越过 spill 比例（可能含未回收的垃圾）：提前把空闲对局移入冷数据区；
+ * SHRINK —— GC 后仍有 shrink 比例的数据存活：淘汰已结束的对局，各服务清理自己登记的缓存
+ *            （已结束对局的玩家信息、机器人托管的座位与用户缓存；UnoCards 的牌面对象是固定的几十个常量，不属于缓存）；
+ * SHED   —— GC 后存活数据达到 shed 比例：准入控制拒绝新对局。
+ * 处于压力状态时每隔 RECHECK_SECONDS 读一次内存池的统计重新分级，直到回到 NORMAL
+ */
+@Component
+public class MemoryPressureMonitor {
+    private static final long RECHECK_SECONDS = 10;
+
+    public enum Level { NORMAL, SPILL, SHRINK, SHED }
+
+    /**
+     * 压力处理；在时间轮的工作线程上调用，level 不为 NORMAL
+     */
+    public interface PressureListener {
+        void onPressure(Level level);
+    }
+
+    private final TimingWheel timingWheel;
+    private final List<MemoryPoolMXBean> oldGenPools;
+    private final List<MemoryPoolMXBean> heapPools;
+    private final List<PressureListener> listeners = new CopyOnWriteArrayList<>();
+    private final NotificationListener notificationListener = this::handleNotification;
+    private final AtomicBoolean evaluationPending = new AtomicBoolean();
+    private final AtomicBoolean rechecking = new AtomicBoolean();
+
+    private volatile int spillPercent;
+    private volatile int shrinkPercent;
+    private volatile int shedPercent;
+    private volatile Level level = Level.NORMAL;
+
+    // 统计
+    private final AtomicLong usageNotifications = new AtomicLong();
+    private final AtomicLong collectionNotifications = new AtomicLong();
+    private final Map<Level, AtomicLong> responses = new LinkedHashMap<>();
+
+    public MemoryPressureMonitor(TimingWheel timingWheel,
+                                 @Value("${boardgame.capacity.spill-heap-percent:65}") int spillPercent,
+                                 @Value("${boardgame.capacity.shrink-heap-percent:75}") int shrinkPercent,
+                                 @Value("${boardgame.capacity.max-heap-percent:85}") int shedPercent) {
+        this.timingWheel = timingWheel;
+        this.heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        // 支持占用阈值的堆内存池即老年代（G1 Old Gen、PS Old Gen、Tenured Gen 等），新生代不支持
+        this.oldGenPools = heapPools.stream()
+                .filter(pool -> pool.isUsageThresholdSupported() && pool.isCollectionUsageThresholdSupported())
+                .toList();
+        for (Level l : Level.values()) responses.put(l, new AtomicLong());
+        checkThresholds(spillPercent, shrinkPercent, shedPercent);
+        this.spillPercent = spillPercent;
+        this.shrinkPercent = shrinkPercent;
+        this.shedPercent = shedPercent;
+        applyThresholds();
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(notificationListener, null, null);
+        if (oldGenPools.isEmpty()) {
+            System.err.println("MemoryPressureMonitor: 当前垃圾回收器没有支持阈值通知的老年代内存池，内存压力处理不可用");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(notificationListener);
+        } catch (ListenerNotFoundException ignored) {
+        }
+    }
+
+    public void addListener(PressureListener listener) {
+        listeners.add(listener);
+    }
+
+    // ==================== 阈值与分级 ====================
+
+    /**
+     * 两种阈值都设在 spill 比例上：越过即收到通知，具体等级再按 GC 后的占用判断
+     */
+    private void applyThresholds() {
+        for (MemoryPoolMXBean pool : oldGenPools) {
+            long max = pool.getUsage().getMax();
+            if (max <= 0) continue;
+            long threshold = max * spillPercent / 100;
+            pool.setUsageThreshold(threshold);
+            pool.setCollectionUsageThreshold(threshold);
+        }
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)) {
+            usageNotifications.incrementAndGet();
+        } else if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+            collectionNotifications.incrementAndGet();
+        } else {
+            return;
+        }
+        // 通知在 JVM 的通知线程上发出，处理交给时间轮的工作线程；连续的 GC 通知合并为一次处理
+        if (evaluationPending.compareAndSet(false, true)) {
+            timingWheel.schedule(0, TimeUnit.MILLISECONDS, () -> {
+                evaluationPending.set(false);
+                evaluate();
+            });
+        }
+    }
+
+    /**
+     * 按内存池当前的统计重新分级，有压力时通知各处理方，并在压力解除前定期复查
+     */
+    private void evaluate() {
+        Level current = measure();
+        Level previous = level;
+        level = current;
+        if (current != previous) {
+            System.out.println("MemoryPressureMonitor: 内存压力 " + previous + " -> " + current
+                    + "（GC 后堆占用 " + Math.round(getHeapUsagePercent()) + "%）");
+        }
+        if (current == Level.NORMAL) return;
+        responses.get(current).incrementAndGet();
+        for (PressureListener listener : listeners) {
+            try {
+                listener.onPressure(current);
+            } catch (Exception e) {
+                System.err.println("内存压力处理失败: " + e.getMessage());
+            }
+        }
+        if (rechecking.compareAndSet(false, true)) scheduleRecheck();
+    }
+
+    private void scheduleRecheck() {
+        timingWheel.schedule(RECHECK_SECONDS, TimeUnit.SECONDS, () -> {
+            rechecking.set(false);
+            evaluate();
+        });
+    }
+
+    private Level measure() {
+        double afterGc = 0;
+        boolean usageExceeded = false;
+        for (MemoryPoolMXBean pool : oldGenPools) {
+            long max = pool.getUsage().getMax();
+            if (max <= 0) continue;
+            MemoryUsage collected = pool.getCollectionUsage();
+            if (collected != null) afterGc = Math.max(afterGc, collected.getUsed() * 100.0 / max);
+            usageExceeded |= pool.isUsageThresholdExceeded();
+        }
+        if (afterGc >= shedPercent) return Level.SHED;
+        if (afterGc >= shrinkPercent) return Level.SHRINK;
+        if (afterGc >= spillPercent || usageExceeded) return Level.SPILL;
+        return Level.NORMAL;
+    }
+
+    /**
+     * 堆占用百分比：各堆内存池取最近一次 GC 后的占用（尚未发生 GC 的池取当前占用），不受尚未回收的垃圾影响
+     */
+    public double getHeapUsagePercent() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            used += afterGc != null && afterGc.getCommitted() > 0 ? afterGc.getUsed() : pool.getUsage().getUsed();
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long max = heap.getMax() > 0 ? heap.getMax() : heap.getCommitted();
+        return max > 0 ? used * 100.0 / max : 0;
+    }
+
+    public Level getLevel() { return level; }
+
+    /**
+     * 是否应拒绝新对局
+     */
+    public boolean isShedding() { return level == Level.SHED; }
+
+    // ==================== 配置 ====================
+
+    public int getSpillPercent() { return spillPercent; }
+
+    public int getShrinkPercent() { return shrinkPercent; }
+
+    public int getShedPercent() { return shedPercent; }
+
+    /**
+     * 同时调整三档阈值；校验不通过时一项也不修改
+     */
+    public synchronized void setThresholds(int spillPercent, int shrinkPercent, int shedPercent) {
+        checkThresholds(spillPercent, shrinkPercent, shedPercent);
+        this.spillPercent = spillPercent;
+        this.shrinkPercent = shrinkPercent;
+        this.shedPercent = shedPercent;
+        applyThresholds();
+    }
+
+    /**
+     * 三档阈值都须在 1-100 之间，且 spill ≤ shrink ≤ max
+     */
+    public static void checkThresholds(int spillPercent, int shrinkPercent, int shedPercent) {
+        checkPercent(spillPercent);
+        checkPercent(shrinkPercent);
+        checkPercent(shedPercent);
+        if (spillPercent > shrinkPercent || shrinkPercent > shedPercent) {
+            throw new IllegalArgumentException("堆占用比例须满足 spill ≤ shrink ≤ max");
+        }
+    }
+
+    private static void checkPercent(int percent) {
+        if (percent <= 0 || percent > 100) throw new IllegalArgumentException("堆占用比例取值范围为 1-100");
+    }
+
+    // ==================== 统计 ====================
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("level", level.name());
+        stats.put("heapUsagePercent", Math.round(getHeapUsagePercent() * 100.0) / 100.0);
+        stats.put("spillPercent", spillPercent);
+        stats.put("shrinkPercent", shrinkPercent);
+        stats.put("shedPercent", shedPercent);
+        stats.put("pools", oldGenPools.stream().map(MemoryPoolMXBean::getName).toList());
+        stats.put("usageNotifications", usageNotifications.get());
+        stats.put("collectionNotifications", collectionNotifications.get());
+        Map<String, Long> handled = new LinkedHashMap<>();
+        responses.forEach((l, count) -> handled.put(l.name(), count.get()));
+        stats.put("responses", handled);
+        return stats;
+    }
+}
@@ -0,0 +1,12 @@
+package cc.techox.boardgame.memory;
+
+/**
+ * 游戏状态的序列化方式
+ * 按游戏类型注册到 {@link GameStateManager}；注册过的游戏，其空闲对局可以移入冷数据区
+ */
+public interface StateCodec {
+
+    byte[] encode(Object state);
+
+    Object decode(byte[] data);
+}
@@ -0,0 +1,249 @@
+package cc.techox.boardgame.memory;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分层时间轮（本节点所有定时任务共用）
+ * 回合截止、超时托管、空闲对局与房间玩家过期等都登记在这里，由唯一的 ticker 线程推进，不再按固定间隔扫描全表
+ *
+ * 4 层、每层 64 个槽：第 0 层每槽一个 tick，第 k 层每槽 64^k 个 tick；
+ * 任务按剩余 tick 数落入能容纳它的最低一层，低层转完一圈时把上一层当前槽的任务重新分配到低层。
+ * 登记和取消都是 O(1)：调用方只把任务放进无锁队列或把状态置为已取消，链表的增删只在 ticker 线程内进行。
+ * 到期的任务交给工作线程执行，ticker 线程本身不运行业务代码
+ */
+@Component
+public class TimingWheel {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    /**
+     * 一个已登记的定时任务
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadline; // 到期 tick
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final TimingWheel wheel;
+        // 以下只由 ticker 线程访问
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消尚未到期的任务，返回是否取消成功
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) return false;
+            wheel.cancelled.offer(this);
+            return true;
+        }
+
+        public boolean isCancelled() { return state.get() == CANCELLED; }
+
+        public boolean isExpired() { return state.get() == EXPIRED; }
+    }
+
+    /**
+     * 槽内的双向链表
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            t.prev = tail;
+            t.next = null;
+            if (tail == null) head = t; else tail.next = t;
+            tail = t;
+        }
+
+        void remove(Timeout t) {
+            if (t.prev == null) head = t.next; else t.prev.next = t.next;
+            if (t.next == null) tail = t.prev; else t.next.prev = t.prev;
+            t.bucket = null;
+            t.prev = null;
+            t.next = null;
+        }
+
+        /**
+         * 取出整条链表并清空本槽
+         */
+        Timeout detach() {
+            Timeout first = head;
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+
+    private final Bucket[][] wheels = new Bucket[LEVELS][WHEEL_SIZE];
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final ExecutorService workers;
+    private final Thread ticker;
+    private volatile boolean running = true;
+    private long currentTick; // 只由 ticker 线程修改
+
+    // 统计
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    public TimingWheel(@Value("${boardgame.timer.tick-millis:100}") long tickMillis,
+                       @Value("${boardgame.timer.worker-threads:2}") int workerThreads) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) wheel[i] = new Bucket();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), r -> {
+            Thread t = new Thread(r, "timing-wheel-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.ticker = new Thread(this::tickLoop, "timing-wheel");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        ticker.interrupt();
+        workers.shutdownNow();
+    }
+
+    // ==================== 登记 ====================
+
+    /**
+     * 在 delay 之后执行 task（精度为一个 tick）
+     */
+    public Timeout schedule(long delay, TimeUnit unit, Runnable task) {
+        long deadline = (System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay)) + tickNanos - 1) / tickNanos;
+        Timeout timeout = new Timeout(this, task, deadline);
+        scheduled.incrementAndGet();
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    // ==================== ticker 线程 ====================
+
+    private void tickLoop() {
+        while (running) {
+            long target = (System.nanoTime() - startNanos) / tickNanos;
+            while (currentTick < target) {
+                currentTick++;
+                advance();
+            }
+            long sleepNanos = (currentTick + 1) * tickNanos - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 推进到 currentTick：先处理取消与新登记，再逐层下放上层任务，最后执行第 0 层当前槽中到期的任务
+     */
+    private void advance() {
+        for (Timeout t; (t = cancelled.poll()) != null; ) {
+            if (t.bucket != null) t.bucket.remove(t);
+            scheduled.decrementAndGet();
+        }
+        for (Timeout t; (t = pending.poll()) != null; ) {
+            if (t.state.get() == PENDING) insert(t);
+        }
+
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) break;
+            int slot = (int) (currentTick >>> (WHEEL_BITS * level)) & MASK;
+            for (Timeout t = wheels[level][slot].detach(); t != null; ) {
+                Timeout next = t.next;
+                insert(t);
+                t = next;
+            }
+        }
+
+        for (Timeout t = wheels[0][(int) currentTick & MASK].detach(); t != null; ) {
+            Timeout next = t.next;
+            t.bucket = null;
+            t.prev = null;
+            t.next = null;
+            if (t.deadline > currentTick) insert(t);
+            else expire(t);
+            t = next;
+        }
+    }
+
+    private void insert(Timeout t) {
+        long remaining = t.deadline - currentTick;
+        if (remaining <= 0) {
+            wheels[0][(int) currentTick & MASK].add(t);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (remaining < 1L << (WHEEL_BITS * (level + 1))) {
+                wheels[level][(int) (t.deadline >>> (WHEEL_BITS * level)) & MASK].add(t);
+                return;
+            }
+        }
+        // 超出最高层范围：先放在最高层最远的槽，下放时会按剩余时间重新分配
+        long horizon = currentTick + (1L << (WHEEL_BITS * LEVELS)) - 1;
+        wheels[LEVELS - 1][(int) (horizon >>> (WHEEL_BITS * (LEVELS - 1))) & MASK].add(t);
+    }
+
+    private void expire(Timeout t) {
+        if (!t.state.compareAndSet(PENDING, EXPIRED)) return;
+        scheduled.decrementAndGet();
+        expiredCount.incrementAndGet();
+        try {
+            workers.execute(() -> {
+                try {
+                    t.task.run();
+                } catch (Exception e) {
+                    System.err.println("定时任务执行失败: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 关闭中
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    /**
+     * 尚未到期也未取消的任务数
+     */
+    public int getScheduledCount() { return scheduled.get(); }
+
+    public long getExpiredCount() { return expiredCount.get(); }
+}
@@ -0,0 +1,26 @@
+package cc.techox.boardgame.service;
+
+/**
+ * 服务器容量不足、暂不接受新对局
+ * 继承 IllegalArgumentException，未单独处理的调用方仍按普通业务错误返回提示
+ */
+public class AdmissionRejectedException extends IllegalArgumentException {
+    private final String reason;
+    private final int retryAfterSeconds;
+
+    public AdmissionRejectedException(String reason, String message, int retryAfterSeconds) {
+        super(message);
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 拒绝原因：matches / heap / queue
+     */
+    public String getReason() { return reason; }
+
+    /**
+     * 建议客户端等待多少秒后重试
+     */
+    public int getRetryAfterSeconds() { return retryAfterSeconds; }
+}
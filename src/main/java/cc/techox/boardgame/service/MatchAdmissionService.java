@@ -0,0 +1,130 @@
+package cc.techox.boardgame.service;
+
+import cc.techox.boardgame.memory.GameStateManager;
+import cc.techox.boardgame.memory.MatchMailbox;
+import cc.techox.boardgame.memory.MemoryPressureMonitor;
+import cc.techox.boardgame.websocket.SessionCommandExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对局准入控制
+ * 开始新对局前按当前的实际负载决定是否接受：容量不足时拒绝新对局并给出重试时间，而不是挤掉正在进行的对局
+ *
+ * 依次检查三项信号：
+ * 1. 指令排队数（对局信箱 + WebSocket 指令队列）——已经处理不过来时最先拒绝；
+ * 2. 内存压力——GC 后存活数据达到 shed 比例时（见 {@link MemoryPressureMonitor}）拒绝；
+ * 3. 活跃对局数与对局计量内存——先淘汰已结束的对局、把空闲对局移入冷数据区腾位置，仍然不够才拒绝。
+ * 各项上限初值来自 boardgame.capacity.*，运行中可由管理接口调整
+ */
+@Service
+public class MatchAdmissionService {
+    private final GameStateManager gameStateManager;
+    private final MatchMailbox mailbox;
+    private final SessionCommandExecutor commandExecutor;
+    private final MemoryPressureMonitor pressureMonitor;
+
+    private volatile int maxQueuedCommands;
+    private volatile int retryAfterSeconds;
+
+    // 统计
+    private final AtomicLong admitted = new AtomicLong();
+    private final Map<String, AtomicLong> rejected = new ConcurrentHashMap<>();
+
+    public MatchAdmissionService(GameStateManager gameStateManager, MatchMailbox mailbox,
+                                 SessionCommandExecutor commandExecutor, MemoryPressureMonitor pressureMonitor,
+                                 @Value("${boardgame.capacity.max-queued-commands:5000}") int maxQueuedCommands,
+                                 @Value("${boardgame.capacity.retry-after-seconds:10}") int retryAfterSeconds) {
+        this.gameStateManager = gameStateManager;
+        this.mailbox = mailbox;
+        this.commandExecutor = commandExecutor;
+        this.pressureMonitor = pressureMonitor;
+        setMaxQueuedCommands(maxQueuedCommands);
+        setRetryAfterSeconds(retryAfterSeconds);
+    }
+
+    /**
+     * 申请开始一个新对局；容量不足时抛出 AdmissionRejectedException
+     */
+    public void admit() {
+        int queued = getQueuedCommands();
+        if (queued > maxQueuedCommands) {
+            reject("queue", "服务器繁忙（待处理指令 " + queued + " 条）");
+        }
+        if (pressureMonitor.isShedding()) {
+            reject("heap", "服务器内存紧张（堆占用 " + Math.round(pressureMonitor.getHeapUsagePercent()) + "%）");
+        }
+        if (!gameStateManager.reserveCapacity()) {
+            reject("matches", "同时进行的对局已达上限");
+        }
+        admitted.incrementAndGet();
+    }
+
+    private void reject(String reason, String detail) {
+        rejected.computeIfAbsent(reason, k -> new AtomicLong()).incrementAndGet();
+        int retryAfter = retryAfterSeconds;
+        System.err.println("拒绝新对局: " + detail);
+        throw new AdmissionRejectedException(reason, detail + "，请 " + retryAfter + " 秒后重试", retryAfter);
+    }
+
+    // ==================== 负载信号 ====================
+
+    /**
+     * 对局信箱与 WebSocket 指令队列中尚未执行的指令数
+     */
+    public int getQueuedCommands() {
+        return mailbox.getQueuedCount() + commandExecutor.getPendingCount();
+    }
+
+    // ==================== 限制 ====================
+
+    public int getMaxQueuedCommands() { return maxQueuedCommands; }
+
+    public void setMaxQueuedCommands(int maxQueuedCommands) {
+        if (maxQueuedCommands <= 0) throw new IllegalArgumentException("指令排队上限必须大于 0");
+        this.maxQueuedCommands = maxQueuedCommands;
+    }
+
+    public int getRetryAfterSeconds() { return retryAfterSeconds; }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        if (retryAfterSeconds <= 0) throw new IllegalArgumentException("重试间隔必须大于 0");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 当前限制、负载信号与准入统计
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> limits = new LinkedHashMap<>();
+        limits.put("maxActiveGames", gameStateManager.getMaxActiveGames());
+        limits.put("maxMemoryMb", gameStateManager.getMaxMemoryMb());
+        limits.put("expireHours", gameStateManager.getExpireHours());
+        limits.put("spillHeapPercent", pressureMonitor.getSpillPercent());
+        limits.put("shrinkHeapPercent", pressureMonitor.getShrinkPercent());
+        limits.put("maxHeapPercent", pressureMonitor.getShedPercent());
+        limits.put("maxQueuedCommands", maxQueuedCommands);
+        limits.put("retryAfterSeconds", retryAfterSeconds);
+
+        Map<String, Object> load = new LinkedHashMap<>();
+        load.put("activeGames", gameStateManager.getActiveGameCount());
+        load.put("heapUsagePercent", Math.round(pressureMonitor.getHeapUsagePercent() * 100.0) / 100.0);
+        load.put("memoryPressure", pressureMonitor.getLevel().name());
+        load.put("queuedCommands", getQueuedCommands());
+
+        Map<String, Long> rejectedByReason = new LinkedHashMap<>();
+        rejected.forEach((reason, count) -> rejectedByReason.put(reason, count.get()));
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("limits", limits);
+        status.put("load", load);
+        status.put("admitted", admitted.get());
+        status.put("rejected", rejectedByReason);
+        return status;
+    }
+}
@@ -7,17 +7,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 服务启动时重置房间状态的服务
  * 
  * 当服务重启时，需要处理各种状态的房间：
- * 1. waiting 房间 - 保持等待状态，但清空内存中的玩家数据
- * 2. playing 房间 - 解散（因为游戏状态已丢失）
+ * 1. waiting 房间 - 保持等待状态
+ * 2. playing 房间 - 对局已由 {@link UnoMatchLog} 从日志恢复的保持不变，恢复不了的改回 waiting
  * 3. finished 房间 - 解散（已经结束的游戏）
  * 4. disbanded 房间 - 保持不变
+ *
+ * 运行中对局结束时，也由这里（异步，不占用对局信箱的线程）把房间改回 waiting
  */
 @Service
 public class RoomStatusResetService implements ApplicationRunner {
@@ -43,10 +49,23 @@ public class RoomStatusResetService implements ApplicationRunner {
     @Transactional
     public void resetRoomStatusOnStartup() {
         try {
-            // 1. 保留正在游戏中的房间，但清空内存状态（允许玩家重连）
-            long playingRooms = roomRepository.countByStatus(Room.Status.playing);
-            if (playingRooms > 0) {
-                log.info("保留了 {} 个正在游戏中的房间（支持玩家重连）", playingRooms);
+            // 1. 正在游戏中的房间：对局已从日志恢复的保留（玩家可重连），否则改回等待状态
+            int recoveredRooms = 0;
+            int orphanRooms = 0;
+            for (Room room : roomRepository.findByStatus(Room.Status.playing, Pageable.unpaged())) {
+                if (gameStateManager.getGameSessionByRoomId(room.getId()).isPresent()) {
+                    recoveredRooms++;
+                } else {
+                    room.setStatus(Room.Status.waiting);
+                    roomRepository.save(room);
+                    orphanRooms++;
+                }
+            }
+            if (recoveredRooms > 0) {
+                log.info("保留了 {} 个正在游戏中的房间（对局已从日志恢复，支持玩家重连）", recoveredRooms);
+            }
+            if (orphanRooms > 0) {
+                log.info("{} 个游戏中的房间没有可恢复的对局，已改回等待状态", orphanRooms);
             }
             
             // 2. 删除已结束的房间
@@ -61,9 +80,8 @@ public class RoomStatusResetService implements ApplicationRunner {
                 log.info("保留了 {} 个等待中的房间（玩家可重新加入）", touchedWaitingRooms);
             }
             
-            // 4. 清空所有内存中的房间和游戏状态（但保留数据库中的房间记录）
-            gameStateManager.clearAllStates();
-            log.info("清空了所有内存中的房间和游戏状态");
+            // 4. 内存中只有从对局日志恢复的对局，不再清空
+            log.info("内存中有 {} 个从日志恢复的对局", gameStateManager.getActiveGameCount());
             
             // 5. 统计最终状态
             logFinalRoomStatus();
@@ -74,6 +92,23 @@ public class RoomStatusResetService implements ApplicationRunner {
         }
     }
     
+    /**
+     * 对局结束后把房间改回 waiting，便于继续下一局
+     * 在 Spring 的异步线程上执行：调用方在对局信箱内，信箱线程不做数据库读写
+     */
+    @Async
+    @Transactional
+    public CompletableFuture<Void> resetAfterGameFinished(Long roomId) {
+        roomRepository.findById(roomId).ifPresent(room -> {
+            // 仅当不为 waiting 才更新，避免不必要的写入
+            if (room.getStatus() != Room.Status.waiting) {
+                room.setStatus(Room.Status.waiting);
+                roomRepository.save(room);
+            }
+        });
+        return CompletableFuture.completedFuture(null);
+    }
+    
     private void logFinalRoomStatus() {
         try {
             Object[][] statusStats = roomRepository.countByStatus();
@@ -0,0 +1,335 @@
+package cc.techox.boardgame.service;
+
+import cc.techox.boardgame.config.GameDataManager;
+import cc.techox.boardgame.game.uno.UnoCards;
+import cc.techox.boardgame.game.uno.UnoState;
+import cc.techox.boardgame.game.uno.bot.BotMove;
+import cc.techox.boardgame.game.uno.bot.BotPlayers;
+import cc.techox.boardgame.game.uno.bot.UnoBotSearch;
+import cc.techox.boardgame.memory.GameStateManager;
+import cc.techox.boardgame.memory.MatchMailbox;
+import cc.techox.boardgame.memory.MemoryPressureMonitor;
+import cc.techox.boardgame.memory.TimingWheel;
+import cc.techox.boardgame.model.User;
+import cc.techox.boardgame.websocket.GameEventBroadcaster;
+import cc.techox.boardgame.websocket.WebSocketSessionManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * UNO 机器人托管服务
+ * 玩家断线超过宽限期、或开局人数不足 minPlayers 时，由机器人接管对应座位；
+ * 玩家回合超时（{@link UnoTurnTimer}）时替其摸牌并跳过
+ *
+ * 线程模型：WebSocket 线程只调用 {@link #onMatchUpdated} 等入口在时间轮上登记定时任务，立即返回；
+ * 到点后把搜索提交到有界的搜索线程池，搜索按时间预算结束后在池内线程落子并广播
+ */
+@Service
+public class UnoBotService {
+    private final UnoService unoService;
+    private final GameStateManager gameStateManager;
+    private final GameDataManager gameDataManager;
+    private final GameEventBroadcaster eventBroadcaster;
+    private final WebSocketSessionManager sessionManager;
+    private final TimingWheel timingWheel;
+    private final UnoTurnTimer turnTimer;
+    private final MatchMailbox mailbox;
+
+    // matchId -> 由机器人操作的座位（userId）
+    private final Map<Long, Set<Long>> botSeats = new ConcurrentHashMap<>();
+    // 断线玩家 userId -> 等待中的托管任务
+    private final Map<Long, TimingWheel.Timeout> pendingTakeovers = new ConcurrentHashMap<>();
+    // 正在思考的对局，保证同一对局同时只有一个机器人决策
+    private final Set<Long> thinking = ConcurrentHashMap.newKeySet();
+    // 托管玩家与补位机器人的用户对象缓存，由对局缓存的玩家信息构造，可随时清空
+    private final Map<Long, User> botUsers = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor searchPool;
+
+    // 配置
+    private boolean enabled;
+    private boolean takeoverOnDisconnect;
+    private long takeoverGraceSeconds;
+    private long moveBudgetNanos;
+    private long thinkDelayMillis;
+    private int searchThreads;
+
+    public UnoBotService(UnoService unoService,
+                         GameStateManager gameStateManager,
+                         GameDataManager gameDataManager,
+                         GameEventBroadcaster eventBroadcaster,
+                         WebSocketSessionManager sessionManager,
+                         TimingWheel timingWheel,
+                         UnoTurnTimer turnTimer,
+                         MatchMailbox mailbox,
+                         MemoryPressureMonitor pressureMonitor) {
+        this.unoService = unoService;
+        this.gameStateManager = gameStateManager;
+        this.gameDataManager = gameDataManager;
+        this.eventBroadcaster = eventBroadcaster;
+        this.sessionManager = sessionManager;
+        this.timingWheel = timingWheel;
+        this.turnTimer = turnTimer;
+        this.mailbox = mailbox;
+        pressureMonitor.addListener(this::shrinkCaches);
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, Object> bots = gameDataManager.getConfigValue("uno", "bots", Map.of());
+        enabled = Boolean.TRUE.equals(bots.getOrDefault("enabled", false));
+        takeoverOnDisconnect = Boolean.TRUE.equals(bots.getOrDefault("takeoverOnDisconnect", false));
+        takeoverGraceSeconds = ((Number) bots.getOrDefault("takeoverGraceSeconds", 15)).longValue();
+        moveBudgetNanos = TimeUnit.MILLISECONDS.toNanos(((Number) bots.getOrDefault("moveBudgetMillis", 5)).longValue());
+        thinkDelayMillis = ((Number) bots.getOrDefault("thinkDelayMillis", 800)).longValue();
+        int threads = ((Number) bots.getOrDefault("searchThreads", 0)).intValue();
+        searchThreads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        int queueCapacity = ((Number) bots.getOrDefault("searchQueueCapacity", 256)).intValue();
+
+        searchPool = new ThreadPoolExecutor(searchThreads, searchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("uno-bot-search"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        turnTimer.setTimeoutHandler(this::onTurnTimeout);
+
+        // 从对局日志恢复的对局：重新开始回合计时，补位机器人继续行动
+        for (GameStateManager.GameStateData session : gameStateManager.getAllGameSessions()) {
+            if (!"playing".equals(session.getStatus())) continue;
+            turnTimer.arm(session.getMatchId(), session.getTurnCount(), (UnoState) session.getState());
+            onMatchStarted(session.getMatchId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchPool.shutdownNow();
+    }
+
+    // ==================== 托管入口 ====================
+
+    /**
+     * 开局后登记补位机器人并在轮到它们时行动
+     */
+    public void onMatchStarted(Long matchId) {
+        if (!enabled) return;
+        UnoState state = currentState(matchId);
+        if (state == null) return;
+        for (UnoState.PlayerState p : state.players) {
+            if (BotPlayers.isBot(p.userId)) seatsOf(matchId).add(p.userId);
+        }
+        onMatchUpdated(matchId);
+    }
+
+    /**
+     * 对局状态变化后调用：如果轮到机器人座位，延迟后开始思考
+     */
+    public void onMatchUpdated(Long matchId) {
+        Set<Long> seats = botSeats.get(matchId);
+        if (seats == null || seats.isEmpty()) return;
+
+        GameStateManager.GameStateData session = gameStateManager.getGameSession(matchId).orElse(null);
+        if (session == null || !"playing".equals(session.getStatus())) {
+            botSeats.remove(matchId);
+            return;
+        }
+        UnoState state = (UnoState) session.getState();
+        if (state.finished || !seats.contains(state.currentPlayer().userId)) return;
+        if (!thinking.add(matchId)) return;
+
+        timingWheel.schedule(thinkDelayMillis, TimeUnit.MILLISECONDS, () -> dispatch(matchId));
+    }
+
+    /**
+     * 到点后只负责把决策交给搜索线程池；池满时稍后重试
+     */
+    private void dispatch(Long matchId) {
+        try {
+            searchPool.execute(() -> think(matchId));
+        } catch (RejectedExecutionException e) {
+            timingWheel.schedule(thinkDelayMillis, TimeUnit.MILLISECONDS, () -> dispatch(matchId));
+        }
+    }
+
+    /**
+     * 玩家断线：宽限期后仍未重连则托管其座位
+     */
+    public void onPlayerDisconnected(Long userId, Long roomId) {
+        if (!enabled || !takeoverOnDisconnect || roomId == null) return;
+        // 时间轮回调只做内存检查，登记交给对局信箱；托管用户由对局缓存的玩家信息构造，不查库
+        TimingWheel.Timeout previous = pendingTakeovers.put(userId, timingWheel.schedule(takeoverGraceSeconds, TimeUnit.SECONDS, () -> {
+            pendingTakeovers.remove(userId);
+            if (sessionManager.isUserOnline(userId)) return;
+            gameStateManager.getGameSessionByRoomId(roomId).ifPresent(session -> {
+                long matchId = session.getMatchId();
+                mailbox.post(matchId, () -> {
+                    UnoState state = currentState(matchId);
+                    if (state == null || state.indexOf(userId) < 0 || sessionManager.isUserOnline(userId)) return;
+                    botUsers.put(userId, unoService.playerUser(matchId, userId));
+                    seatsOf(matchId).add(userId);
+                    System.out.println("机器人托管玩家 " + userId + "，对局: " + matchId);
+                    onMatchUpdated(matchId);
+                });
+            });
+        }));
+        if (previous != null) previous.cancel();
+    }
+
+    /**
+     * 玩家重新认证：取消等待中的托管，并交还已托管的座位
+     */
+    public void onPlayerReconnected(Long userId) {
+        TimingWheel.Timeout pending = pendingTakeovers.remove(userId);
+        if (pending != null) pending.cancel();
+        gameStateManager.getGameSessionByUserId(userId).ifPresent(session -> {
+            Set<Long> seats = botSeats.get(session.getMatchId());
+            if (seats != null && seats.remove(userId)) {
+                System.out.println("玩家 " + userId + " 重连，结束托管，对局: " + session.getMatchId());
+            }
+        });
+        botUsers.remove(userId);
+    }
+
+    /**
+     * 回合超时：替仍未行动的玩家摸牌并跳过，之后轮到机器人座位则由机器人继续
+     * 在时间轮的工作线程上调用，只把处理排进对局信箱就返回；落子用的用户对象取自对局缓存的玩家信息，信箱内不查库
+     */
+    private void onTurnTimeout(long matchId, long userId, int turn) {
+        // 已托管的座位由机器人自己落子
+        Set<Long> seats = botSeats.get(matchId);
+        if (seats != null && seats.contains(userId)) return;
+
+        // 在对局信箱内确认仍是这一回合再落子，避免与玩家刚好赶上的操作交错
+        mailbox.post(matchId, () -> {
+            GameStateManager.GameStateData session = gameStateManager.getGameSession(matchId).orElse(null);
+            if (session == null || !"playing".equals(session.getStatus()) || session.getTurnCount() != turn) return;
+            UnoState state = (UnoState) session.getState();
+            if (state.finished || state.currentPlayer().userId != userId) return;
+            User user = botUsers.containsKey(userId) ? botUsers.get(userId) : unoService.playerUser(matchId, userId);
+            try {
+                System.out.println("玩家 " + userId + " 回合超时，自动摸牌并跳过，对局: " + matchId);
+                apply(matchId, user, BotMove.DRAW);
+            } catch (Exception e) {
+                System.err.println("超时自动摸牌失败, matchId: " + matchId + " - " + e.getMessage());
+            }
+            onMatchUpdated(matchId);
+        });
+    }
+
+    // ==================== 决策与落子 ====================
+
+    private void think(Long matchId) {
+        UnoState snapshot = currentState(matchId);
+        Set<Long> seats = botSeats.get(matchId);
+        if (snapshot == null || snapshot.finished || seats == null || !seats.contains(snapshot.currentPlayer().userId)) {
+            thinking.remove(matchId);
+            return;
+        }
+        long botId = snapshot.currentPlayer().userId;
+        UnoBotSearch.searchAsync(snapshot, botId, moveBudgetNanos, searchThreads, searchPool, ThreadLocalRandom.current().nextLong())
+                .whenComplete((move, error) -> {
+                    try {
+                        if (error != null) {
+                            System.err.println("机器人搜索失败: " + error.getMessage());
+                            move = UnoBotSearch.fallback(snapshot, botId);
+                        }
+                        // 思考期间有人改动了对局（如喊 UNO、质疑）时放弃本次决策，下面重新调度；
+                        // 检查与落子在同一条信箱指令中完成
+                        BotMove chosen = move;
+                        mailbox.run(matchId, () -> {
+                            if (currentState(matchId) == snapshot) apply(matchId, botUser(matchId, botId), chosen);
+                        });
+                    } catch (Exception e) {
+                        System.err.println("机器人落子失败, matchId: " + matchId + " - " + e.getMessage());
+                    } finally {
+                        thinking.remove(matchId);
+                    }
+                    onMatchUpdated(matchId);
+                });
+    }
+
+    private void apply(Long matchId, User bot, BotMove move) {
+        GameStateManager.GameStateData session = gameStateManager.getGameSession(matchId).orElse(null);
+        if (session == null) return;
+        Long roomId = session.getRoomId();
+
+        switch (move.type) {
+            case PLAY -> {
+                String colorCode = UnoCards.colorCode(move.color);
+                unoService.play(matchId, bot, UnoCards.code(move.card), colorCode);
+                eventBroadcaster.broadcastGameAction(roomId, matchId, bot, "play_card",
+                        Map.of("card", UnoCards.toObject(move.card), "chosenColor", colorCode != null ? colorCode : ""));
+            }
+            case DRAW -> {
+                Map<String, Object> result = unoService.drawAndPassWithDetails(matchId, bot);
+                eventBroadcaster.broadcastGameAction(roomId, matchId, bot, "draw_card",
+                        Map.of("drawCount", result.getOrDefault("drawCount", 1)));
+            }
+            case CHALLENGE -> {
+                Map<String, Object> result = unoService.challengeWildDraw4(matchId, bot);
+                eventBroadcaster.broadcastGameAction(roomId, matchId, bot, "challenge_wild_draw4",
+                        Map.of("challengeSuccessful", result.get("challengeSuccessful"),
+                                "penaltyCards", result.get("penaltyCards"),
+                                "reason", result.get("reason")));
+            }
+        }
+    }
+
+    /**
+     * 托管玩家使用其真实用户信息（由对局缓存的玩家信息构造），补位机器人使用临时用户对象
+     */
+    private User botUser(long matchId, long userId) {
+        return botUsers.computeIfAbsent(userId, id -> {
+            if (!BotPlayers.isBot(id)) return unoService.playerUser(matchId, id);
+            User user = new User();
+            user.setId(id);
+            user.setUsername(BotPlayers.username(id));
+            user.setDisplayName(BotPlayers.displayName(id));
+            return user;
+        });
+    }
+
+    /**
+     * 内存压力达到 SHRINK 时清空用户缓存（落子时按需重建，不查库），并移除已结束或已移出内存的对局的座位登记
+     * （玩家托管后一直未重连、对局就结束了时，这些条目不会被其他路径移除）
+     */
+    private void shrinkCaches(MemoryPressureMonitor.Level level) {
+        if (level.compareTo(MemoryPressureMonitor.Level.SHRINK) < 0) return;
+        int users = botUsers.size();
+        botUsers.clear();
+        // 只移除确认已结束或已不在内存中的对局：遍历期间新开的对局不在快照里，但仍在内存中
+        Set<Long> ended = new HashSet<>();
+        for (GameStateManager.GameStateData session : gameStateManager.getAllGameSessions()) {
+            if (!"playing".equals(session.getStatus())) ended.add(session.getMatchId());
+        }
+        int seats = botSeats.size();
+        botSeats.keySet().removeIf(matchId -> ended.contains(matchId) || !gameStateManager.hasGameState(matchId));
+        seats -= botSeats.size();
+        if (users > 0 || seats > 0) {
+            System.out.println("UnoBotService: 内存压力 " + level + "，清理了 " + users + " 个用户缓存、" + seats + " 个对局的座位登记");
+        }
+    }
+
+    private UnoState currentState(Long matchId) {
+        return (UnoState) gameStateManager.getGameState(matchId).orElse(null);
+    }
+
+    private Set<Long> seatsOf(Long matchId) {
+        return botSeats.computeIfAbsent(matchId, k -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,236 @@
+package cc.techox.boardgame.service;
+
+import cc.techox.boardgame.config.GameDataManager;
+import cc.techox.boardgame.game.uno.UnoEngine;
+import cc.techox.boardgame.game.uno.UnoState;
+import cc.techox.boardgame.game.uno.UnoStateCodec;
+import cc.techox.boardgame.game.uno.bot.BotPlayers;
+import cc.techox.boardgame.memory.GameStateManager;
+import cc.techox.boardgame.memory.MatchJournal;
+import cc.techox.boardgame.memory.StateCodec;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * UNO 对局的预写日志与崩溃恢复
+ * 开局写一条完整快照（含种子与玩家），之后每条被接受的指令写一条小记录，并按间隔补写快照；
+ * 启动时（Spring 容器刷新期间，早于 Web 服务器开始接受连接）从日志重建所有进行中的对局
+ */
+@Service
+public class UnoMatchLog {
+    private static final String GAME_CODE = "uno";
+
+    // 指令类型
+    static final byte OP_PLAY = 1;
+    static final byte OP_DRAW = 2;
+    static final byte OP_CALL_UNO = 3;
+    static final byte OP_CHALLENGE = 4;
+    static final byte OP_PENALIZE = 5;
+
+    private final MatchJournal journal;
+    private final GameStateManager gameStateManager;
+    private final GameDataManager gameDataManager;
+    private final int snapshotEvery;
+
+    private long highestMatchId;
+
+    public UnoMatchLog(MatchJournal journal,
+                       GameStateManager gameStateManager,
+                       GameDataManager gameDataManager,
+                       @Value("${boardgame.journal.snapshot-every:64}") int snapshotEvery) {
+        this.journal = journal;
+        this.gameStateManager = gameStateManager;
+        this.gameDataManager = gameDataManager;
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+
+        // 空闲对局移入冷数据区时使用与快照相同的编码
+        gameStateManager.registerStateCodec(GAME_CODE, new StateCodec() {
+            @Override
+            public byte[] encode(Object state) {
+                return UnoStateCodec.encode((UnoState) state);
+            }
+
+            @Override
+            public Object decode(byte[] data) {
+                return UnoStateCodec.decode(data, gameDataManager::getUnoRules);
+            }
+        });
+    }
+
+    // ==================== 写入 ====================
+
+    /**
+     * 开局：写入初始快照（版本 0）
+     */
+    public void created(long matchId, long roomId, UnoState state) {
+        journal.append(MatchJournal.SNAPSHOT, matchId, 0, snapshotPayload(roomId, 0, state));
+    }
+
+    public void play(long matchId, long version, long userId, int card, int color) {
+        command(matchId, version, OP_PLAY, userId, card, color, 0);
+    }
+
+    public void draw(long matchId, long version, long userId) {
+        command(matchId, version, OP_DRAW, userId, 0, 0, 0);
+    }
+
+    public void callUno(long matchId, long version, long userId) {
+        command(matchId, version, OP_CALL_UNO, userId, 0, 0, 0);
+    }
+
+    public void challenge(long matchId, long version, long userId) {
+        command(matchId, version, OP_CHALLENGE, userId, 0, 0, 0);
+    }
+
+    public void penalize(long matchId, long version, long reporterId, long penalizedId) {
+        command(matchId, version, OP_PENALIZE, reporterId, 0, 0, penalizedId);
+    }
+
+    private void command(long matchId, long version, byte op, long userId, int card, int color, long target) {
+        if (version < 0) return;
+        ByteBuffer buf = ByteBuffer.allocate(1 + 8 + 1 + 1 + 8);
+        buf.put(op).putLong(userId).put((byte) card).put((byte) color).putLong(target);
+        journal.append(MatchJournal.COMMAND, matchId, version, buf.array());
+
+        // 按间隔补写快照，限制恢复时需要重放的指令数
+        if (version % snapshotEvery == 0) {
+            gameStateManager.getGameSession(matchId).ifPresent(session -> {
+                GameStateManager.EncodedState es = session.encodedState();
+                journal.append(MatchJournal.SNAPSHOT, matchId, es.version(),
+                        snapshotPayload(session.getRoomId(), session.getTurnCount(), es.bytes()));
+            });
+        }
+    }
+
+    private static byte[] snapshotPayload(long roomId, int turnCount, UnoState state) {
+        return snapshotPayload(roomId, turnCount, UnoStateCodec.encode(state));
+    }
+
+    private static byte[] snapshotPayload(long roomId, int turnCount, byte[] encoded) {
+        return ByteBuffer.allocate(8 + 4 + encoded.length).putLong(roomId).putInt(turnCount).put(encoded).array();
+    }
+
+    /**
+     * 分段轮转时的基线：所有进行中 UNO 对局的当前快照
+     * 冷数据区与快照使用同一编码，已移出堆的对局直接复用其字节，不会因轮转被读回内存
+     */
+    private List<MatchJournal.Entry> checkpoint() {
+        List<MatchJournal.Entry> entries = new ArrayList<>();
+        for (GameStateManager.GameStateData session : gameStateManager.getAllGameSessions()) {
+            if (!GAME_CODE.equals(session.getGameCode()) || !"playing".equals(session.getStatus())) continue;
+            GameStateManager.EncodedState es = session.encodedState();
+            entries.add(new MatchJournal.Entry(MatchJournal.SNAPSHOT, session.getMatchId(), es.version(),
+                    snapshotPayload(session.getRoomId(), session.getTurnCount(), es.bytes())));
+        }
+        return entries;
+    }
+
+    // ==================== 恢复 ====================
+
+    /**
+     * 单个对局在日志中的记录
+     */
+    private static final class Recovered {
+        MatchJournal.Entry snapshot;
+        final List<MatchJournal.Entry> commands = new ArrayList<>();
+        boolean finished;
+    }
+
+    @PostConstruct
+    public void recover() {
+        if (!journal.isEnabled()) return;
+        long start = System.nanoTime();
+        try {
+            Map<Long, Recovered> matches = new LinkedHashMap<>();
+            for (MatchJournal.Entry e : journal.readAll()) {
+                highestMatchId = Math.max(highestMatchId, e.matchId());
+                Recovered r = matches.computeIfAbsent(e.matchId(), k -> new Recovered());
+                switch (e.type()) {
+                    case MatchJournal.SNAPSHOT -> {
+                        if (r.snapshot == null || e.version() >= r.snapshot.version()) r.snapshot = e;
+                    }
+                    case MatchJournal.COMMAND -> r.commands.add(e);
+                    case MatchJournal.FINISHED -> r.finished = true;
+                    default -> System.err.println("未知的对局日志记录类型: " + e.type());
+                }
+            }
+
+            int restored = 0;
+            for (Map.Entry<Long, Recovered> entry : matches.entrySet()) {
+                Recovered r = entry.getValue();
+                if (r.finished || r.snapshot == null) continue;
+                try {
+                    if (restore(entry.getKey(), r)) restored++;
+                } catch (Exception e) {
+                    System.err.println("恢复对局失败, matchId: " + entry.getKey() + " - " + e.getMessage());
+                }
+            }
+
+            journal.start(checkpoint(), this::checkpoint);
+            System.out.println("从对局日志恢复了 " + restored + " 个进行中的对局，耗时 "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            throw new IllegalStateException("读取对局日志失败", e);
+        }
+    }
+
+    /**
+     * 从最新快照出发，按版本顺序重放其后的指令
+     */
+    private boolean restore(long matchId, Recovered r) {
+        ByteBuffer snapshot = ByteBuffer.wrap(r.snapshot.payload());
+        long roomId = snapshot.getLong();
+        int turnCount = snapshot.getInt();
+        byte[] encoded = new byte[snapshot.remaining()];
+        snapshot.get(encoded);
+        UnoState state = UnoStateCodec.decode(encoded, gameDataManager::getUnoRules);
+        long version = r.snapshot.version();
+
+        r.commands.sort(Comparator.comparingLong(MatchJournal.Entry::version));
+        for (MatchJournal.Entry command : r.commands) {
+            if (command.version() <= version) continue;
+            ByteBuffer buf = ByteBuffer.wrap(command.payload());
+            byte op = buf.get();
+            long userId = buf.getLong();
+            int card = buf.get();
+            int color = buf.get();
+            long target = buf.getLong();
+            try {
+                state = switch (op) {
+                    case OP_PLAY -> UnoEngine.playCard(state, userId, card, color);
+                    case OP_DRAW -> UnoEngine.drawAndPass(state, userId);
+                    case OP_CALL_UNO -> UnoEngine.callUno(state, userId);
+                    case OP_CHALLENGE -> UnoEngine.challengeWildDraw4(state, userId).newState;
+                    case OP_PENALIZE -> UnoEngine.penalizeForgetUno(state, target).newState;
+                    default -> throw new IllegalArgumentException("unknown op: " + op);
+                };
+            } catch (RuntimeException e) {
+                // 之后的指令都基于这一步，停在最后一个一致的状态
+                System.err.println("重放对局 " + matchId + " 的指令失败（版本 " + command.version() + "）: " + e.getMessage());
+                break;
+            }
+            if (op == OP_PLAY || op == OP_DRAW) turnCount++;
+            version = command.version();
+        }
+        if (state.finished) return false;
+
+        List<Long> playerIds = new ArrayList<>(state.players.size());
+        for (UnoState.PlayerState p : state.players) playerIds.add(p.userId);
+        gameStateManager.restoreGameState(matchId, GAME_CODE, state, roomId, playerIds, state.seed, version, turnCount);
+        for (UnoState.PlayerState p : state.players) {
+            if (!BotPlayers.isBot(p.userId)) gameStateManager.joinRoom(roomId, p.userId);
+        }
+        return true;
+    }
+
+    /**
+     * 日志中出现过的最大 matchId，新对局的编号必须大于它
+     */
+    public long getHighestMatchId() {
+        return highestMatchId;
+    }
+}
@@ -2,15 +2,22 @@ package cc.techox.boardgame.service;
 
 import cc.techox.boardgame.config.GameDataManager;
 import cc.techox.boardgame.memory.GameStateManager;
+import cc.techox.boardgame.memory.MatchMailbox;
+import cc.techox.boardgame.memory.MemoryPressureMonitor;
 import cc.techox.boardgame.model.*;
 import cc.techox.boardgame.repo.*;
+import cc.techox.boardgame.game.uno.DeckTemplate;
+import cc.techox.boardgame.game.uno.UnoCards;
 import cc.techox.boardgame.game.uno.UnoEngine;
+import cc.techox.boardgame.game.uno.UnoRules;
 import cc.techox.boardgame.game.uno.UnoState;
-import cc.techox.boardgame.game.uno.UnoCard;
+import cc.techox.boardgame.game.uno.bot.BotPlayers;
 import cc.techox.boardgame.websocket.GameEventBroadcaster;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +30,11 @@ public class UnoService {
     private final GameStateManager gameStateManager;
     private final GameDataManager gameDataManager;
     private final GameEventBroadcaster eventBroadcaster;
+    private final UnoMatchLog matchLog;
+    private final UnoTurnTimer turnTimer;
+    private final MatchMailbox mailbox;
+    private final MatchAdmissionService admission;
+    private final RoomStatusResetService roomStatusResetService;
     
     // 使用原子递增器生成 matchId，避免 JavaScript 精度问题
     private static final AtomicLong matchIdGenerator = new AtomicLong(1000);
@@ -31,16 +43,37 @@ public class UnoService {
                      UserRepository userRepo,
                      GameStateManager gameStateManager,
                      GameDataManager gameDataManager,
-                     GameEventBroadcaster eventBroadcaster) {
+                     GameEventBroadcaster eventBroadcaster,
+                     UnoMatchLog matchLog,
+                     UnoTurnTimer turnTimer,
+                     MatchMailbox mailbox,
+                     MatchAdmissionService admission,
+                     RoomStatusResetService roomStatusResetService,
+                     MemoryPressureMonitor pressureMonitor) {
         this.roomRepo = roomRepo;
         this.userRepo = userRepo;
         this.gameStateManager = gameStateManager;
         this.gameDataManager = gameDataManager;
         this.eventBroadcaster = eventBroadcaster;
+        this.matchLog = matchLog;
+        this.turnTimer = turnTimer;
+        this.mailbox = mailbox;
+        this.admission = admission;
+        this.roomStatusResetService = roomStatusResetService;
+        pressureMonitor.addListener(this::shrinkPlayerInfo);
+        // 从日志恢复的对局占用了之前的编号，新对局从其后开始
+        matchIdGenerator.accumulateAndGet(matchLog.getHighestMatchId(), Math::max);
     }
 
-    @Transactional
+    /**
+     * 改动对局状态的操作都提交到该对局的信箱中串行执行（见 {@link MatchMailbox}），
+     * 同一对局的并发指令按到达顺序依次读取、计算并写回状态，不会互相覆盖
+     */
     public Map<String, Object> drawAndPassWithDetails(long matchId, User player) {
+        return mailbox.call(matchId, () -> drawAndPassWithDetailsInMailbox(matchId, player));
+    }
+
+    private Map<String, Object> drawAndPassWithDetailsInMailbox(long matchId, User player) {
         // 从内存获取游戏会话
         GameStateManager.GameStateData gameSession = gameStateManager.getGameSession(matchId)
             .orElseThrow(() -> new IllegalArgumentException("游戏会话不存在"));
@@ -57,16 +90,18 @@ public class UnoService {
         UnoEngine.DrawResult drawResult = UnoEngine.drawAndPassWithDetails(currentState, player.getId());
         
         // 更新内存中的游戏状态
-        gameStateManager.updateGameState(matchId, drawResult.newState);
+        long version = gameStateManager.updateGameState(matchId, drawResult.newState);
         
         // 增加回合数
         gameStateManager.incrementGameTurn(matchId);
         
+        // 写对局日志
+        matchLog.draw(matchId, version, player.getId());
+        turnTimer.arm(matchId, gameSession.getTurnCount(), drawResult.newState);
+        
         // 构建返回结果，包含摸牌详细信息
-        Map<String, Object> result = new HashMap<>(UnoEngine.publicViewWithUserInfo(drawResult.newState, player.getId(), getUserInfoMap(drawResult.newState)));
-        result.put("drawnCards", drawResult.drawnCards.stream()
-            .map(UnoCard::codeToObject)
-            .collect(java.util.stream.Collectors.toList()));
+        Map<String, Object> result = new HashMap<>(UnoEngine.publicViewWithUserInfo(drawResult.newState, player.getId(), playerInfo(matchId, drawResult.newState)));
+        result.put("drawnCards", drawResult.drawnCards.toObjects());
         result.put("drawCount", drawResult.drawCount);
         
         return result;
@@ -74,8 +109,17 @@ public class UnoService {
 
     @Transactional
     public Long startInRoom(long roomId, User starter) {
+        return startInRoom(roomId, starter, null);
+    }
+
+    /**
+     * 开始游戏，ruleVariant 为 config.yml 中 ruleVariants 的名称，为空时使用默认规则
+     */
+    @Transactional
+    public Long startInRoom(long roomId, User starter, String ruleVariant) {
         System.out.println("=== 开始游戏请求 ===");
         System.out.println("房间ID: " + roomId + ", 发起者: " + starter.getUsername() + " (ID: " + starter.getId() + ")");
+        UnoRules rules = gameDataManager.getUnoRules(ruleVariant);
         
         Room room = roomRepo.findById(roomId).orElseThrow(() -> new IllegalArgumentException("房间不存在"));
         System.out.println("房间信息: " + room.getName() + ", 房主: " + room.getOwner().getUsername() + " (ID: " + room.getOwner().getId() + ")");
@@ -94,42 +138,60 @@ public class UnoService {
         Map<Long, GameStateManager.PlayerRoomState> roomPlayers = gameStateManager.getRoomPlayers(roomId);
         System.out.println("房间玩家数量: " + roomPlayers.size() + ", 玩家列表: " + roomPlayers.keySet());
         
-        if (roomPlayers.size() < 2) {
-            System.err.println("玩家数量不足: 当前 " + roomPlayers.size() + " 人, 至少需要 2 人");
-            throw new IllegalArgumentException("至少需要2名玩家才能开始游戏");
+        // 人数不足 minPlayers 时，按配置用机器人补位（至少需要一名真人）
+        int minPlayers = getMinPlayers();
+        int botCount = 0;
+        if (roomPlayers.size() < minPlayers) {
+            if (!isBotFillEnabled() || roomPlayers.isEmpty()) {
+                System.err.println("玩家数量不足: 当前 " + roomPlayers.size() + " 人, 至少需要 " + minPlayers + " 人");
+                throw new IllegalArgumentException("至少需要" + minPlayers + "名玩家才能开始游戏");
+            }
+            botCount = minPlayers - roomPlayers.size();
+            System.out.println("玩家数量不足, 使用 " + botCount + " 个机器人补位");
         }
-
+        List<Long> playerIds = new ArrayList<>(roomPlayers.keySet());
+        for (int i = 1; i <= botCount; i++) {
+            playerIds.add(BotPlayers.botId(i));
+        }
+        
+        // 准入控制：服务器容量不足时拒绝新对局并给出重试时间，不挤掉正在进行的对局
+        admission.admit();
+        
         // 生成唯一的 matchId（使用递增 ID，避免 JavaScript 精度问题）
         Long matchId = matchIdGenerator.incrementAndGet();
         System.out.println("生成对局ID: " + matchId + " (房间ID: " + roomId + ")");
 
         // 创建初始游戏状态并存储到内存
-        System.out.println("正在加载卡牌数据...");
-        List<Map<String, Object>> cardDeck = gameDataManager.createCardDeck("uno");
-        System.out.println("卡牌数据加载完成, 总计: " + cardDeck.size() + " 张卡牌");
+        DeckTemplate deck = gameDataManager.getDeckTemplate("uno");
         
         System.out.println("正在创建初始游戏状态...");
-        UnoState initialState = UnoEngine.createInitialStateWithDeck(
-            roomPlayers.keySet().stream().toList(), // 使用玩家ID列表
-            cardDeck
+        long seed = UnoEngine.newSeed();
+        UnoState initialState = UnoEngine.createInitialState(
+            playerIds, // 使用玩家ID列表（含补位机器人）
+            deck,
+            rules,
+            seed
         );
         System.out.println("初始游戏状态创建完成, 当前玩家: " + initialState.currentPlayer().userId);
         
-        // 在内存中创建游戏会话
+        // 在内存中创建游戏会话；玩家信息在这里（对局信箱之外）查询一次，之后每一步只读缓存
         System.out.println("正在保存游戏状态到内存...");
-        gameStateManager.createGameState(matchId, "uno", initialState, roomId, roomPlayers.size());
-
+        Map<Long, Map<String, Object>> playerInfo = loadUserInfoMap(initialState);
+        gameStateManager.createGameState(matchId, "uno", initialState, roomId, playerIds.size(), seed, playerIds);
+        gameStateManager.getGameSession(matchId).ifPresent(session -> session.setPlayerInfo(playerInfo));
+        matchLog.created(matchId, roomId, initialState);
+        turnTimer.arm(matchId, 0, initialState);
+        
         // 更新房间状态
         System.out.println("正在更新房间状态为 playing...");
         room.setStatus(Room.Status.playing);
         roomRepo.save(room);
 
         System.out.println("=== 游戏开始成功 ===");
-        System.out.println("对局ID: " + matchId + ", 房间ID: " + roomId + ", 玩家数: " + roomPlayers.size());
+        System.out.println("对局ID: " + matchId + ", 房间ID: " + roomId + ", 玩家数: " + playerIds.size() + ", 种子: " + seed + ", 规则: " + rules);
         return matchId;
     }
 
-    @Transactional(readOnly = true)
     public Map<String, Object> view(long matchId, long viewerId) {
         // 验证游戏会话存在
         gameStateManager.getGameSession(matchId)
@@ -139,11 +201,28 @@ public class UnoService {
         UnoState state = (UnoState) gameStateManager.getGameState(matchId)
             .orElseThrow(() -> new IllegalArgumentException("游戏状态不存在"));
         
-        return UnoEngine.publicViewWithUserInfo(state, viewerId, getUserInfoMap(state));
+        return UnoEngine.publicViewWithUserInfo(state, viewerId, loadPlayerInfo(matchId, state));
+    }
+
+    /**
+     * 多名观看者的视图（广播用）：只读取一次状态、构建一次公共部分，每人只附加自己的手牌
+     */
+    public Map<Long, Map<String, Object>> views(long matchId, Collection<Long> viewerIds) {
+        UnoState state = (UnoState) gameStateManager.getGameState(matchId)
+            .orElseThrow(() -> new IllegalArgumentException("游戏状态不存在"));
+        UnoEngine.SharedView shared = UnoEngine.sharedView(state, playerInfo(matchId, state));
+        Map<Long, Map<String, Object>> views = new HashMap<>();
+        for (Long viewerId : viewerIds) {
+            views.put(viewerId, shared.forViewer(viewerId));
+        }
+        return views;
     }
 
-    @Transactional
     public Map<String, Object> play(long matchId, User player, String card, String chosenColor) {
+        return mailbox.call(matchId, () -> playInMailbox(matchId, player, card, chosenColor));
+    }
+
+    private Map<String, Object> playInMailbox(long matchId, User player, String card, String chosenColor) {
         // 从内存获取游戏会话
         GameStateManager.GameStateData gameSession = gameStateManager.getGameSession(matchId)
             .orElseThrow(() -> new IllegalArgumentException("游戏会话不存在"));
@@ -160,34 +239,35 @@ public class UnoService {
         UnoState newState = UnoEngine.playCard(currentState, player.getId(), card, chosenColor);
         
         // 更新内存中的游戏状态
-        gameStateManager.updateGameState(matchId, newState);
+        long version = gameStateManager.updateGameState(matchId, newState);
         
         // 增加回合数
         gameStateManager.incrementGameTurn(matchId);
         
+        // 写对局日志
+        matchLog.play(matchId, version, player.getId(), UnoCards.parse(card), UnoCards.parseColor(chosenColor));
+        turnTimer.arm(matchId, gameSession.getTurnCount(), newState);
+        
         // 检查游戏是否结束
         if (UnoEngine.isGameFinished(newState)) {
             Long winnerId = UnoEngine.getWinner(newState);
             gameStateManager.finishGame(matchId, "finished", winnerId);
 
-            // 游戏结束后，将房间状态更新为 waiting，便于继续下一局
+            // 游戏结束后，将房间状态更新为 waiting，便于继续下一局；写库交给异步线程，不占用信箱线程
             Long roomId = gameSession.getRoomId();
-            roomRepo.findById(roomId).ifPresent(room -> {
-                // 仅当不为 waiting 才更新，避免不必要的写入
-                if (room.getStatus() != Room.Status.waiting) {
-                    room.setStatus(Room.Status.waiting);
-                    roomRepo.save(room);
-                }
+            roomStatusResetService.resetAfterGameFinished(roomId)
                 // 广播房间状态变化，便于前端刷新大厅/房间信息
-                eventBroadcaster.broadcastRoomUpdate(roomId);
-            });
+                .thenRun(() -> eventBroadcaster.broadcastRoomUpdate(roomId));
         }
         
-        return UnoEngine.publicViewWithUserInfo(newState, player.getId(), getUserInfoMap(newState));
+        return UnoEngine.publicViewWithUserInfo(newState, player.getId(), playerInfo(matchId, newState));
     }
 
-    @Transactional
     public Map<String, Object> drawAndPass(long matchId, User player) {
+        return mailbox.call(matchId, () -> drawAndPassInMailbox(matchId, player));
+    }
+
+    private Map<String, Object> drawAndPassInMailbox(long matchId, User player) {
         // 从内存获取游戏会话
         GameStateManager.GameStateData gameSession = gameStateManager.getGameSession(matchId)
             .orElseThrow(() -> new IllegalArgumentException("游戏会话不存在"));
@@ -204,16 +284,23 @@ public class UnoService {
         UnoState newState = UnoEngine.drawAndPass(currentState, player.getId());
         
         // 更新内存中的游戏状态
-        gameStateManager.updateGameState(matchId, newState);
+        long version = gameStateManager.updateGameState(matchId, newState);
         
         // 增加回合数
         gameStateManager.incrementGameTurn(matchId);
         
-        return UnoEngine.publicViewWithUserInfo(newState, player.getId(), getUserInfoMap(newState));
+        // 写对局日志
+        matchLog.draw(matchId, version, player.getId());
+        turnTimer.arm(matchId, gameSession.getTurnCount(), newState);
+        
+        return UnoEngine.publicViewWithUserInfo(newState, player.getId(), playerInfo(matchId, newState));
     }
-    
-    @Transactional
+
     public Map<String, Object> callUno(long matchId, User player) {
+        return mailbox.call(matchId, () -> callUnoInMailbox(matchId, player));
+    }
+
+    private Map<String, Object> callUnoInMailbox(long matchId, User player) {
         // 从内存获取游戏会话
         GameStateManager.GameStateData gameSession = gameStateManager.getGameSession(matchId)
             .orElseThrow(() -> new IllegalArgumentException("游戏会话不存在"));
@@ -229,14 +316,19 @@ public class UnoService {
         // 执行 UNO 调用逻辑
         UnoState newState = UnoEngine.callUno(currentState, player.getId());
         
-        // 更新内存中的游戏状态
-        gameStateManager.updateGameState(matchId, newState);
+        // 更新内存中的游戏状态并写日志
+        long version = gameStateManager.updateGameState(matchId, newState);
+        matchLog.callUno(matchId, version, player.getId());
+        turnTimer.arm(matchId, gameSession.getTurnCount(), newState);
         
-        return UnoEngine.publicViewWithUserInfo(newState, player.getId(), getUserInfoMap(newState));
+        return UnoEngine.publicViewWithUserInfo(newState, player.getId(), playerInfo(matchId, newState));
     }
 
-    @Transactional
     public Map<String, Object> challengeWildDraw4(long matchId, User challenger) {
+        return mailbox.call(matchId, () -> challengeWildDraw4InMailbox(matchId, challenger));
+    }
+
+    private Map<String, Object> challengeWildDraw4InMailbox(long matchId, User challenger) {
         // 从内存获取游戏会话
         GameStateManager.GameStateData gameSession = gameStateManager.getGameSession(matchId)
             .orElseThrow(() -> new IllegalArgumentException("游戏会话不存在"));
@@ -253,10 +345,12 @@ public class UnoService {
         UnoEngine.ChallengeResult challengeResult = UnoEngine.challengeWildDraw4(currentState, challenger.getId());
         
         // 更新内存中的游戏状态
-        gameStateManager.updateGameState(matchId, challengeResult.newState);
+        long version = gameStateManager.updateGameState(matchId, challengeResult.newState);
+        matchLog.challenge(matchId, version, challenger.getId());
+        turnTimer.arm(matchId, gameSession.getTurnCount(), challengeResult.newState);
         
         // 构建返回结果，包含质疑详细信息
-        Map<String, Object> result = new HashMap<>(UnoEngine.publicViewWithUserInfo(challengeResult.newState, challenger.getId(), getUserInfoMap(challengeResult.newState)));
+        Map<String, Object> result = new HashMap<>(UnoEngine.publicViewWithUserInfo(challengeResult.newState, challenger.getId(), playerInfo(matchId, challengeResult.newState)));
         result.put("challengeSuccessful", challengeResult.challengeSuccessful);
         result.put("challengerId", challengeResult.challengerId);
         result.put("challengedPlayerId", challengeResult.challengedPlayerId);
@@ -266,8 +360,11 @@ public class UnoService {
         return result;
     }
 
-    @Transactional
     public Map<String, Object> penalizeForgetUno(long matchId, long penalizedPlayerId, User reporter) {
+        return mailbox.call(matchId, () -> penalizeForgetUnoInMailbox(matchId, penalizedPlayerId, reporter));
+    }
+
+    private Map<String, Object> penalizeForgetUnoInMailbox(long matchId, long penalizedPlayerId, User reporter) {
         // 从内存获取游戏会话
         GameStateManager.GameStateData gameSession = gameStateManager.getGameSession(matchId)
             .orElseThrow(() -> new IllegalArgumentException("游戏会话不存在"));
@@ -284,10 +381,12 @@ public class UnoService {
         UnoEngine.UnoPenaltyResult penaltyResult = UnoEngine.penalizeForgetUno(currentState, penalizedPlayerId);
         
         // 更新内存中的游戏状态
-        gameStateManager.updateGameState(matchId, penaltyResult.newState);
+        long version = gameStateManager.updateGameState(matchId, penaltyResult.newState);
+        matchLog.penalize(matchId, version, reporter.getId(), penalizedPlayerId);
+        turnTimer.arm(matchId, gameSession.getTurnCount(), penaltyResult.newState);
         
         // 构建返回结果，包含惩罚详细信息
-        Map<String, Object> result = new HashMap<>(UnoEngine.publicViewWithUserInfo(penaltyResult.newState, reporter.getId(), getUserInfoMap(penaltyResult.newState)));
+        Map<String, Object> result = new HashMap<>(UnoEngine.publicViewWithUserInfo(penaltyResult.newState, reporter.getId(), playerInfo(matchId, penaltyResult.newState)));
         result.put("penalizedPlayerId", penaltyResult.penalizedPlayerId);
         result.put("penaltyCards", penaltyResult.penaltyCards);
         result.put("reason", penaltyResult.reason);
@@ -295,20 +394,98 @@ public class UnoService {
         return result;
     }
 
+    private int getMinPlayers() {
+        Map<String, Object> limits = gameDataManager.getConfigValue("uno", "playerLimits", Map.of());
+        return ((Number) limits.getOrDefault("minPlayers", 2)).intValue();
+    }
+
+    private boolean isBotFillEnabled() {
+        Map<String, Object> bots = gameDataManager.getConfigValue("uno", "bots", Map.of());
+        return Boolean.TRUE.equals(bots.get("enabled")) && Boolean.TRUE.equals(bots.get("fillToMinPlayers"));
+    }
+
     /**
      * 获取游戏中所有玩家的用户信息
+     * 玩家在开局后不会变化：开局时查询一次并随对局保存，对局信箱内的每一步只读这份缓存，不访问数据库。
+     * 缓存缺失时（从日志恢复的对局还没人查看过）只带机器人的信息，由下一次 {@link #view} 在信箱之外补上
      */
-    private Map<Long, Map<String, Object>> getUserInfoMap(UnoState state) {
+    private Map<Long, Map<String, Object>> playerInfo(long matchId, UnoState state) {
+        GameStateManager.GameStateData data = gameStateManager.getGameSession(matchId).orElse(null);
+        Map<Long, Map<String, Object>> userInfoMap = data != null ? data.getPlayerInfo() : null;
+        return userInfoMap != null ? userInfoMap : botInfoMap(state);
+    }
+
+    /**
+     * 同 {@link #playerInfo}，缓存缺失时查库补上；只能在对局信箱之外调用
+     */
+    private Map<Long, Map<String, Object>> loadPlayerInfo(long matchId, UnoState state) {
+        GameStateManager.GameStateData data = gameStateManager.getGameSession(matchId).orElse(null);
+        Map<Long, Map<String, Object>> userInfoMap = data != null ? data.getPlayerInfo() : null;
+        if (userInfoMap == null) {
+            userInfoMap = loadUserInfoMap(state);
+            if (data != null) data.setPlayerInfo(userInfoMap);
+        }
+        return userInfoMap;
+    }
+
+    /**
+     * 对局中某名玩家的用户对象（机器人替其落子时使用），由缓存的玩家信息构造，不访问数据库
+     */
+    public User playerUser(long matchId, long userId) {
+        UnoState state = (UnoState) gameStateManager.getGameState(matchId).orElse(null);
+        Map<String, Object> info = state != null ? playerInfo(matchId, state).get(userId) : null;
+        User user = new User();
+        user.setId(userId);
+        if (info != null) {
+            user.setUsername((String) info.get("username"));
+            user.setDisplayName((String) info.get("displayName"));
+        }
+        return user;
+    }
+
+    /**
+     * 内存压力达到 SHRINK 时丢弃已结束对局缓存的玩家信息，之后查看时由 {@link #view} 在信箱之外重新查库；
+     * 进行中的对局保留，信箱内的每一步都要读它
+     */
+    private void shrinkPlayerInfo(MemoryPressureMonitor.Level level) {
+        if (level.compareTo(MemoryPressureMonitor.Level.SHRINK) < 0) return;
+        int cleared = 0;
+        for (GameStateManager.GameStateData data : gameStateManager.getAllGameSessions()) {
+            if (!"uno".equals(data.getGameCode()) || "playing".equals(data.getStatus()) || data.getPlayerInfo() == null) continue;
+            data.setPlayerInfo(null);
+            cleared++;
+        }
+        if (cleared > 0) {
+            System.out.println("UnoService: 内存压力 " + level + "，清理了 " + cleared + " 个已结束对局的玩家信息");
+        }
+    }
+
+    private static Map<Long, Map<String, Object>> botInfoMap(UnoState state) {
         Map<Long, Map<String, Object>> userInfoMap = new HashMap<>();
         for (UnoState.PlayerState player : state.players) {
-            User user = userRepo.findById(player.userId).orElse(null);
-            if (user != null) {
-                Map<String, Object> userInfo = new HashMap<>();
-                userInfo.put("username", user.getUsername());
-                userInfo.put("displayName", user.getDisplayName());
-                userInfoMap.put(player.userId, userInfo);
+            if (BotPlayers.isBot(player.userId)) {
+                Map<String, Object> botInfo = new HashMap<>();
+                botInfo.put("username", BotPlayers.username(player.userId));
+                botInfo.put("displayName", BotPlayers.displayName(player.userId));
+                userInfoMap.put(player.userId, botInfo);
             }
         }
         return userInfoMap;
     }
+
+    private Map<Long, Map<String, Object>> loadUserInfoMap(UnoState state) {
+        Map<Long, Map<String, Object>> userInfoMap = botInfoMap(state);
+        List<Long> userIds = new ArrayList<>();
+        for (UnoState.PlayerState player : state.players) {
+            if (!BotPlayers.isBot(player.userId)) userIds.add(player.userId);
+        }
+        // 一次查询所有真人玩家
+        for (User user : userRepo.findAllById(userIds)) {
+            Map<String, Object> userInfo = new HashMap<>();
+            userInfo.put("username", user.getUsername());
+            userInfo.put("displayName", user.getDisplayName());
+            userInfoMap.put(user.getId(), userInfo);
+        }
+        return userInfoMap;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package cc.techox.boardgame.service;
+
+import cc.techox.boardgame.config.GameDataManager;
+import cc.techox.boardgame.game.uno.UnoState;
+import cc.techox.boardgame.game.uno.bot.BotPlayers;
+import cc.techox.boardgame.memory.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UNO 回合计时
+ * 每轮到一名玩家就在时间轮上登记一个截止时间（config.yml 中 timing.turnTimeoutSeconds），
+ * 同一回合内的其他操作（喊 UNO 等）不会重置计时；轮到下一名玩家或对局结束时取消。
+ * 超时后交给登记的处理器（UnoBotService 替玩家摸牌并跳过）
+ */
+@Service
+public class UnoTurnTimer {
+
+    /**
+     * 回合超时处理
+     */
+    public interface TimeoutHandler {
+        void onTurnTimeout(long matchId, long userId, int turn);
+    }
+
+    /**
+     * 当前回合的截止时间
+     * @param turn 对局回合数，与玩家一起标识“这一回合”
+     */
+    private record Deadline(long userId, int turn, TimingWheel.Timeout timeout) {}
+
+    private final TimingWheel timingWheel;
+    private final GameDataManager gameDataManager;
+    private final Map<Long, Deadline> deadlines = new ConcurrentHashMap<>();
+
+    private volatile TimeoutHandler handler = (matchId, userId, turn) -> { };
+    private long turnTimeoutMillis;
+
+    public UnoTurnTimer(TimingWheel timingWheel, GameDataManager gameDataManager) {
+        this.timingWheel = timingWheel;
+        this.gameDataManager = gameDataManager;
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, Object> timing = gameDataManager.getConfigValue("uno", "timing", Map.of());
+        turnTimeoutMillis = TimeUnit.SECONDS.toMillis(((Number) timing.getOrDefault("turnTimeoutSeconds", 30)).longValue());
+    }
+
+    public void setTimeoutHandler(TimeoutHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * 状态变化后调用：轮到了新的玩家（或新的回合）才重新计时；机器人座位不计时
+     */
+    public void arm(long matchId, int turn, UnoState state) {
+        if (state.finished) {
+            cancel(matchId);
+            return;
+        }
+        long userId = state.currentPlayer().userId;
+        deadlines.compute(matchId, (id, current) -> {
+            if (current != null && current.userId() == userId && current.turn() == turn) return current;
+            if (current != null) current.timeout().cancel();
+            if (BotPlayers.isBot(userId) || turnTimeoutMillis <= 0) return null;
+            return new Deadline(userId, turn,
+                    timingWheel.schedule(turnTimeoutMillis, TimeUnit.MILLISECONDS, () -> expire(matchId, userId, turn)));
+        });
+    }
+
+    public void cancel(long matchId) {
+        Deadline removed = deadlines.remove(matchId);
+        if (removed != null) removed.timeout().cancel();
+    }
+
+    private void expire(long matchId, long userId, int turn) {
+        boolean[] current = new boolean[1];
+        deadlines.computeIfPresent(matchId, (id, d) -> {
+            if (d.userId() != userId || d.turn() != turn) return d;
+            current[0] = true;
+            return null;
+        });
+        if (current[0]) handler.onTurnTimeout(matchId, userId, turn);
+    }
+
+    public int getActiveDeadlineCount() {
+        return deadlines.size();
+    }
+}
@@ -0,0 +1,359 @@
+package cc.techox.boardgame.websocket;
+
+import cc.techox.boardgame.game.uno.UnoCards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 二进制子协议 boardgame.bin.v1 的帧编解码
+ * 客户端握手时在 Sec-WebSocket-Protocol 中请求该协议即改用二进制帧，未请求的连接仍使用 JSON 文本帧。
+ * 信封与 JSON 相同（kind / type / data / cid / channel / game / timestamp / messageId），只是编码更紧凑：
+ *
+ * 帧 = 版本(1 字节) + kind(1 字节：0 cmd / 1 ack / 2 evt / 3 err / 255 无) + 其余信封字段组成的 MAP 值
+ * 值 = 标签(1 字节) + 内容：
+ *   0 null、1 false、2 true；
+ *   3 整数（zigzag varint）、4 浮点数（8 字节大端 IEEE 754）；
+ *   5 字符串（varint 字节数 + UTF-8）、6 字典字符串（varint 下标，见 {@link #VALUES}）；
+ *   7 列表（varint 个数 + 值）、8 对象（varint 个数 + 键值对；键为 varint，n > 0 表示 {@link #KEYS}[n - 1]，
+ *     0 后跟 varint 字节数 + UTF-8 的字面键名）；
+ *   9 卡牌（1 字节 kind 0..53，即 {@link UnoCards} 的编码）、10 卡牌列表（varint 个数 + 每张 1 字节 kind）。
+ * 服务端发出的卡牌标签对应 {id, color, value, type} 对象；客户端指令中的卡牌标签解码为卡牌 id 字符串（如 "R-5"）。
+ * KEYS 与 VALUES 只能在末尾追加，改动已有顺序需要新的协议版本
+ */
+public final class BinaryFrameCodec {
+    private BinaryFrameCodec() {}
+
+    public static final String PROTOCOL = "boardgame.bin.v1";
+    public static final int VERSION = 1;
+
+    private static final String[] KINDS = {"cmd", "ack", "evt", "err"};
+    private static final int NO_KIND = 255;
+
+    private static final int T_NULL = 0;
+    private static final int T_FALSE = 1;
+    private static final int T_TRUE = 2;
+    private static final int T_INT = 3;
+    private static final int T_DOUBLE = 4;
+    private static final int T_STRING = 5;
+    private static final int T_DICT = 6;
+    private static final int T_LIST = 7;
+    private static final int T_MAP = 8;
+    private static final int T_CARD = 9;
+    private static final int T_CARDS = 10;
+
+    /**
+     * 字段名字典
+     */
+    static final List<String> KEYS = List.of(
+            // 信封
+            "kind", "type", "data", "timestamp", "messageId", "cid", "channel", "game",
+            // 错误
+            "code", "message", "details",
+            // 房间
+            "roomId", "room", "id", "name", "status", "maxPlayers", "gameCode", "owner",
+            "players", "player", "userId", "username", "displayName", "ready", "isReady", "seatNo", "team", "joinedAt",
+            "user", "action", "joined", "left", "reason", "initiatedBy",
+            // 对局
+            "matchId", "match", "state", "currentPlayer", "direction", "drawCount", "lastColor", "deckSize", "topCard",
+            "started", "finished", "winnerUserId", "handSize", "position", "hasCalledUno", "isCurrentPlayer", "hand",
+            "mustDraw", "playableCards", "newGameState", "actionData", "card", "cardId", "color", "chosenColor", "value",
+            "drawnCards", "penaltyCards", "penalizedPlayerId", "challengeSuccessful", "challengerId",
+            "challengedPlayerId", "activeRoomId", "activeMatchId", "sessionId", "token");
+
+    /**
+     * 常见字符串值字典
+     */
+    static final List<String> VALUES = List.of(
+            "cmd", "ack", "evt", "err", "uno", "error",
+            "connected", "auth", "room_updated", "room_user_event", "room_disbanding", "room_kicked", "room_disbanded",
+            "game_started", "game_action", "game_finished", "state_sync", "sync_state",
+            "room.join", "room.leave", "room.ready", "match.play", "match.draw",
+            "waiting", "playing", "finished", "disbanded", "joined", "left",
+            "red", "green", "blue", "yellow", "black", "number", "action", "wild", "R", "G", "B", "Y", "W");
+
+    private static final Map<String, Integer> KEY_INDEX = index(KEYS);
+    private static final Map<String, Integer> VALUE_INDEX = index(VALUES);
+    // data 中的自定义对象（如 ErrorData）先按 JSON 的规则转换为 Map 再编码
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static Map<String, Integer> index(List<String> names) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) index.put(names.get(i), i);
+        return index;
+    }
+
+    /**
+     * 会话是否协商了二进制子协议
+     */
+    public static boolean isBinary(WebSocketSession session) {
+        return PROTOCOL.equals(session.getAcceptedProtocol());
+    }
+
+    // ==================== 编码 ====================
+
+    public static byte[] encode(WebSocketMessage message) {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        putIfPresent(envelope, "type", message.getType());
+        putIfPresent(envelope, "data", message.getData());
+        putIfPresent(envelope, "timestamp", message.getTimestamp());
+        putIfPresent(envelope, "messageId", message.getMessageId());
+        putIfPresent(envelope, "cid", message.getCid());
+        putIfPresent(envelope, "channel", message.getChannel());
+        putIfPresent(envelope, "game", message.getGame());
+
+        Output out = new Output();
+        out.write(VERSION);
+        int kind = message.getKind() != null ? Arrays.asList(KINDS).indexOf(message.getKind()) : -1;
+        out.write(kind >= 0 ? kind : NO_KIND);
+        writeValue(out, envelope);
+        return out.toByteArray();
+    }
+
+    private static void putIfPresent(Map<String, Object> envelope, String key, Object value) {
+        if (value != null) envelope.put(key, value);
+    }
+
+    private static void writeValue(Output out, Object value) {
+        if (value == null) {
+            out.write(T_NULL);
+        } else if (value instanceof Boolean b) {
+            out.write(b ? T_TRUE : T_FALSE);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            out.write(T_INT);
+            out.writeVarLong(zigzag(((Number) value).longValue()));
+        } else if (value instanceof Number n) {
+            out.write(T_DOUBLE);
+            out.writeLong(Double.doubleToLongBits(n.doubleValue()));
+        } else if (value instanceof CharSequence || value instanceof Enum<?> || value instanceof Character) {
+            writeString(out, value instanceof Enum<?> e ? e.name() : value.toString());
+        } else if (value instanceof Map<?, ?> map) {
+            int kind = UnoCards.kindOfObject(map);
+            if (kind != UnoCards.NONE) {
+                out.write(T_CARD);
+                out.write(kind);
+                return;
+            }
+            out.write(T_MAP);
+            out.writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeKey(out, String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof Collection<?> items) {
+            writeCollection(out, items);
+        } else if (value instanceof Object[] array) {
+            writeCollection(out, Arrays.asList(array));
+        } else {
+            Object converted = MAPPER.convertValue(value, Object.class);
+            if (converted != null && converted.getClass() == value.getClass()) {
+                writeString(out, value.toString());
+            } else {
+                writeValue(out, converted);
+            }
+        }
+    }
+
+    private static void writeCollection(Output out, Collection<?> items) {
+        if (!items.isEmpty() && allCards(items)) {
+            out.write(T_CARDS);
+            out.writeVarLong(items.size());
+            for (Object item : items) out.write(UnoCards.kindOfObject(item));
+            return;
+        }
+        out.write(T_LIST);
+        out.writeVarLong(items.size());
+        for (Object item : items) writeValue(out, item);
+    }
+
+    private static boolean allCards(Collection<?> items) {
+        for (Object item : items) {
+            if (UnoCards.kindOfObject(item) == UnoCards.NONE) return false;
+        }
+        return true;
+    }
+
+    private static void writeString(Output out, String s) {
+        Integer index = VALUE_INDEX.get(s);
+        if (index != null) {
+            out.write(T_DICT);
+            out.writeVarLong(index);
+        } else {
+            out.write(T_STRING);
+            out.writeBytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeKey(Output out, String key) {
+        Integer index = KEY_INDEX.get(key);
+        if (index != null) {
+            out.writeVarLong(index + 1);
+        } else {
+            out.writeVarLong(0);
+            out.writeBytes(key.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static long zigzag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    // ==================== 解码 ====================
+
+    /**
+     * 解码客户端发来的帧，返回与 JSON 信封结构相同的 Map（kind 放回信封中），交给指令路由处理
+     */
+    public static Map<String, Object> decode(byte[] frame) {
+        Input in = new Input(frame);
+        int version = in.read();
+        if (version != VERSION) throw new IllegalArgumentException("不支持的二进制帧版本: " + version);
+        int kind = in.read();
+        Object envelope = readValue(in);
+        if (!(envelope instanceof Map<?, ?>)) throw new IllegalArgumentException("二进制帧缺少信封");
+        if (in.remaining() > 0) throw new IllegalArgumentException("二进制帧末尾有多余数据");
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (kind < KINDS.length) result.put("kind", KINDS[kind]);
+        ((Map<?, ?>) envelope).forEach((key, value) -> result.put((String) key, value));
+        return result;
+    }
+
+    private static Object readValue(Input in) {
+        int tag = in.read();
+        switch (tag) {
+            case T_NULL: return null;
+            case T_FALSE: return Boolean.FALSE;
+            case T_TRUE: return Boolean.TRUE;
+            case T_INT: {
+                long n = in.readVarLong();
+                return (n >>> 1) ^ -(n & 1);
+            }
+            case T_DOUBLE: return Double.longBitsToDouble(in.readLong());
+            case T_STRING: return in.readString();
+            case T_DICT: return lookup(VALUES, in.readVarLong(), "字符串");
+            case T_LIST: {
+                int size = in.readSize();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) list.add(readValue(in));
+                return list;
+            }
+            case T_MAP: {
+                int size = in.readSize();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    long key = in.readVarLong();
+                    String name = key == 0 ? in.readString() : lookup(KEYS, key - 1, "字段");
+                    map.put(name, readValue(in));
+                }
+                return map;
+            }
+            case T_CARD: return cardCode(in.read());
+            case T_CARDS: {
+                int size = in.readSize();
+                List<Object> cards = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) cards.add(cardCode(in.read()));
+                return cards;
+            }
+            default: throw new IllegalArgumentException("未知的二进制值标签: " + tag);
+        }
+    }
+
+    private static String lookup(List<String> dictionary, long index, String what) {
+        if (index < 0 || index >= dictionary.size()) throw new IllegalArgumentException("未知的" + what + "字典下标: " + index);
+        return dictionary.get((int) index);
+    }
+
+    private static String cardCode(int kind) {
+        if (kind >= UnoCards.NUM_KINDS) throw new IllegalArgumentException("未知的卡牌编码: " + kind);
+        return UnoCards.code(kind);
+    }
+
+    // ==================== 字节读写 ====================
+
+    private static final class Output {
+        private byte[] buf = new byte[256];
+        private int len;
+
+        void write(int b) {
+            ensure(1);
+            buf[len++] = (byte) b;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[len++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[len++] = (byte) v;
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) buf[len++] = (byte) (v >>> shift);
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, len, bytes.length);
+            len += bytes.length;
+        }
+
+        private void ensure(int n) {
+            if (len + n > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+        }
+
+        byte[] toByteArray() { return Arrays.copyOf(buf, len); }
+    }
+
+    private static final class Input {
+        private final byte[] buf;
+        private int pos;
+
+        Input(byte[] buf) { this.buf = buf; }
+
+        int read() {
+            if (pos >= buf.length) throw new IllegalArgumentException("二进制帧不完整");
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IllegalArgumentException("varint 过长");
+        }
+
+        long readLong() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) v = (v << 8) | read();
+            return v;
+        }
+
+        int readSize() {
+            long size = readVarLong();
+            if (size > remaining()) throw new IllegalArgumentException("二进制帧长度字段无效: " + size);
+            return (int) size;
+        }
+
+        String readString() {
+            int n = readSize();
+            String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+
+        int remaining() { return buf.length - pos; }
+    }
+}
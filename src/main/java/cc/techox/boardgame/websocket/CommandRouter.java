@@ -5,14 +5,15 @@ import cc.techox.boardgame.model.Room;
 import cc.techox.boardgame.model.User;
 import cc.techox.boardgame.service.AuthService;
 import cc.techox.boardgame.service.RoomService;
+import cc.techox.boardgame.service.UnoBotService;
 import cc.techox.boardgame.service.UnoService;
 import cc.techox.boardgame.game.uno.UnoCard;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,19 +26,22 @@ public class CommandRouter {
     private final GameStateManager gameStateManager;
     private final RoomService roomService;
     private final UnoService unoService;
+    private final UnoBotService botService;
 
     public CommandRouter(AuthService authService,
                          WebSocketSessionManager sessionManager,
                          GameEventBroadcaster eventBroadcaster,
                          GameStateManager gameStateManager,
                          RoomService roomService,
-                         UnoService unoService) {
+                         UnoService unoService,
+                         UnoBotService botService) {
         this.authService = authService;
         this.sessionManager = sessionManager;
         this.eventBroadcaster = eventBroadcaster;
         this.gameStateManager = gameStateManager;
         this.roomService = roomService;
         this.unoService = unoService;
+        this.botService = botService;
     }
 
     public void route(WebSocketSession session, JsonNode envelope) throws Exception {
@@ -117,6 +121,11 @@ public class CommandRouter {
             default:
                 sendErr(session, "UNKNOWN_MESSAGE_TYPE", "未知的消息类型: " + type, cid);
         }
+        
+        // 对局命令处理完后，如果轮到机器人座位则交给机器人（只登记，不在当前线程思考）
+        if (data != null && data.has("matchId")) {
+            botService.onMatchUpdated(data.get("matchId").asLong());
+        }
     }
 
     private String normalizeType(String t) {
@@ -152,14 +161,23 @@ public class CommandRouter {
         // 注册会话，获取是否需要发送响应的标志
         boolean shouldSendResponse = sessionManager.registerSession(session, user);
         
+        // 重连的玩家收回被机器人托管的座位
+        botService.onPlayerReconnected(user.getId());
+        
         // 检查会话状态并发送响应（无论是否重复注册都要发送响应）
         if (session.isOpen()) {
-            sendAck(session, "auth", cid, Map.of(
+            Map<String, Object> ack = new HashMap<>(Map.of(
                     "userId", user.getId(),
                     "username", user.getUsername(),
                     "displayName", user.getDisplayName(),
                     "role", user.getRole().name()
             ));
+            // 有进行中的对局时一并返回，客户端据此直接恢复到对局
+            gameStateManager.getGameSessionByUserId(user.getId()).ifPresent(match -> {
+                ack.put("activeMatchId", match.getMatchId());
+                ack.put("activeRoomId", match.getRoomId());
+            });
+            sendAck(session, "auth", cid, ack);
             if (!shouldSendResponse) {
                 System.out.println("重复认证请求，已发送认证成功响应给用户: " + user.getId());
             }
@@ -400,7 +418,7 @@ public class CommandRouter {
         }
         try {
             WebSocketMessage ack = WebSocketMessage.ack(type, cid, payload);
-            session.sendMessage(new TextMessage(ack.toJson()));
+            sessionManager.sendToSession(session, ack);
         } catch (Exception e) {
             System.err.println("发送 ACK 消息失败: " + e.getMessage());
             // 不重新抛出异常，避免影响其他处理
@@ -790,7 +808,7 @@ public class CommandRouter {
             WebSocketMessage err = WebSocketMessage.error(code, msg);
             err.setKind("err");
             if (cid != null) err.setCid(cid);
-            session.sendMessage(new TextMessage(err.toJson()));
+            sessionManager.sendToSession(session, err);
         } catch (Exception e) {
             System.err.println("发送错误消息失败: " + e.getMessage());
             // 不重新抛出异常，避免影响其他处理
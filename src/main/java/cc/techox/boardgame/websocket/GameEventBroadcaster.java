@@ -1,19 +1,30 @@
 package cc.techox.boardgame.websocket;
 
 import cc.techox.boardgame.memory.GameStateManager;
+import cc.techox.boardgame.memory.TimingWheel;
 import cc.techox.boardgame.model.Room;
 import cc.techox.boardgame.model.User;
 import cc.techox.boardgame.repo.RoomRepository;
 import cc.techox.boardgame.repo.UserRepository;
 import cc.techox.boardgame.service.UnoService;
 import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Component
@@ -24,23 +35,150 @@ public class GameEventBroadcaster {
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
     private final GameStateManager gameStateManager;
+    private final TimingWheel timingWheel;
+    private final long roomUpdateMillis;
+    // room_updated 的查库与发送在这里执行，不占用调用方和时间轮的线程
+    private final ExecutorService roomUpdateExecutor;
+    
+    // 房间ID -> 合并窗口；窗口结束时没有新的更新、且没有正在进行的发送才移除
+    private final Map<Long, RoomUpdateWindow> roomUpdateWindows = new ConcurrentHashMap<>();
+    private final AtomicLong roomUpdatesSent = new AtomicLong();
+    private final AtomicLong roomUpdatesCoalesced = new AtomicLong();
+
+    /**
+     * 一个房间的 room_updated 合并窗口：窗口开始时立即发送，窗口内的更新只标记 dirty，窗口结束时合并发送一次
+     * 字段只在 roomUpdateWindows.compute 内读写；sending 期间窗口不会被移除，同一房间同一时刻最多一次发送在进行
+     */
+    private static final class RoomUpdateWindow {
+        boolean dirty;
+        boolean sending;
+        // 窗口已到期但发送尚未完成，由发送完成时接着处理
+        boolean ended;
+    }
     
     public GameEventBroadcaster(WebSocketSessionManager sessionManager,
                                UnoService unoService,
                                RoomRepository roomRepository,
                                UserRepository userRepository,
-                               GameStateManager gameStateManager) {
+                               GameStateManager gameStateManager,
+                               TimingWheel timingWheel,
+                               @Value("${boardgame.websocket.room-update-millis:100}") long roomUpdateMillis,
+                               @Value("${boardgame.websocket.room-update-threads:8}") int roomUpdateThreads) {
         this.sessionManager = sessionManager;
         this.unoService = unoService;
         this.roomRepository = roomRepository;
         this.userRepository = userRepository;
         this.gameStateManager = gameStateManager;
+        this.timingWheel = timingWheel;
+        this.roomUpdateMillis = Math.max(1, roomUpdateMillis);
+        ExecutorService virtual = SessionCommandExecutor.newVirtualThreadExecutor();
+        if (virtual != null) {
+            this.roomUpdateExecutor = virtual;
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            this.roomUpdateExecutor = Executors.newFixedThreadPool(Math.max(1, roomUpdateThreads), r -> {
+                Thread t = new Thread(r, "room-update-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        roomUpdateExecutor.shutdown();
     }
     
     /**
      * 广播房间状态更新
+     * 每个房间每个窗口（boardgame.websocket.room-update-millis）最多发送一次 room_updated：
+     * 空闲房间的第一次更新立即发送并开启窗口，窗口内的后续更新合并到窗口结束时发送一次最新快照，
+     * 加入风暴、连续切换准备或座位时不再逐次查库、逐次全量广播
      */
     public void broadcastRoomUpdate(Long roomId) {
+        boolean[] sendNow = new boolean[1];
+        RoomUpdateWindow window = roomUpdateWindows.compute(roomId, (id, w) -> {
+            if (w == null) {
+                w = new RoomUpdateWindow();
+                w.sending = true;
+                sendNow[0] = true;
+                return w;
+            }
+            if (w.dirty) roomUpdatesCoalesced.incrementAndGet();
+            w.dirty = true;
+            return w;
+        });
+        if (sendNow[0]) {
+            scheduleWindowEnd(roomId);
+            dispatchRoomUpdate(roomId, window);
+        }
+    }
+
+    /**
+     * 窗口到期：在时间轮线程上只改窗口状态，需要发送时交给执行器
+     */
+    private void scheduleWindowEnd(Long roomId) {
+        timingWheel.schedule(roomUpdateMillis, TimeUnit.MILLISECONDS, () -> {
+            boolean[] flush = new boolean[1];
+            RoomUpdateWindow window = roomUpdateWindows.computeIfPresent(roomId, (id, w) -> {
+                if (w.sending) {
+                    w.ended = true;
+                    return w;
+                }
+                if (!w.dirty) return null;
+                w.dirty = false;
+                w.sending = true;
+                flush[0] = true;
+                return w;
+            });
+            if (flush[0]) {
+                // 仍有更新：发送合并后的快照并继续下一个窗口
+                scheduleWindowEnd(roomId);
+                dispatchRoomUpdate(roomId, window);
+            }
+        });
+    }
+    
+    private void dispatchRoomUpdate(Long roomId, RoomUpdateWindow window) {
+        try {
+            roomUpdateExecutor.execute(() -> sendRoomUpdate(roomId, window));
+        } catch (RejectedExecutionException e) {
+            // 关闭中：放弃这次发送
+            roomUpdateWindows.remove(roomId, window);
+        }
+    }
+    
+    /**
+     * 发送完成前窗口不会被移除，新的更新只会标记 dirty，
+     * 因此同一房间的发送依次进行，较早的快照不会晚于较新的快照进入出站队列
+     */
+    private void sendRoomUpdate(Long roomId, RoomUpdateWindow window) {
+        try {
+            doBroadcastRoomUpdate(roomId);
+            roomUpdatesSent.incrementAndGet();
+        } catch (Exception e) {
+            System.err.println("广播房间 " + roomId + " 状态失败: " + e.getMessage());
+        }
+        
+        boolean[] resend = new boolean[1];
+        roomUpdateWindows.computeIfPresent(roomId, (id, w) -> {
+            w.sending = false;
+            if (!w.ended) return w;
+            // 发送期间窗口已到期：按到期时的规则处理
+            w.ended = false;
+            if (!w.dirty) return null;
+            w.dirty = false;
+            w.sending = true;
+            resend[0] = true;
+            return w;
+        });
+        if (resend[0]) {
+            scheduleWindowEnd(roomId);
+            dispatchRoomUpdate(roomId, window);
+        }
+    }
+
+    private void doBroadcastRoomUpdate(Long roomId) {
         Room room = roomRepository.findByIdWithGame(roomId).orElse(null);
         if (room == null) return;
         
@@ -63,13 +201,17 @@ public class GameEventBroadcaster {
         // 从内存获取玩家状态
         Map<Long, GameStateManager.PlayerRoomState> memoryPlayers = gameStateManager.getRoomPlayers(roomId);
         
+        // 一次查询取回所有玩家的用户信息
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(memoryPlayers.keySet()).forEach(u -> users.put(u.getId(), u));
+        
         // 构建玩家信息列表，包含用户详细信息
         roomData.put("players", memoryPlayers.entrySet().stream().map(entry -> {
             Long userId = entry.getKey();
             GameStateManager.PlayerRoomState playerState = entry.getValue();
             
             // 获取用户详细信息
-            User user = userRepository.findById(userId).orElse(null);
+            User user = users.get(userId);
             
             Map<String, Object> playerInfo = new HashMap<>();
             playerInfo.put("userId", userId);
@@ -194,17 +336,16 @@ public class GameEventBroadcaster {
         Room room = roomRepository.findByIdWithGame(roomId).orElse(null);
         String gameCode = room != null ? room.getGame().getCode().toLowerCase() : null;
         String channel = gameCode != null ? ChannelNames.room(gameCode, roomId) : null;
-        users.forEach(uid -> {
-            WebSocketMessage notify = WebSocketMessage.success("room_kicked", Map.of(
-                "roomId", roomId,
-                "reason", reason
-            ));
-            notify.setKind("evt");
-            if (gameCode != null) notify.setGame(gameCode);
-            if (channel != null) notify.setChannel(channel);
-            sessionManager.sendToUser(uid, notify);
-            sessionManager.leaveRoom(uid, roomId);
-        });
+        WebSocketMessage notify = WebSocketMessage.success("room_kicked", Map.of(
+            "roomId", roomId,
+            "reason", reason
+        ));
+        notify.setKind("evt");
+        if (gameCode != null) notify.setGame(gameCode);
+        if (channel != null) notify.setChannel(channel);
+        // 通知内容相同，先整房间广播（每种格式只编码一次），再逐个移出频道
+        sessionManager.broadcastToRoom(roomId, notify);
+        new ArrayList<>(users).forEach(uid -> sessionManager.leaveRoom(uid, roomId));
     }
 
     /**
@@ -249,20 +390,17 @@ public class GameEventBroadcaster {
             Set<Long> roomUsers = sessionManager.getRoomUsers(roomId);
             System.out.println("房间内用户数量: " + roomUsers.size() + ", 用户列表: " + roomUsers);
             
-            // 为房间内每个用户生成个性化的游戏状态
-            roomUsers.forEach(userId -> {
+            // 为房间内每个用户生成个性化的游戏状态（公共部分只构建一次）
+            Map<Long, Map<String, Object>> views = unoService.views(matchId, roomUsers);
+            String channel = ChannelNames.match(gameCode, matchId);
+            views.forEach((userId, gameState) -> {
                 try {
-                    System.out.println("正在为用户 " + userId + " 生成游戏状态...");
-                    Map<String, Object> gameState = unoService.view(matchId, userId);
-                    System.out.println("用户 " + userId + " 的游戏状态生成完成");
-                    
                     Map<String, Object> eventData = Map.of(
                         "roomId", roomId,
                         "matchId", matchId,
                         "gameState", gameState
                     );
                     
-                    String channel = ChannelNames.match(gameCode, matchId);
                     WebSocketMessage message = WebSocketMessage.success("game_started", eventData);
                     message.setKind("evt");
                     message.setGame(gameCode);
@@ -272,7 +410,7 @@ public class GameEventBroadcaster {
                     sessionManager.sendToUser(userId, message);
                     System.out.println("用户 " + userId + " 游戏开始消息发送完成");
                 } catch (Exception e) {
-                    System.err.println("为用户 " + userId + " 生成游戏状态失败: " + e.getMessage());
+                    System.err.println("向用户 " + userId + " 发送游戏开始消息失败: " + e.getMessage());
                     e.printStackTrace();
                 }
             });
@@ -337,88 +475,56 @@ public class GameEventBroadcaster {
     
     /**
      * 广播游戏操作事件（公共方法）
+     * 每个动作只读取一次状态、构建一次公共视图，每名接收者只附加自己的手牌；整个过程不访问数据库
      */
     public void broadcastGameAction(Long roomId, Long matchId, User player, String action, Map<String, Object> actionData) {
-        // 为房间内每个用户生成个性化的游戏状态
-        sessionManager.getRoomUsers(roomId).forEach(userId -> {
-            try {
-                Map<String, Object> gameState = unoService.view(matchId, userId);
-                
+        GameStateManager.GameStateData gameSession = gameStateManager.getGameSession(matchId).orElse(null);
+        if (gameSession == null) return;
+        String gameCode = gameSession.getGameCode().toLowerCase();
+        String channel = ChannelNames.match(gameCode, matchId);
+        Map<String, Object> playerData = Map.of(
+            "userId", player.getId(),
+            "username", player.getUsername(),
+            "displayName", player.getDisplayName()
+        );
+        
+        try {
+            unoService.views(matchId, sessionManager.getRoomUsers(roomId)).forEach((userId, gameState) -> {
                 Map<String, Object> eventData = new HashMap<>();
                 eventData.put("matchId", matchId);
                 eventData.put("action", action);
-                eventData.put("player", Map.of(
-                    "userId", player.getId(),
-                    "username", player.getUsername(),
-                    "displayName", player.getDisplayName()
-                ));
+                eventData.put("player", playerData);
                 eventData.put("actionData", actionData);
                 eventData.put("newGameState", gameState);
                 
-                String gameCode = roomRepository.findByIdWithGame(roomId).map(r -> r.getGame().getCode().toLowerCase()).orElse("uno");
-                String channel = ChannelNames.match(gameCode, matchId);
                 WebSocketMessage message = WebSocketMessage.success("game_action", eventData);
                 message.setKind("evt");
                 message.setGame(gameCode);
                 message.setChannel(channel);
                 sessionManager.sendToUser(userId, message);
-                
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        });
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
         
         // 检查游戏是否结束
-        checkGameFinished(roomId, matchId);
+        checkGameFinished(roomId, gameSession);
     }
 
     /**
      * 广播游戏操作事件（私有方法，保持向后兼容）
      */
     private void broadcastGameActionPrivate(Long roomId, Long matchId, User player, String action, Map<String, Object> actionData) {
-        // 为房间内每个用户生成个性化的游戏状态
-        sessionManager.getRoomUsers(roomId).forEach(userId -> {
-            try {
-                Map<String, Object> gameState = unoService.view(matchId, userId);
-                
-                Map<String, Object> eventData = new HashMap<>();
-                eventData.put("matchId", matchId);
-                eventData.put("action", action);
-                eventData.put("player", Map.of(
-                    "userId", player.getId(),
-                    "username", player.getUsername(),
-                    "displayName", player.getDisplayName()
-                ));
-                eventData.put("actionData", actionData);
-                eventData.put("newGameState", gameState);
-                
-                String gameCode = roomRepository.findByIdWithGame(roomId).map(r -> r.getGame().getCode().toLowerCase()).orElse("uno");
-                String channel = ChannelNames.match(gameCode, matchId);
-                WebSocketMessage message = WebSocketMessage.success("game_action", eventData);
-                message.setKind("evt");
-                message.setGame(gameCode);
-                message.setChannel(channel);
-                sessionManager.sendToUser(userId, message);
-                
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        });
-        
-        // 检查游戏是否结束
-        checkGameFinished(roomId, matchId);
+        broadcastGameAction(roomId, matchId, player, action, actionData);
     }
     
     /**
      * 检查游戏是否结束并广播结束事件
      */
-    private void checkGameFinished(Long roomId, Long matchId) {
+    private void checkGameFinished(Long roomId, GameStateManager.GameStateData gameSession) {
         try {
-            GameStateManager.GameStateData gameSession = gameStateManager.getGameSession(matchId).orElse(null);
-            if (gameSession != null && "finished".equals(gameSession.getStatus())) {
-                // 获取房间信息以确定游戏类型
-                Room room = roomRepository.findByIdWithGame(roomId).orElse(null);
-                if (room == null) return;
+            if ("finished".equals(gameSession.getStatus())) {
+                Long matchId = gameSession.getMatchId();
                 
                 // 游戏结束，广播结束事件
                 Map<String, Object> eventData = Map.of(
@@ -427,7 +533,7 @@ public class GameEventBroadcaster {
                     "endedAt", gameSession.getLastActionAt().toString()
                 );
                 
-                String gameCode = room.getGame().getCode().toLowerCase();
+                String gameCode = gameSession.getGameCode().toLowerCase();
                 String channel = ChannelNames.match(gameCode, matchId);
                 WebSocketMessage message = WebSocketMessage.success("game_finished", eventData);
                 message.setKind("evt");
@@ -510,16 +616,28 @@ public class GameEventBroadcaster {
             }
             if (gameCode != null) syncMessage.setGame(gameCode);
             if (channel != null) syncMessage.setChannel(channel);
-            session.sendMessage(new TextMessage(syncMessage.toJson()));
+            sessionManager.sendToSession(session, syncMessage);
             
         } catch (Exception e) {
             WebSocketMessage error = WebSocketMessage.error("SYNC_FAILED", "状态同步失败: " + e.getMessage());
             error.setKind("err");
             try {
-                session.sendMessage(new TextMessage(error.toJson()));
+                sessionManager.sendToSession(session, error);
             } catch (Exception ex) {
                 ex.printStackTrace();
             }
         }
     }
+    
+    /**
+     * room_updated 合并统计
+     */
+    public Map<String, Object> getRoomUpdateStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("windowMillis", roomUpdateMillis);
+        stats.put("activeWindows", roomUpdateWindows.size());
+        stats.put("sent", roomUpdatesSent.get());
+        stats.put("coalesced", roomUpdatesCoalesced.get());
+        return stats;
+    }
 }
\ No newline at end of file
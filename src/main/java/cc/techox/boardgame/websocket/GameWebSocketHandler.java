@@ -1,13 +1,17 @@
 package cc.techox.boardgame.websocket;
 
+import cc.techox.boardgame.model.User;
 import cc.techox.boardgame.service.AuthService;
+import cc.techox.boardgame.service.UnoBotService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 
 import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -23,6 +27,8 @@ public class GameWebSocketHandler implements WebSocketHandler {
     @SuppressWarnings("unused")
     private final GameEventBroadcaster eventBroadcaster;
     private final CommandRouter commandRouter;
+    private final UnoBotService botService;
+    private final SessionCommandExecutor commandExecutor;
     
     // 会话最后活跃时间
     private final Map<String, Long> sessionLastActivity = new ConcurrentHashMap<>();
@@ -33,11 +39,15 @@ public class GameWebSocketHandler implements WebSocketHandler {
     public GameWebSocketHandler(AuthService authService, 
                                WebSocketSessionManager sessionManager,
                                GameEventBroadcaster eventBroadcaster,
-                               CommandRouter commandRouter) {
+                               CommandRouter commandRouter,
+                               UnoBotService botService,
+                               SessionCommandExecutor commandExecutor) {
         this.authService = authService;
         this.sessionManager = sessionManager;
         this.eventBroadcaster = eventBroadcaster;
         this.commandRouter = commandRouter;
+        this.botService = botService;
+        this.commandExecutor = commandExecutor;
     }
     
     @PostConstruct
@@ -57,7 +67,7 @@ public class GameWebSocketHandler implements WebSocketHandler {
             WebSocketMessage welcomeMsg = WebSocketMessage.success("connected",
                 Map.of("message", "连接成功，请发送认证信息", "sessionId", session.getId()));
             welcomeMsg.setKind("evt");
-            session.sendMessage(new TextMessage(welcomeMsg.toJson()));
+            sessionManager.sendToSession(session, welcomeMsg);
         } catch (Exception e) {
             System.err.println("发送欢迎消息失败: " + e.getMessage());
             // 如果连接刚建立就失败，可能是客户端问题，关闭连接
@@ -74,16 +84,34 @@ public class GameWebSocketHandler implements WebSocketHandler {
         // 更新会话活跃时间
         sessionLastActivity.put(session.getId(), System.currentTimeMillis());
         
+        boolean accepted = true;
         if (message instanceof TextMessage) {
             String payload = ((TextMessage) message).getPayload();
-            handleTextMessage(session, payload);
+            // 指令可能查库，交给会话自己的执行队列，不占用 I/O 线程；同一会话的消息仍按顺序处理
+            accepted = commandExecutor.submit(session.getId(), () -> handleEnvelope(session, () -> objectMapper.readTree(payload)));
+        } else if (message instanceof BinaryMessage) {
+            // 协商了 boardgame.bin.v1 的客户端发送二进制帧，解码后与 JSON 指令走同一路由
+            ByteBuffer buffer = ((BinaryMessage) message).getPayload();
+            byte[] frame = new byte[buffer.remaining()];
+            buffer.get(frame);
+            accepted = commandExecutor.submit(session.getId(),
+                    () -> handleEnvelope(session, () -> objectMapper.valueToTree(BinaryFrameCodec.decode(frame))));
+        }
+        if (!accepted) {
+            // 指令积压超过上限：客户端发送过快，断开连接
+            System.err.println("会话 " + session.getId() + " 指令积压超过上限，断开连接");
+            try {
+                session.close(CloseStatus.POLICY_VIOLATION);
+            } catch (Exception closeEx) {
+                // 忽略关闭异常
+            }
         }
     }
     
-    private void handleTextMessage(WebSocketSession session, String payload) {
+    private void handleEnvelope(WebSocketSession session, Callable<JsonNode> parser) {
         String cid = null;
         try {
-            JsonNode envelope = objectMapper.readTree(payload);
+            JsonNode envelope = parser.call();
             if (envelope.has("cid")) {
                 cid = envelope.get("cid").asText();
             } else if (envelope.has("messageId")) {
@@ -112,7 +140,7 @@ public class GameWebSocketHandler implements WebSocketHandler {
             WebSocketMessage error = WebSocketMessage.error(code, message);
             error.setKind("err");
             if (cid != null) error.setCid(cid);
-            session.sendMessage(new TextMessage(error.toJson()));
+            sessionManager.sendToSession(session, error);
         } catch (Exception e) {
             System.err.println("发送错误消息失败: " + e.getMessage());
             // 会话可能已经关闭，不需要进一步处理
@@ -128,8 +156,16 @@ public class GameWebSocketHandler implements WebSocketHandler {
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
         System.out.println("WebSocket连接关闭: " + session.getId() + " - " + closeStatus.toString());
+        User user = sessionManager.getUserBySession(session);
+        Long roomId = user != null ? sessionManager.getUserCurrentRoom(user.getId()) : null;
         sessionManager.removeSession(session);
+        
+        // 断线玩家在宽限期后由机器人托管
+        if (user != null && roomId != null) {
+            botService.onPlayerDisconnected(user.getId(), roomId);
+        }
         sessionLastActivity.remove(session.getId());
+        commandExecutor.remove(session.getId());
     }
     
     @Override
@@ -0,0 +1,161 @@
+package cc.techox.boardgame.websocket;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket 指令执行器
+ * 指令不再在容器的 I/O 线程上执行：每个会话一个队列，按收到的顺序逐条执行，不同会话互不阻塞，
+ * 某条指令等待数据库时只占住自己会话的执行线程
+ *
+ * 运行在支持虚拟线程的 JDK（21+）上时每次排空队列用一个虚拟线程，阻塞几乎没有成本；
+ * 否则退回到有上限的平台线程池（boardgame.websocket.command-threads）
+ *
+ * 每个会话最多排队 boardgame.websocket.max-queued-commands 条指令，超出时拒收，由调用方断开该会话，
+ * 单个客户端刷指令不会无限占用内存
+ */
+@Component
+public class SessionCommandExecutor {
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final int maxQueuedPerSession;
+    private final Map<String, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong overflows = new AtomicLong();
+
+    /**
+     * 单个会话的指令队列，同一时刻最多一个线程在执行
+     */
+    private final class SessionQueue implements Runnable {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicInteger size = new AtomicInteger();
+
+        boolean submit(Runnable task) {
+            if (size.incrementAndGet() > maxQueuedPerSession) {
+                size.decrementAndGet();
+                overflows.incrementAndGet();
+                return false;
+            }
+            pending.incrementAndGet();
+            tasks.offer(task);
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (!running.compareAndSet(false, true)) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // 关闭中：丢弃剩余指令，并从计数中扣除
+                while (tasks.poll() != null) {
+                    size.decrementAndGet();
+                    pending.decrementAndGet();
+                }
+                running.set(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    size.decrementAndGet();
+                    pending.decrementAndGet();
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        System.err.println("WebSocket 指令执行失败: " + e.getMessage());
+                    }
+                }
+            } finally {
+                running.set(false);
+                if (!tasks.isEmpty()) schedule();
+            }
+        }
+    }
+
+    public SessionCommandExecutor(@Value("${boardgame.websocket.command-threads:64}") int platformThreads,
+                                  @Value("${boardgame.websocket.max-queued-commands:64}") int maxQueuedPerSession) {
+        if (maxQueuedPerSession <= 0) {
+            throw new IllegalArgumentException("每个会话的指令队列上限必须大于 0");
+        }
+        this.maxQueuedPerSession = maxQueuedPerSession;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        if (virtual != null) {
+            this.executor = virtual;
+            System.out.println("WebSocket 指令使用虚拟线程执行");
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(Math.max(1, platformThreads), r -> {
+                Thread t = new Thread(r, "ws-command-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            System.out.println("当前 JDK 不支持虚拟线程，WebSocket 指令使用 " + platformThreads + " 个平台线程执行");
+        }
+    }
+
+    /**
+     * JDK 21+ 的 Executors.newVirtualThreadPerTaskExecutor()；项目按 Java 17 编译，只能反射调用。
+     * 不支持时返回 null（出站队列 {@link SessionOutbox} 也用它）
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 把会话的一条指令排入队列
+     * @return false 表示该会话排队的指令已达上限，指令未被接收
+     */
+    public boolean submit(String sessionId, Runnable task) {
+        return queues.computeIfAbsent(sessionId, id -> new SessionQueue()).submit(task);
+    }
+
+    /**
+     * 会话关闭后移除其队列（已排队的指令仍会执行完）
+     */
+    public void remove(String sessionId) {
+        queues.remove(sessionId);
+    }
+
+    // ==================== 统计 ====================
+
+    public boolean isVirtualThreads() { return virtualThreads; }
+
+    /**
+     * 已收到、尚未开始执行的指令数
+     */
+    public int getPendingCount() { return pending.get(); }
+
+    public int getSessionCount() { return queues.size(); }
+
+    /**
+     * 因会话指令队列已满而拒收的次数
+     */
+    public long getOverflowCount() { return overflows.get(); }
+}
@@ -0,0 +1,402 @@
+package cc.techox.boardgame.websocket;
+
+import cc.techox.boardgame.memory.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import jakarta.websocket.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.AbstractWebSocketMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket 出站队列
+ * 发送方只把帧放进会话自己的有界队列，由写线程按顺序写出，同一会话同一时刻只有一个线程在写，发送方不会被慢客户端拖住。
+ * JDK 21+ 每个会话的写任务跑在虚拟线程上；Java 17 时所有会话共用 writer-threads 个平台线程，
+ * 写慢客户端会占住其中一个，因此每次发送受容器的阻塞发送超时（send-timeout-seconds）限制，超时按发送失败断开该会话
+ *
+ * 队列积压时的处理：
+ * 1. 同一频道的房间快照（room_updated）只保留最新一条，排队中的旧快照直接丢弃；game_action 等事件逐条送达；
+ * 2. 丢弃旧快照后仍超过条数或字节上限，或最早一条已等待超过 max-lag-seconds（入队时及时间轮上每秒检查），
+ *    判定为持续跟不上的慢客户端，以 SESSION_NOT_RELIABLE 关闭连接，客户端重连后通过 sync_state 恢复状态。
+ * 关闭连接也要写关闭帧，放在单独的线程上做，不占用写线程。上限来自 boardgame.websocket.outbound.*
+ */
+@Component
+public class SessionOutbox {
+    // Tomcat 读取的会话属性：阻塞发送的超时（毫秒）
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+    private static final long LAG_CHECK_MILLIS = 1000;
+
+    private final ExecutorService executor;
+    private final ExecutorService closer;
+    private final TimingWheel timingWheel;
+    private final Map<String, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long maxLagMillis;
+    private final long sendTimeoutMillis;
+    private volatile boolean running = true;
+
+    // 统计
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong sendFailures = new AtomicLong();
+    private final AtomicLong slowDisconnects = new AtomicLong();
+
+    /**
+     * 排队中的一帧
+     */
+    private static final class Entry {
+        final AbstractWebSocketMessage<?> frame;
+        final int bytes;
+        final String supersedeKey;
+        final long enqueuedAt;
+        boolean superseded;
+
+        Entry(AbstractWebSocketMessage<?> frame, String supersedeKey, long enqueuedAt) {
+            this.frame = frame;
+            this.bytes = frame.getPayloadLength();
+            this.supersedeKey = supersedeKey;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * 单个会话的出站队列，同一时刻最多一个线程在写
+     */
+    private final class SessionQueue implements Runnable {
+        private final WebSocketSession session;
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+        // 快照 key -> 队列中该 key 最新的一条
+        private final Map<String, Entry> latest = new HashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private int queuedMessages;
+        private long queuedBytes;
+        private long sentCount;
+        private long supersededCount;
+        private boolean closed;
+
+        SessionQueue(WebSocketSession session) {
+            this.session = session;
+            applySendTimeout(session);
+        }
+
+        boolean offer(AbstractWebSocketMessage<?> frame, String supersedeKey) {
+            long now = System.currentTimeMillis();
+            String slowReason;
+            synchronized (this) {
+                if (closed) return false;
+                Entry entry = new Entry(frame, supersedeKey, now);
+                if (supersedeKey != null) {
+                    Entry previous = latest.put(supersedeKey, entry);
+                    if (previous != null) {
+                        previous.superseded = true;
+                        queuedMessages--;
+                        queuedBytes -= previous.bytes;
+                        supersededCount++;
+                        superseded.incrementAndGet();
+                    }
+                }
+                entries.addLast(entry);
+                queuedMessages++;
+                queuedBytes += entry.bytes;
+                slowReason = closeIfSlow(now);
+            }
+            if (slowReason != null) {
+                disconnectSlow(slowReason);
+                return false;
+            }
+            schedule();
+            return true;
+        }
+
+        /**
+         * 定时检查：写线程阻塞在慢客户端上时，没有新消息入队也能发现积压
+         */
+        void checkLag(long now) {
+            String slowReason;
+            synchronized (this) {
+                if (closed) return;
+                slowReason = closeIfSlow(now);
+            }
+            if (slowReason != null) disconnectSlow(slowReason);
+        }
+
+        /**
+         * 超过上限时把队列置为关闭并清空，返回原因；调用方持有锁
+         */
+        private String closeIfSlow(long now) {
+            String slowReason = checkLimits(now);
+            if (slowReason != null) {
+                closed = true;
+                clear();
+            }
+            return slowReason;
+        }
+
+        /**
+         * 调用方持有锁
+         */
+        private String checkLimits(long now) {
+            if (queuedMessages > maxMessages) return "积压 " + queuedMessages + " 条消息";
+            if (queuedBytes > maxBytes) return "积压 " + (queuedBytes / 1024) + " KB";
+            Entry oldest = oldest();
+            if (oldest != null && now - oldest.enqueuedAt > maxLagMillis) {
+                return "最早的消息已等待 " + (now - oldest.enqueuedAt) + " ms";
+            }
+            return null;
+        }
+
+        /**
+         * 调用方持有锁
+         */
+        private Entry oldest() {
+            for (Entry e : entries) {
+                if (!e.superseded) return e;
+            }
+            return null;
+        }
+
+        /**
+         * 调用方持有锁
+         */
+        private void clear() {
+            entries.clear();
+            latest.clear();
+            queuedMessages = 0;
+            queuedBytes = 0;
+        }
+
+        private synchronized Entry poll() {
+            if (closed) return null;
+            Entry entry;
+            while ((entry = entries.pollFirst()) != null) {
+                if (entry.superseded) continue;
+                queuedMessages--;
+                queuedBytes -= entry.bytes;
+                if (entry.supersedeKey != null) latest.remove(entry.supersedeKey, entry);
+                return entry;
+            }
+            return null;
+        }
+
+        private synchronized boolean hasPending() {
+            return !closed && queuedMessages > 0;
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // 关闭中：丢弃剩余消息
+                draining.set(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Entry entry;
+                while ((entry = poll()) != null) {
+                    if (!session.isOpen()) {
+                        close();
+                        return;
+                    }
+                    try {
+                        session.sendMessage(entry.frame);
+                        synchronized (this) {
+                            sentCount++;
+                        }
+                        sent.incrementAndGet();
+                    } catch (Exception e) {
+                        sendFailures.incrementAndGet();
+                        System.err.println("向会话 " + session.getId() + " 发送消息失败: " + e.getMessage());
+                        // 连接可能已断开或发送超时：丢弃剩余消息并关闭，由连接关闭回调清理会话
+                        close();
+                        closeLater(session, CloseStatus.SERVER_ERROR);
+                        return;
+                    }
+                }
+            } finally {
+                draining.set(false);
+                if (hasPending()) schedule();
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            clear();
+        }
+
+        private void disconnectSlow(String reason) {
+            slowDisconnects.incrementAndGet();
+            System.err.println("会话 " + session.getId() + " 接收过慢（" + reason + "），断开连接");
+            // 队列保留为关闭状态直到连接关闭回调 remove，期间的发送直接丢弃，不会重建队列
+            closeLater(session, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+
+        synchronized Map<String, Object> snapshot(long now) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            Entry oldest = oldest();
+            stats.put("sessionId", session.getId());
+            stats.put("queuedMessages", queuedMessages);
+            stats.put("queuedBytes", queuedBytes);
+            stats.put("lagMillis", oldest != null ? now - oldest.enqueuedAt : 0);
+            stats.put("sent", sentCount);
+            stats.put("superseded", supersededCount);
+            return stats;
+        }
+    }
+
+    public SessionOutbox(TimingWheel timingWheel,
+                         @Value("${boardgame.websocket.outbound.max-messages:256}") int maxMessages,
+                         @Value("${boardgame.websocket.outbound.max-kb:1024}") int maxKb,
+                         @Value("${boardgame.websocket.outbound.max-lag-seconds:15}") int maxLagSeconds,
+                         @Value("${boardgame.websocket.outbound.send-timeout-seconds:5}") int sendTimeoutSeconds,
+                         @Value("${boardgame.websocket.outbound.writer-threads:32}") int platformThreads) {
+        if (maxMessages <= 0 || maxKb <= 0 || maxLagSeconds <= 0 || sendTimeoutSeconds <= 0) {
+            throw new IllegalArgumentException("WebSocket 出站队列上限必须大于 0");
+        }
+        this.timingWheel = timingWheel;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxKb * 1024L;
+        this.maxLagMillis = maxLagSeconds * 1000L;
+        this.sendTimeoutMillis = sendTimeoutSeconds * 1000L;
+        ExecutorService virtual = SessionCommandExecutor.newVirtualThreadExecutor();
+        if (virtual != null) {
+            this.executor = virtual;
+            this.closer = SessionCommandExecutor.newVirtualThreadExecutor();
+        } else {
+            this.executor = newPlatformPool("ws-writer-", platformThreads);
+            // 关闭同样受发送超时限制，两个线程足够
+            this.closer = newPlatformPool("ws-closer-", 2);
+        }
+        scheduleLagCheck();
+    }
+
+    private static ExecutorService newPlatformPool(String prefix, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        executor.shutdown();
+        closer.shutdown();
+    }
+
+    private void scheduleLagCheck() {
+        timingWheel.schedule(LAG_CHECK_MILLIS, TimeUnit.MILLISECONDS, () -> {
+            try {
+                long now = System.currentTimeMillis();
+                for (SessionQueue queue : queues.values()) queue.checkLag(now);
+            } finally {
+                if (running) scheduleLagCheck();
+            }
+        });
+    }
+
+    /**
+     * 把一帧排入会话的出站队列
+     * @param supersedeKey 快照 key，队列中 key 相同的旧帧会被这一帧取代；为 null 时不取代
+     * @return false 表示会话已关闭或因接收过慢被断开
+     */
+    public boolean enqueue(WebSocketSession session, AbstractWebSocketMessage<?> frame, String supersedeKey) {
+        if (session == null || !session.isOpen()) return false;
+        return queues.computeIfAbsent(session.getId(), id -> new SessionQueue(session)).offer(frame, supersedeKey);
+    }
+
+    /**
+     * 会话关闭后丢弃其未发出的消息
+     */
+    public void remove(String sessionId) {
+        SessionQueue queue = queues.remove(sessionId);
+        if (queue != null) queue.close();
+    }
+
+    /**
+     * 限制该会话每次阻塞发送的时长；非 Tomcat 容器忽略这个属性，仍由其自身的发送超时兜底
+     */
+    private void applySendTimeout(WebSocketSession session) {
+        if (WebSocketSessionDecorator.unwrap(session) instanceof NativeWebSocketSession nativeSession) {
+            Session standard = nativeSession.getNativeSession(Session.class);
+            if (standard != null) standard.getUserProperties().put(BLOCKING_SEND_TIMEOUT, sendTimeoutMillis);
+        }
+    }
+
+    /**
+     * 在关闭线程上关闭会话：关闭帧的发送可能阻塞到发送超时，不占用写线程和时间轮
+     */
+    private void closeLater(WebSocketSession session, CloseStatus status) {
+        try {
+            closer.execute(() -> closeQuietly(session, status));
+        } catch (RejectedExecutionException e) {
+            closeQuietly(session, status);
+        }
+    }
+
+    private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            if (session.isOpen()) session.close(status);
+        } catch (Exception ignored) {
+        }
+    }
+
+    // ==================== 统计 ====================
+
+    /**
+     * 出站队列统计；sessions 为积压最多的前 limit 个会话
+     */
+    public Map<String, Object> getStats(int limit) {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> sessions = new ArrayList<>();
+        long queuedMessages = 0;
+        long queuedBytes = 0;
+        for (SessionQueue queue : queues.values()) {
+            Map<String, Object> s = queue.snapshot(now);
+            queuedMessages += (Integer) s.get("queuedMessages");
+            queuedBytes += (Long) s.get("queuedBytes");
+            sessions.add(s);
+        }
+        sessions.sort(Comparator.comparingLong((Map<String, Object> s) -> (Long) s.get("queuedBytes")).reversed());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxMessages", maxMessages);
+        stats.put("maxKb", maxBytes / 1024);
+        stats.put("maxLagSeconds", maxLagMillis / 1000);
+        stats.put("sendTimeoutSeconds", sendTimeoutMillis / 1000);
+        stats.put("sessionCount", queues.size());
+        stats.put("queuedMessages", queuedMessages);
+        stats.put("queuedBytes", queuedBytes);
+        stats.put("sent", sent.get());
+        stats.put("superseded", superseded.get());
+        stats.put("sendFailures", sendFailures.get());
+        stats.put("slowDisconnects", slowDisconnects.get());
+        stats.put("sessions", sessions.subList(0, Math.min(Math.max(limit, 0), sessions.size())));
+        return stats;
+    }
+}
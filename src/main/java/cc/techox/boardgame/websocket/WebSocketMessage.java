@@ -2,12 +2,25 @@ package cc.techox.boardgame.websocket;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class WebSocketMessage {
+    // 所有出站消息共用一个预先解析好序列化器的 writer（线程安全），不再每条消息新建 ObjectMapper
+    private static final ObjectWriter WRITER = new ObjectMapper().writerFor(WebSocketMessage.class);
+    private static final String SERIALIZATION_ERROR =
+            "{\"type\":\"error\",\"data\":{\"code\":\"SERIALIZATION_ERROR\",\"message\":\"消息序列化失败\"}}";
+    
+    // messageId = 进程启动时间前缀 + 递增序号（36 进制），本进程内单调、重启后不重复，不再为每条消息取一次 SecureRandom
+    private static final String ID_PREFIX = Long.toString(System.currentTimeMillis(), 36) + "-";
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+    
     // 统一Envelope扩展字段（可选，兼容旧客户端）
     private String kind;      // cmd | ack | evt | err
     private String type;
@@ -20,7 +33,7 @@ public class WebSocketMessage {
     
     public WebSocketMessage() {
         this.timestamp = LocalDateTime.now().toString();
-        this.messageId = UUID.randomUUID().toString();
+        this.messageId = ID_PREFIX + Long.toString(ID_SEQUENCE.incrementAndGet(), 36);
     }
     
     public WebSocketMessage(String type, Object data) {
@@ -66,13 +79,46 @@ public class WebSocketMessage {
 
     public String toJson() {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.writeValueAsString(this);
+            return WRITER.writeValueAsString(this);
+        } catch (Exception e) {
+            return SERIALIZATION_ERROR;
+        }
+    }
+
+    /**
+     * 直接编码为 UTF-8 字节的文本帧；同一帧可以原样发给多个会话（广播时只编码一次）
+     */
+    public TextMessage toTextMessage() {
+        try {
+            return new TextMessage(WRITER.writeValueAsBytes(this));
         } catch (Exception e) {
-            return "{\"type\":\"error\",\"data\":{\"code\":\"SERIALIZATION_ERROR\",\"message\":\"消息序列化失败\"}}";
+            return new TextMessage(SERIALIZATION_ERROR.getBytes(StandardCharsets.UTF_8));
         }
     }
 
+    /**
+     * 按二进制子协议（{@link BinaryFrameCodec}）编码的帧，供协商了 boardgame.bin.v1 的会话使用
+     */
+    public BinaryMessage toBinaryMessage() {
+        try {
+            return new BinaryMessage(BinaryFrameCodec.encode(this));
+        } catch (Exception e) {
+            WebSocketMessage error = WebSocketMessage.error("SERIALIZATION_ERROR", "消息序列化失败");
+            return new BinaryMessage(BinaryFrameCodec.encode(error));
+        }
+    }
+
+    /**
+     * 出站队列中可相互取代的快照类消息的 key：同一频道较新的 room_updated 是完整的房间快照，包含了旧消息的全部内容，
+     * 积压时只需发送最新一条；其他消息返回 null，必须逐条送达
+     * game_action 虽然也带着最新状态，但其中的动作、出牌玩家与动作数据只出现在这一条里，不能被后面的消息取代
+     */
+    public String supersedeKey() {
+        if (channel == null || kind == null || !kind.equals("evt")) return null;
+        if ("room_updated".equals(type)) return type + "|" + channel;
+        return null;
+    }
+
     // Getters and Setters
     public String getKind() { return kind; }
     public void setKind(String kind) { this.kind = kind; }
@@ -2,6 +2,9 @@ package cc.techox.boardgame.websocket;
 
 import cc.techox.boardgame.model.User;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.AbstractWebSocketMessage;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.*;
@@ -25,6 +28,13 @@ public class WebSocketSessionManager {
     // 会话ID -> 认证状态（防止重复认证）
     private final Map<String, Boolean> sessionAuthStatus = new ConcurrentHashMap<>();
     
+    // 出站消息不在调用方线程上直接写出，而是排入会话自己的出站队列
+    private final SessionOutbox outbox;
+
+    public WebSocketSessionManager(SessionOutbox outbox) {
+        this.outbox = outbox;
+    }
+    
     /**
      * 用户连接认证成功后注册会话
      * @return true 如果是新注册或替换了旧会话，false 如果是重复注册同一会话
@@ -85,6 +95,7 @@ public class WebSocketSessionManager {
         
         User user = sessionUsers.remove(session.getId());
         sessionAuthStatus.remove(session.getId()); // 清理认证状态
+        outbox.remove(session.getId());
         
         if (user != null) {
             // 只有当前会话是用户的活跃会话时才移除
@@ -135,31 +146,34 @@ public class WebSocketSessionManager {
     }
     
     /**
-     * 向指定用户发送消息
+     * 向指定用户发送消息（用户不在线时不做编码）
      */
     public boolean sendToUser(Long userId, WebSocketMessage message) {
+        return sendToUser(userId, new Frames(message));
+    }
+    
+    private boolean sendToUser(Long userId, Frames frames) {
         WebSocketSession session = userSessions.get(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                session.sendMessage(new org.springframework.web.socket.TextMessage(message.toJson()));
-                return true;
-            } catch (Exception e) {
-                System.err.println("向用户 " + userId + " 发送消息失败: " + e.getMessage());
-                // 连接可能已断开，清理会话
-                removeSession(session);
-                return false;
-            }
-        }
-        return false;
+        return session != null && session.isOpen() && outbox.enqueue(session, frames.forSession(session), frames.supersedeKey);
     }
     
     /**
-     * 向房间内所有用户广播消息
+     * 向尚未注册或不按用户寻址的会话发送消息（欢迎消息、ACK、错误回复等），同样经过会话的出站队列
+     */
+    public boolean sendToSession(WebSocketSession session, WebSocketMessage message) {
+        if (session == null || !session.isOpen()) return false;
+        Frames frames = new Frames(message);
+        return outbox.enqueue(session, frames.forSession(session), frames.supersedeKey);
+    }
+    
+    /**
+     * 向房间内所有用户广播消息：每种线上格式只编码一次，同一格式的接收者共用同一帧
      */
     public void broadcastToRoom(Long roomId, WebSocketMessage message) {
         Set<Long> roomUsers = roomChannels.get(roomId);
-        if (roomUsers != null) {
-            roomUsers.forEach(userId -> sendToUser(userId, message));
+        if (roomUsers != null && !roomUsers.isEmpty()) {
+            Frames frames = new Frames(message);
+            roomUsers.forEach(userId -> sendToUser(userId, frames));
         }
     }
     
@@ -168,10 +182,35 @@ public class WebSocketSessionManager {
      */
     public void broadcastToRoomExcept(Long roomId, Long excludeUserId, WebSocketMessage message) {
         Set<Long> roomUsers = roomChannels.get(roomId);
-        if (roomUsers != null) {
+        if (roomUsers != null && !roomUsers.isEmpty()) {
+            Frames frames = new Frames(message);
             roomUsers.stream()
                     .filter(userId -> !userId.equals(excludeUserId))
-                    .forEach(userId -> sendToUser(userId, message));
+                    .forEach(userId -> sendToUser(userId, frames));
+        }
+    }
+    
+    /**
+     * 一条消息按会话协商的子协议编码出的帧：JSON 文本帧或二进制帧，各自在第一次用到时编码
+     */
+    private static final class Frames {
+        private final WebSocketMessage message;
+        private final String supersedeKey;
+        private TextMessage text;
+        private BinaryMessage binary;
+        
+        Frames(WebSocketMessage message) {
+            this.message = message;
+            this.supersedeKey = message.supersedeKey();
+        }
+        
+        AbstractWebSocketMessage<?> forSession(WebSocketSession session) {
+            if (BinaryFrameCodec.isBinary(session)) {
+                if (binary == null) binary = message.toBinaryMessage();
+                return binary;
+            }
+            if (text == null) text = message.toTextMessage();
+            return text;
         }
     }
     
@@ -204,6 +243,13 @@ public class WebSocketSessionManager {
         return session != null && session.isOpen();
     }
     
+    /**
+     * 出站队列统计
+     */
+    public Map<String, Object> getOutboundStats(int limit) {
+        return outbox.getStats(limit);
+    }
+    
     /**
      * 根据会话获取用户信息
      */
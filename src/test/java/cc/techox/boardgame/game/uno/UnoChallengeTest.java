@@ -0,0 +1,83 @@
+package cc.techox.boardgame.game.uno;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnoChallengeTest {
+
+    private static CardArray cards(String... codes) {
+        CardArray array = CardArray.empty();
+        for (String code : codes) array = array.add(UnoCards.parse(code));
+        return array;
+    }
+
+    /**
+     * 三人局，玩家 1/2/3 的手牌依次给定，弃牌堆自底向上为 discard，当前轮到玩家 1
+     */
+    private static UnoState state(CardArray discard, CardArray hand1, CardArray hand2, CardArray hand3) {
+        UnoState s = new UnoState();
+        s.players.add(new UnoState.PlayerState(1, hand1, false));
+        s.players.add(new UnoState.PlayerState(2, hand2, false));
+        s.players.add(new UnoState.PlayerState(3, hand3, false));
+        s.discardPile = discard;
+        s.drawPile = cards("G-1", "G-2", "G-3", "G-4", "G-5", "G-6", "G-7", "G-8", "G-9", "B-1", "B-2", "B-3");
+        s.started = true;
+        return s;
+    }
+
+    @Test
+    void challengeSucceedsWhenHandMatchesColorUnderTheWildDraw4() {
+        UnoState s = state(cards("R-5"), cards("W-D4", "R-9", "B-1"), cards("Y-2"), cards("Y-3"));
+        UnoEngine.play(s, 1, "W-D4", "B");
+
+        UnoEngine.ChallengeResult result = UnoEngine.challengeWildDraw4(s, 2);
+
+        assertTrue(result.challengeSuccessful);
+        assertEquals(1, result.challengedPlayerId);
+    }
+
+    @Test
+    void chosenColorOfTheWildDraw4IsNotWhatIsChallenged() {
+        // 持有 +4 选定的蓝色不算违规；打出前生效的红色手中没有
+        UnoState s = state(cards("R-5"), cards("W-D4", "B-1", "G-5"), cards("Y-2"), cards("Y-3"));
+        UnoEngine.play(s, 1, "W-D4", "B");
+
+        UnoEngine.ChallengeResult result = UnoEngine.challengeWildDraw4(s, 2);
+
+        assertFalse(result.challengeSuccessful);
+        assertEquals(7, result.newState.players.get(1).hand.size());
+    }
+
+    @Test
+    void matchingNumberWithoutMatchingColorIsNotAViolation() {
+        UnoState s = state(cards("R-5"), cards("W-D4", "B-5"), cards("Y-2"), cards("Y-3"));
+        UnoEngine.play(s, 1, "W-D4", "G");
+
+        assertFalse(UnoEngine.challengeWildDraw4(s, 2).challengeSuccessful);
+    }
+
+    @Test
+    void colorChosenForAWildUnderTheWildDraw4IsUsed() {
+        // 顶牌为万能牌（选了绿色）时，+4 打出前生效的是绿色
+        UnoState s = state(cards("B-3", "W-WILD"), cards("W-D4", "G-7", "B-9"), cards("Y-2"), cards("Y-3"));
+        s.forcedColor = UnoCards.parseColor("G");
+        UnoEngine.play(s, 1, "W-D4", "R");
+
+        assertEquals(UnoCards.parseColor("G"), s.priorColor);
+        assertTrue(UnoEngine.challengeWildDraw4(s, 2).challengeSuccessful);
+    }
+
+    @Test
+    void priorColorSurvivesSnapshotRoundTrip() {
+        UnoState s = state(cards("R-5"), cards("W-D4", "R-9"), cards("Y-2"), cards("Y-3"));
+        UnoEngine.play(s, 1, "W-D4", "B");
+
+        UnoState decoded = UnoStateCodec.decode(UnoStateCodec.encode(s), name -> UnoRules.STANDARD);
+
+        assertEquals(s.priorColor, decoded.priorColor);
+        assertTrue(UnoEngine.challengeWildDraw4(decoded, 2).challengeSuccessful);
+    }
+}
@@ -0,0 +1,151 @@
+package cc.techox.boardgame.game.uno;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnoStateCodecTest {
+
+    private static UnoState decode(byte[] data) {
+        return UnoStateCodec.decode(data, name -> UnoRules.STANDARD);
+    }
+
+    /**
+     * 三人局（含一个机器人座位）随机走 steps 步
+     */
+    private static UnoState playedGame(long movesSeed, int steps) {
+        UnoState s = UnoEngine.newGame(List.of(10L, 20L, -1L));
+        Random random = new Random(movesSeed);
+        for (int i = 0; i < steps && !s.finished; i++) {
+            long userId = s.currentPlayer().userId;
+            CardArray playable = UnoEngine.playableKinds(s, userId);
+            if (playable.isEmpty()) {
+                s = UnoEngine.drawAndPass(s, userId);
+            } else {
+                s = UnoEngine.playCard(s, userId, playable.get(random.nextInt(playable.size())), random.nextInt(4));
+            }
+        }
+        return s;
+    }
+
+    /**
+     * 把当前版本的快照改写成版本 1：去掉 priorColor 字节
+     * 头部 magic | version | flags | currentIdx | pendingDraw | forcedColor | priorColor，前两个 varint 在测试局中都只占一个字节
+     */
+    private static byte[] asVersion1(byte[] v2) {
+        byte[] v1 = new byte[v2.length - 1];
+        System.arraycopy(v2, 0, v1, 0, 6);
+        System.arraycopy(v2, 7, v1, 6, v2.length - 7);
+        v1[1] = 1;
+        return v1;
+    }
+
+    private static UnoState withDiscard(String... codes) {
+        UnoState s = UnoEngine.newGame(List.of(1L, 2L));
+        CardArray discard = CardArray.empty();
+        for (String code : codes) discard = discard.add(UnoCards.parse(code));
+        s.discardPile = discard;
+        return s;
+    }
+
+    @Test
+    void roundTripPreservesEveryField() {
+        for (long seed = 1; seed <= 20; seed++) {
+            UnoState s = playedGame(seed, (int) (seed * 7));
+            byte[] encoded = UnoStateCodec.encode(s);
+
+            UnoState decoded = decode(encoded);
+
+            assertArrayEquals(encoded, UnoStateCodec.encode(decoded));
+            assertEquals(s.currentIdx, decoded.currentIdx);
+            assertEquals(s.direction, decoded.direction);
+            assertEquals(s.pendingDraw, decoded.pendingDraw);
+            assertEquals(s.forcedColor, decoded.forcedColor);
+            assertEquals(s.priorColor, decoded.priorColor);
+            assertEquals(s.seed, decoded.seed);
+            assertEquals(s.rngState, decoded.rngState);
+            assertEquals(s.finished, decoded.finished);
+            assertEquals(s.winnerUserId, decoded.winnerUserId);
+            assertEquals(s.players.size(), decoded.players.size());
+            for (int i = 0; i < s.players.size(); i++) {
+                assertEquals(s.players.get(i).userId, decoded.players.get(i).userId);
+                assertEquals(s.players.get(i).hand.size(), decoded.players.get(i).hand.size());
+            }
+        }
+    }
+
+    @Test
+    void finishedGameRoundTripsWithWinner() {
+        UnoState s = playedGame(5, 100_000);
+        assertTrue(s.finished);
+
+        UnoState decoded = decode(UnoStateCodec.encode(s));
+
+        assertEquals(s.winnerUserId, decoded.winnerUserId);
+        assertTrue(decoded.finished);
+    }
+
+    @Test
+    void encodesCurrentVersion() {
+        assertEquals(UnoStateCodec.CURRENT_VERSION, UnoStateCodec.version(UnoStateCodec.encode(playedGame(1, 10))));
+    }
+
+    @Test
+    void version1SnapshotInfersPriorColorFromCardUnderTheTop() {
+        UnoState s = withDiscard("R-5", "W-D4");
+        s.forcedColor = UnoCards.parseColor("B");
+
+        UnoState decoded = decode(asVersion1(UnoStateCodec.encode(s)));
+
+        assertEquals(UnoCards.parseColor("R"), decoded.priorColor);
+        assertEquals(UnoCards.parseColor("B"), decoded.forcedColor);
+        assertEquals(UnoStateCodec.CURRENT_VERSION, UnoStateCodec.version(UnoStateCodec.encode(decoded)));
+    }
+
+    @Test
+    void version1SnapshotCannotInferPriorColorUnderAWild() {
+        UnoState decoded = decode(asVersion1(UnoStateCodec.encode(withDiscard("W-WILD", "W-D4"))));
+
+        assertEquals(UnoCards.NONE, decoded.priorColor);
+    }
+
+    @Test
+    void rejectsWrongMagicAndUnknownVersion() {
+        byte[] encoded = UnoStateCodec.encode(playedGame(2, 10));
+
+        byte[] badMagic = encoded.clone();
+        badMagic[0] = 'X';
+        assertThrows(IllegalArgumentException.class, () -> decode(badMagic));
+
+        byte[] future = encoded.clone();
+        future[1] = (byte) (UnoStateCodec.CURRENT_VERSION + 1);
+        assertThrows(IllegalArgumentException.class, () -> decode(future));
+    }
+
+    @Test
+    void rejectsTruncatedAndTrailingBytes() {
+        byte[] encoded = UnoStateCodec.encode(playedGame(3, 30));
+
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> decode(truncated), "length " + length);
+        }
+        assertThrows(IllegalArgumentException.class, () -> decode(Arrays.copyOf(encoded, encoded.length + 1)));
+    }
+
+    @Test
+    void rejectsUnknownCardKind() {
+        byte[] encoded = UnoStateCodec.encode(withDiscard("R-5"));
+        // 最后一个字节是弃牌堆唯一一张牌的 kind
+        encoded[encoded.length - 1] = (byte) UnoCards.NUM_KINDS;
+
+        assertThrows(IllegalArgumentException.class, () -> decode(encoded));
+    }
+}
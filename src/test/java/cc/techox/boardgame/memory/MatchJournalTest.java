@@ -0,0 +1,172 @@
+package cc.techox.boardgame.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MatchJournalTest {
+
+    // 每条记录的固定开销：[int 长度][int CRC32][byte 类型][long matchId][long 版本]
+    private static final int RECORD_OVERHEAD = 4 + 4 + 1 + 8 + 8;
+
+    @TempDir
+    Path dir;
+
+    private MatchJournal journal() {
+        return new MatchJournal(true, dir.toString(), 1);
+    }
+
+    private static MatchJournal.Entry command(long matchId, long version, int... payload) {
+        byte[] bytes = new byte[payload.length];
+        for (int i = 0; i < payload.length; i++) bytes[i] = (byte) payload[i];
+        return new MatchJournal.Entry(MatchJournal.COMMAND, matchId, version, bytes);
+    }
+
+    private static void append(MatchJournal journal, MatchJournal.Entry... entries) {
+        for (MatchJournal.Entry e : entries) journal.append(e.type(), e.matchId(), e.version(), e.payload());
+    }
+
+    private static void assertEntries(List<MatchJournal.Entry> expected, List<MatchJournal.Entry> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).type(), actual.get(i).type(), "type of entry " + i);
+            assertEquals(expected.get(i).matchId(), actual.get(i).matchId(), "matchId of entry " + i);
+            assertEquals(expected.get(i).version(), actual.get(i).version(), "version of entry " + i);
+            assertArrayEquals(expected.get(i).payload(), actual.get(i).payload(), "payload of entry " + i);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    /**
+     * 写一个只包含 entries 的分段，返回其路径
+     */
+    private Path writeSegment(MatchJournal.Entry... entries) throws IOException {
+        MatchJournal journal = journal();
+        journal.start(List.of(), List::of);
+        append(journal, entries);
+        journal.shutdown();
+        List<Path> segments = segments();
+        return segments.get(segments.size() - 1);
+    }
+
+    @Test
+    void replaysAppendedRecordsInOrder() throws IOException {
+        List<MatchJournal.Entry> entries = List.of(
+                new MatchJournal.Entry(MatchJournal.SNAPSHOT, 1, 0, new byte[]{1, 2, 3}),
+                command(1, 1, 4),
+                command(2, 1, 5, 6),
+                new MatchJournal.Entry(MatchJournal.FINISHED, 1, 1, new byte[0]));
+        writeSegment(entries.toArray(MatchJournal.Entry[]::new));
+
+        assertEntries(entries, journal().readAll());
+    }
+
+    @Test
+    void startWritesBaseIntoNewSegmentAndDropsOldOnes() throws IOException {
+        writeSegment(command(1, 1, 1), command(1, 2, 2));
+        MatchJournal.Entry base = new MatchJournal.Entry(MatchJournal.SNAPSHOT, 1, 2, new byte[]{9});
+
+        MatchJournal journal = journal();
+        journal.start(List.of(base), List::of);
+        append(journal, command(1, 3, 3));
+        journal.shutdown();
+
+        assertEquals(1, segments().size());
+        assertEntries(List.of(base, command(1, 3, 3)), journal().readAll());
+    }
+
+    @Test
+    void rotationStartsNewSegmentFromCheckpoint() throws Exception {
+        MatchJournal.Entry checkpoint = new MatchJournal.Entry(MatchJournal.SNAPSHOT, 7, 1100, new byte[]{7});
+        MatchJournal journal = journal();
+        journal.start(List.of(), () -> List.of(checkpoint));
+        Path first = segments().get(0);
+        // 每条约 1 KB，超过 1 MB 的分段上限后由写线程轮转
+        byte[] payload = new byte[1024];
+        for (int version = 1; version <= 1100; version++) {
+            journal.append(MatchJournal.COMMAND, 7, version, payload);
+        }
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Files.exists(first) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        journal.append(MatchJournal.COMMAND, 7, 1101, new byte[]{1});
+        journal.shutdown();
+
+        assertEquals(1, segments().size());
+        List<MatchJournal.Entry> replayed = journal().readAll();
+        assertEntries(List.of(checkpoint), replayed.subList(0, 1));
+        assertEquals(1101, replayed.get(replayed.size() - 1).version());
+    }
+
+    @Test
+    void readsSegmentsLeftBehindByACrashInSequence() throws IOException {
+        Path first = writeSegment(command(1, 1, 1), command(1, 2, 2));
+        byte[] firstBytes = Files.readAllBytes(first);
+        MatchJournal.Entry base = new MatchJournal.Entry(MatchJournal.SNAPSHOT, 1, 2, new byte[]{9});
+        MatchJournal journal = journal();
+        journal.start(List.of(base), List::of);
+        append(journal, command(1, 3, 3));
+        journal.shutdown();
+        // 崩溃在新分段写完、旧分段删除之前
+        Files.write(first, firstBytes);
+
+        assertEquals(2, segments().size());
+        assertEntries(List.of(command(1, 1, 1), command(1, 2, 2), base, command(1, 3, 3)), journal().readAll());
+    }
+
+    @Test
+    void tornTailIsIgnored() throws IOException {
+        Path segment = writeSegment(command(1, 1, 1, 1), command(1, 2, 2, 2), command(1, 3, 3, 3));
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertEntries(List.of(command(1, 1, 1, 1), command(1, 2, 2, 2)), journal().readAll());
+    }
+
+    @Test
+    void partialHeaderAtTailIsIgnored() throws IOException {
+        Path segment = writeSegment(command(1, 1, 1));
+        byte[] bytes = Files.readAllBytes(segment);
+        byte[] torn = Arrays.copyOf(bytes, bytes.length + 3);
+        Files.write(segment, torn);
+
+        assertEntries(List.of(command(1, 1, 1)), journal().readAll());
+    }
+
+    @Test
+    void checksumMismatchDropsTheRecordAndEverythingAfterIt() throws IOException {
+        Path segment = writeSegment(command(1, 1, 1, 1), command(1, 2, 2, 2), command(1, 3, 3, 3));
+        byte[] bytes = Files.readAllBytes(segment);
+        // 翻转第二条记录 payload 的最后一个字节
+        int recordSize = RECORD_OVERHEAD + 2;
+        bytes[2 * recordSize - 1] ^= 0x55;
+        Files.write(segment, bytes);
+
+        assertEntries(List.of(command(1, 1, 1, 1)), journal().readAll());
+    }
+
+    @Test
+    void corruptEarlierSegmentStopsReplayBeforeLaterSegments() throws IOException {
+        Path first = writeSegment(command(1, 1, 1), command(1, 2, 2));
+        byte[] firstBytes = Files.readAllBytes(first);
+        MatchJournal journal = journal();
+        journal.start(List.of(new MatchJournal.Entry(MatchJournal.SNAPSHOT, 1, 2, new byte[]{9})), List::of);
+        journal.shutdown();
+        Files.write(first, Arrays.copyOf(firstBytes, firstBytes.length - 1));
+
+        assertEntries(List.of(command(1, 1, 1)), journal().readAll());
+    }
+}
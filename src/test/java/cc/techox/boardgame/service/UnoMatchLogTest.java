@@ -0,0 +1,106 @@
+package cc.techox.boardgame.service;
+
+import cc.techox.boardgame.config.GameDataManager;
+import cc.techox.boardgame.game.uno.UnoEngine;
+import cc.techox.boardgame.game.uno.UnoState;
+import cc.techox.boardgame.game.uno.UnoStateCodec;
+import cc.techox.boardgame.memory.ColdStore;
+import cc.techox.boardgame.memory.GameStateManager;
+import cc.techox.boardgame.memory.MatchJournal;
+import cc.techox.boardgame.memory.MatchMailbox;
+import cc.techox.boardgame.memory.MemoryPressureMonitor;
+import cc.techox.boardgame.memory.TimingWheel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnoMatchLogTest {
+
+    @TempDir
+    Path dir;
+
+    private TimingWheel timingWheel;
+    private MatchMailbox mailbox;
+    private MemoryPressureMonitor pressureMonitor;
+    private MatchJournal journal;
+    private GameStateManager gameStateManager;
+    private UnoMatchLog matchLog;
+
+    @BeforeEach
+    void setUp() {
+        timingWheel = new TimingWheel(10, 1);
+        mailbox = new MatchMailbox(1);
+        pressureMonitor = new MemoryPressureMonitor(timingWheel, 65, 75, 85);
+        // 分段上限 1 MB；对局创建后立即移入冷数据区
+        journal = new MatchJournal(true, dir.toString(), 1);
+        gameStateManager = new GameStateManager(journal, new ColdStore(16), timingWheel, mailbox, pressureMonitor, 0, 100, 100, 2);
+        matchLog = new UnoMatchLog(journal, gameStateManager, new GameDataManager(), 64);
+        matchLog.recover();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.shutdown();
+        pressureMonitor.shutdown();
+        mailbox.shutdown();
+        timingWheel.shutdown();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static void await(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("超时: " + what);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void rotationLeavesSpilledMatchesCold() throws Exception {
+        UnoState state = UnoEngine.newGame(List.of(10L, 20L));
+        byte[] encoded = UnoStateCodec.encode(state);
+        gameStateManager.createGameState(1L, "uno", state, 7L, 2, state.seed, List.of(10L, 20L));
+        matchLog.created(1, 7, state);
+        GameStateManager.GameStateData session = gameStateManager.getAllGameSessions().iterator().next();
+        await("对局移入冷数据区", session::isCold);
+
+        // 写满第一个分段，由写线程以检查点为基线轮转
+        Path first = segments().get(0);
+        byte[] payload = new byte[1024];
+        for (int version = 1; version <= 1100; version++) {
+            journal.append(MatchJournal.COMMAND, 2, version, payload);
+        }
+        await("分段轮转", () -> !Files.exists(first));
+        journal.shutdown();
+
+        assertTrue(session.isCold());
+        List<MatchJournal.Entry> replayed = journal.readAll();
+        MatchJournal.Entry checkpoint = replayed.get(0);
+        assertEquals(MatchJournal.SNAPSHOT, checkpoint.type());
+        assertEquals(1, checkpoint.matchId());
+        ByteBuffer buf = ByteBuffer.wrap(checkpoint.payload());
+        assertEquals(7, buf.getLong());
+        assertEquals(0, buf.getInt());
+        byte[] snapshot = new byte[buf.remaining()];
+        buf.get(snapshot);
+        assertArrayEquals(encoded, snapshot);
+    }
+}
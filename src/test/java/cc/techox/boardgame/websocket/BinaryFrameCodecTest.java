@@ -0,0 +1,202 @@
+package cc.techox.boardgame.websocket;
+
+import cc.techox.boardgame.game.uno.UnoCards;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryFrameCodecTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static WebSocketMessage command(String type, String cid, Object data) {
+        WebSocketMessage m = new WebSocketMessage(type, data);
+        m.setKind("cmd");
+        m.setCid(cid);
+        return m;
+    }
+
+    /**
+     * 解码结果与同一消息的 JSON 信封逐字段相同（整数解码为 Long，经 JSON 文本比较以忽略数值节点类型）
+     */
+    private static void assertSameAsJson(WebSocketMessage message) throws Exception {
+        Map<String, Object> decoded = BinaryFrameCodec.decode(BinaryFrameCodec.encode(message));
+        assertEquals(MAPPER.readTree(message.toJson()), MAPPER.readTree(MAPPER.writeValueAsString(decoded)));
+    }
+
+    private static byte[] frame(int... bytes) {
+        byte[] frame = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) frame[i] = (byte) bytes[i];
+        return frame;
+    }
+
+    @Test
+    void commandRoundTripsToTheJsonEnvelope() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("roomId", 7L);
+        data.put("cardId", "R-5");
+        data.put("chosenColor", "R");
+        data.put("offset", -300);
+        data.put("ratio", 0.75);
+        data.put("ready", true);
+        data.put("team", null);
+        data.put("notInDictionary", "自定义字段");
+        data.put("list", List.of(1, "two", false, List.of()));
+        data.put("nested", Map.of("matchId", Long.MAX_VALUE, "min", Long.MIN_VALUE));
+
+        assertSameAsJson(command("match.play", "c-1", data));
+    }
+
+    @Test
+    void kindComesFirstInTheDecodedEnvelope() {
+        Map<String, Object> decoded = BinaryFrameCodec.decode(BinaryFrameCodec.encode(command("room.ready", "c-2", Map.of())));
+
+        assertEquals(List.of("kind", "type", "data", "timestamp", "messageId", "cid"), new ArrayList<>(decoded.keySet()));
+        assertEquals("cmd", decoded.get("kind"));
+    }
+
+    @Test
+    void envelopeWithoutKindOmitsIt() {
+        Map<String, Object> decoded = BinaryFrameCodec.decode(BinaryFrameCodec.encode(new WebSocketMessage("connected", null)));
+
+        assertFalse(decoded.containsKey("kind"));
+        assertEquals("connected", decoded.get("type"));
+    }
+
+    @Test
+    void eventAndErrorRoundTrip() throws Exception {
+        assertSameAsJson(WebSocketMessage.evt("room_updated", "uno", "room:uno:7", Map.of("status", "waiting", "maxPlayers", 4)));
+        assertSameAsJson(WebSocketMessage.error("ROOM_FULL", "房间已满", Map.of("roomId", 7)));
+    }
+
+    @Test
+    void cardsAreSentAsOneByteAndDecodeToCardIds() {
+        int red5 = UnoCards.parse("R-5");
+        int wild = UnoCards.parse("W-WILD");
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("topCard", UnoCards.toObject(red5));
+        data.put("hand", List.of(UnoCards.toObject(red5), UnoCards.toObject(wild)));
+
+        byte[] withCards = BinaryFrameCodec.encode(new WebSocketMessage("game_action", data));
+        Map<String, Object> decoded = BinaryFrameCodec.decode(withCards);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> decodedData = (Map<String, Object>) decoded.get("data");
+        assertEquals("R-5", decodedData.get("topCard"));
+        assertEquals(List.of("R-5", "W-WILD"), decodedData.get("hand"));
+
+        // 一张牌 2 字节（标签 + kind），比对应的对象短得多
+        Map<String, Object> asStrings = new LinkedHashMap<>();
+        asStrings.put("topCard", "R-5");
+        asStrings.put("hand", List.of("R-5", "W-WILD"));
+        assertTrue(withCards.length < BinaryFrameCodec.encode(new WebSocketMessage("game_action", asStrings)).length);
+    }
+
+    @Test
+    void objectThatOnlyLooksLikeACardStaysAnObject() throws Exception {
+        Map<String, Object> notACard = new LinkedHashMap<>(UnoCards.toObject(UnoCards.parse("R-5")));
+        notACard.put("color", "blue");
+
+        assertSameAsJson(new WebSocketMessage("game_action", Map.of("card", notACard)));
+    }
+
+    @Test
+    void dictionaryOrderIsPartOfTheProtocol() {
+        // 已发布的下标不能变：客户端按下标解码
+        assertEquals(0, BinaryFrameCodec.KEYS.indexOf("kind"));
+        assertEquals(2, BinaryFrameCodec.KEYS.indexOf("data"));
+        assertEquals(0, BinaryFrameCodec.VALUES.indexOf("cmd"));
+        assertEquals(BinaryFrameCodec.KEYS.size(), BinaryFrameCodec.KEYS.stream().distinct().count());
+        assertEquals(BinaryFrameCodec.VALUES.size(), BinaryFrameCodec.VALUES.stream().distinct().count());
+    }
+
+    @Test
+    void decodesHandWrittenFrame() {
+        // 版本 1，kind=cmd，{type: "match.draw"(字典), data: {roomId: 7}}
+        int typeKey = BinaryFrameCodec.KEYS.indexOf("type") + 1;
+        int dataKey = BinaryFrameCodec.KEYS.indexOf("data") + 1;
+        int roomIdKey = BinaryFrameCodec.KEYS.indexOf("roomId") + 1;
+        int matchDraw = BinaryFrameCodec.VALUES.indexOf("match.draw");
+
+        Map<String, Object> decoded = BinaryFrameCodec.decode(frame(
+                1, 0, 8, 2,
+                typeKey, 6, matchDraw,
+                dataKey, 8, 1, roomIdKey, 3, 14));
+
+        assertEquals("cmd", decoded.get("kind"));
+        assertEquals("match.draw", decoded.get("type"));
+        assertEquals(Map.of("roomId", 7L), decoded.get("data"));
+    }
+
+    @Test
+    void rejectsEmptyFrameAndUnknownVersion() {
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(frame(2, 0, 8, 0)));
+    }
+
+    @Test
+    void rejectsEnvelopeThatIsNotAnObject() {
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(frame(1, 0, 0)));
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(frame(1, 0, 7, 0)));
+    }
+
+    @Test
+    void rejectsUnknownTagsAndDictionaryIndexes() {
+        int dataKey = BinaryFrameCodec.KEYS.indexOf("data") + 1;
+        // 未知的值标签
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(frame(1, 0, 8, 1, dataKey, 11)));
+        // 字符串字典越界
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryFrameCodec.decode(frame(1, 0, 8, 1, dataKey, 6, BinaryFrameCodec.VALUES.size())));
+        // 字段字典越界
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryFrameCodec.decode(frame(1, 0, 8, 1, BinaryFrameCodec.KEYS.size() + 1, 0)));
+        // 卡牌编码越界
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryFrameCodec.decode(frame(1, 0, 8, 1, dataKey, 9, UnoCards.NUM_KINDS)));
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryFrameCodec.decode(frame(1, 0, 8, 1, dataKey, 10, 1, 200)));
+    }
+
+    @Test
+    void rejectsLengthsBeyondTheFrame() {
+        int dataKey = BinaryFrameCodec.KEYS.indexOf("data") + 1;
+        // 字符串声明 100 字节，实际只有 1 字节
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(frame(1, 0, 8, 1, dataKey, 5, 100, 'x')));
+        // 列表声明的个数超过剩余字节数
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(frame(1, 0, 8, 1, dataKey, 7, 0x7F)));
+        // 超过 10 字节的 varint
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(
+                frame(1, 0, 8, 1, dataKey, 3, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01)));
+    }
+
+    @Test
+    void rejectsTruncatedAndTrailingBytes() {
+        byte[] encoded = BinaryFrameCodec.encode(command("match.play", "c-3", Map.of("cardId", "R-5", "roomId", 7)));
+
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(truncated), "length " + length);
+        }
+        assertThrows(IllegalArgumentException.class, () -> BinaryFrameCodec.decode(Arrays.copyOf(encoded, encoded.length + 1)));
+    }
+
+    @Test
+    void nullDataIsOmittedFromTheEnvelope() {
+        Map<String, Object> decoded = BinaryFrameCodec.decode(BinaryFrameCodec.encode(command("room.leave", "c-4", null)));
+
+        assertNull(decoded.get("data"));
+        assertFalse(decoded.containsKey("data"));
+    }
+}